@@ -0,0 +1,145 @@
+package com.hoogle.maze;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IdentityMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Shared, reference counted animations of the game objects. All enemies walk with the same Animation instance and
+ * all traps burn with the same one, so the memory and the load time of a level depend on the number of different
+ * sprites, not on the number of objects.
+ * An animation is identified by the name of its frames in the sprite atlas (sheet and row of the sprite) and its
+ * frame rate; its frame count is the number of frames packed under that name. Every acquire has to be matched by a
+ * release, the animation is dropped when the last object using it is released.
+ * The atlas texture itself is loaded through the AssetManager, each cached animation holds one reference to it, so
+ * the texture is disposed once no animation and no other user of the AssetManager needs it any more.
+ */
+public class AnimationCache implements Disposable {
+
+    /**
+     * A shared animation and the number of objects using it
+     */
+    private static class CachedAnimation {
+        private final String key;
+        private final Animation<TextureRegion> animation;
+        private int references;
+
+        CachedAnimation(String key, Animation<TextureRegion> animation) {
+            this.key = key;
+            this.animation = animation;
+        }
+    }
+
+    private final AssetManager assetManager;
+    private final String atlasFile;
+    private final ObjectMap<String, CachedAnimation> animationsByKey = new ObjectMap<>();
+    private final IdentityMap<Animation<TextureRegion>, CachedAnimation> animations = new IdentityMap<>();
+    private int animationsCreated;
+
+    /**
+     * @param assetManager loads the atlas the frames are taken from
+     * @param atlasFile internal path of the atlas
+     */
+    public AnimationCache(AssetManager assetManager, String atlasFile) {
+        this.assetManager = assetManager;
+        this.atlasFile = atlasFile;
+    }
+
+    /**
+     * Returns the shared animation of the frames name_0, name_1, ... and counts one more user of it
+     * @param name name of the frames in the atlas
+     * @param frameRate duration of a frame in seconds
+     * @throws GdxRuntimeException if the atlas has no frames with that name
+     */
+    public Animation<TextureRegion> acquire(String name, float frameRate) {
+        String key = name + '@' + frameRate;
+        CachedAnimation cached = animationsByKey.get(key);
+        if (cached == null) {
+            cached = new CachedAnimation(key, new Animation<>(frameRate, findFrames(name)));
+            animationsByKey.put(key, cached);
+            animations.put(cached.animation, cached);
+            animationsCreated++;
+        }
+        cached.references++;
+        return cached.animation;
+    }
+
+    /**
+     * Counts one user less of an animation returned by acquire, and drops it when nobody uses it any more.
+     * Animations that do not come from this cache are ignored.
+     */
+    public void release(Animation<TextureRegion> animation) {
+        CachedAnimation cached = animations.get(animation);
+        if (cached == null)
+            return;
+
+        cached.references--;
+        if (cached.references == 0) {
+            animations.remove(animation);
+            animationsByKey.remove(cached.key);
+            assetManager.unload(atlasFile);
+        }
+    }
+
+    /**
+     * Drops every animation, whoever still uses it
+     */
+    public void releaseAll() {
+        for (int i = 0; i < animationsByKey.size; i++) {
+            assetManager.unload(atlasFile);
+        }
+        animationsByKey.clear();
+        animations.clear();
+    }
+
+    /**
+     * Takes the frames from the atlas, and keeps one reference to the atlas for the new animation
+     */
+    private Array<TextureAtlas.AtlasRegion> findFrames(String name) {
+        // finishLoading and not finishLoadingAsset, which returns before an already loaded atlas counts the reference
+        assetManager.load(atlasFile, TextureAtlas.class);
+        assetManager.finishLoading();
+
+        Array<TextureAtlas.AtlasRegion> frames = assetManager.get(atlasFile, TextureAtlas.class).findRegions(name);
+        if (frames.isEmpty()) {
+            assetManager.unload(atlasFile);
+            throw new GdxRuntimeException("Animation " + name + " is missing in " + atlasFile);
+        }
+        return frames;
+    }
+
+    @Override
+    public void dispose() {
+        releaseAll();
+    }
+
+    //Getters
+
+    /**
+     * @return the number of animations in use
+     */
+    public int size() {
+        return animationsByKey.size;
+    }
+
+    /**
+     * @return the number of objects using the animation, 0 if it is not cached
+     */
+    public int getReferenceCount(String name, float frameRate) {
+        CachedAnimation cached = animationsByKey.get(name + '@' + frameRate);
+        return cached == null ? 0 : cached.references;
+    }
+
+    /**
+     * @return the number of animations built since the game started, each one was built from the atlas once
+     */
+    public int getAnimationsCreated() {
+        return animationsCreated;
+    }
+}
@@ -0,0 +1,179 @@
+package com.hoogle.maze;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+import com.hoogle.maze.map.TileSource;
+import com.hoogle.maze.map.TileType;
+import com.hoogle.maze.map.WallGrid;
+import com.hoogle.maze.models.Enemy;
+import com.hoogle.maze.models.GameObject;
+import com.hoogle.maze.models.Trap;
+
+/**
+ * World storage for very large mazes. The maze is split into CHUNK_SIZE x CHUNK_SIZE chunks and only the chunks
+ * around the player are resident: their traps and enemies exist as game objects.
+ * Walls are drawn straight from the tile source by the WallRenderer.
+ * Chunks are paged in from the tile source when the player gets close and the least recently used ones are paged
+ * out once more than maxResidentChunks are loaded.
+ * The entry, the exit and the key are created once for the whole level, so they never get paged out.
+ */
+public class ChunkedWorld {
+
+    public static final int CHUNK_SIZE = 64;
+    /**
+     * Chunks kept resident in every direction around the chunk of the player
+     */
+    public static final int RESIDENT_RADIUS = 1;
+    /**
+     * Binary mazes with at least this many tiles are paged instead of loaded whole
+     */
+    public static final long PAGING_THRESHOLD_TILES = Long.getLong("maze.pagingThreshold", 1L << 20);
+    public static final int DEFAULT_MAX_RESIDENT_CHUNKS = Math.max(
+            Integer.getInteger("maze.maxResidentChunks", 36),
+            (2 * RESIDENT_RADIUS + 1) * (2 * RESIDENT_RADIUS + 1));
+
+    private final MazeRunnerGame game;
+    private final TileSource tiles;
+    // x, y and type of the entries, exits and keys
+    private final int[] landmarks;
+    private final int maxResidentChunks;
+    private final int chunkColumns;
+    private final int chunkRows;
+    private final LongMap<WorldChunk> residentChunks = new LongMap<>();
+    private final Array<WorldChunk> residentChunkList = new Array<>();
+    private int centerChunkX = Integer.MIN_VALUE;
+    private int centerChunkY = Integer.MIN_VALUE;
+    private long updateCounter;
+
+    public ChunkedWorld(MazeRunnerGame game, TileSource tiles, int[] landmarks) {
+        this(game, tiles, landmarks, DEFAULT_MAX_RESIDENT_CHUNKS);
+    }
+
+    /**
+     * @param landmarks x, y and type of the entries, exits and keys, found by the level loader
+     */
+    public ChunkedWorld(MazeRunnerGame game, TileSource tiles, int[] landmarks, int maxResidentChunks) {
+        this.game = game;
+        this.tiles = tiles;
+        this.landmarks = landmarks;
+        this.maxResidentChunks = maxResidentChunks;
+        this.chunkColumns = (tiles.getWidth() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.chunkRows = (tiles.getHeight() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    /**
+     * Creates the entry, exit and key of the level. They are the only objects that are not paged.
+     * Their tiles were found on the loader thread, the tiles of the level are not scanned here.
+     */
+    public void placeLandmarks(MapLoader mapLoader) {
+        for (int i = 0; i < landmarks.length; i += 3) {
+            game.addGameObject(mapLoader.createGameObject(landmarks[i + 2], landmarks[i], landmarks[i + 1]));
+        }
+    }
+
+    /**
+     * Pages in the chunks around the given tile and pages out the least recently used ones over the budget.
+     * Does nothing while the player stays in the same chunk.
+     * @param tileX player tile x
+     * @param tileY player tile y
+     * @param mapLoader used to create the objects of the chunks that are paged in
+     */
+    public void update(int tileX, int tileY, MapLoader mapLoader) {
+        int chunkX = Math.floorDiv(tileX, CHUNK_SIZE);
+        int chunkY = Math.floorDiv(tileY, CHUNK_SIZE);
+        if (chunkX == centerChunkX && chunkY == centerChunkY)
+            return;
+
+        centerChunkX = chunkX;
+        centerChunkY = chunkY;
+        updateCounter++;
+
+        for (int y = chunkY - RESIDENT_RADIUS; y <= chunkY + RESIDENT_RADIUS; y++) {
+            for (int x = chunkX - RESIDENT_RADIUS; x <= chunkX + RESIDENT_RADIUS; x++) {
+                if (x < 0 || y < 0 || x >= chunkColumns || y >= chunkRows)
+                    continue;
+
+                WorldChunk chunk = residentChunks.get(key(x, y));
+                if (chunk == null)
+                    chunk = pageIn(x, y, mapLoader);
+                chunk.setLastUsed(updateCounter);
+            }
+        }
+
+        while (residentChunkList.size > maxResidentChunks) {
+            WorldChunk leastRecentlyUsed = residentChunkList.first();
+            for (WorldChunk chunk : residentChunkList) {
+                if (chunk.getLastUsed() < leastRecentlyUsed.getLastUsed())
+                    leastRecentlyUsed = chunk;
+            }
+            // chunks around the player are never evicted
+            if (leastRecentlyUsed.getLastUsed() == updateCounter)
+                break;
+            pageOut(leastRecentlyUsed);
+        }
+    }
+
+    /**
+     * @return true if the tile (x, y) is blocked, the same tiles MapLoader marks in the wall grid of unpaged levels
+     */
+    public boolean isWall(int x, int y) {
+        if (x < 0 || y < 0 || x >= tiles.getWidth() || y >= tiles.getHeight())
+            return true;
+        return WallGrid.isBlocking(tiles.get(x, y));
+    }
+
+    private WorldChunk pageIn(int chunkX, int chunkY, MapLoader mapLoader) {
+        WorldChunk chunk = new WorldChunk(chunkX, chunkY);
+
+        int endX = Math.min((chunkX + 1) * CHUNK_SIZE, tiles.getWidth());
+        int endY = Math.min((chunkY + 1) * CHUNK_SIZE, tiles.getHeight());
+        for (int tileY = chunkY * CHUNK_SIZE; tileY < endY; tileY++) {
+            for (int tileX = chunkX * CHUNK_SIZE; tileX < endX; tileX++) {
+                int type = tiles.get(tileX, tileY);
+                if (type == TileType.TRAP || type == TileType.ENEMY) {
+                    GameObject gameObject = mapLoader.createGameObject(type, tileX, tileY);
+                    if (gameObject instanceof Enemy enemy) {
+                        mapLoader.discoverHorizontalLimits(enemy);
+                        mapLoader.discoverVerticalLimits(enemy);
+                    }
+                    game.addGameObject(gameObject);
+                    chunk.addGameObject(gameObject);
+                }
+            }
+        }
+
+        residentChunks.put(key(chunkX, chunkY), chunk);
+        residentChunkList.add(chunk);
+        return chunk;
+    }
+
+    private void pageOut(WorldChunk chunk) {
+        for (GameObject gameObject : chunk.getGameObjects()) {
+            game.removeGameObject(gameObject);
+            if (gameObject instanceof Enemy enemy)
+                game.removeEnemy(enemy);
+            else if (gameObject instanceof Trap trap)
+                game.removeTrap(trap);
+        }
+        residentChunks.remove(key(chunk.getChunkX(), chunk.getChunkY()));
+        residentChunkList.removeValue(chunk, true);
+    }
+
+    private static long key(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+
+    //Getters
+
+    public Array<WorldChunk> getResidentChunks() {
+        return residentChunkList;
+    }
+
+    public TileSource getTiles() {
+        return tiles;
+    }
+
+    public int getMaxResidentChunks() {
+        return maxResidentChunks;
+    }
+}
@@ -0,0 +1,250 @@
+package com.hoogle.maze;
+
+import com.badlogic.gdx.utils.LongMap;
+
+import java.util.Arrays;
+
+/**
+ * Tiles the player can see, computed with recursive shadowcasting: each of the 8 octants around the player is scanned
+ * row by row outwards, and a wall casts a shadow that narrows the range of slopes scanned in the rows behind it.
+ * Every tile is looked at once at most, so an update costs O(radius^2) wall lookups.
+ * The field of view is only computed again when the player enters another tile. The visible tiles are a bitset over
+ * the square of tiles around the player, the explored tiles (every tile that was visible once) a bitset of
+ * EXPLORED_CHUNK_SIZE x EXPLORED_CHUNK_SIZE chunks created on the first visit, so the memory grows with the explored
+ * area and not with the size of the maze.
+ * Walls are lit, so the walls of a corridor are visible, but nothing behind them is.
+ */
+public class FieldOfView {
+
+    /**
+     * Plays with fog of war (-Dmaze.fogOfWar=true): only the visible and explored tiles are drawn
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("maze.fogOfWar");
+    /**
+     * Radius of the field of view in tiles (-Dmaze.fovRadius)
+     */
+    public static final int DEFAULT_RADIUS = Integer.getInteger("maze.fovRadius", 16);
+    // side of a chunk of the explored bitset, one long per row
+    private static final int EXPLORED_CHUNK_SIZE = 64;
+
+    // transformations of the first octant into the 8 octants: x = dx * xx + dy * xy, y = dx * yx + dy * yy
+    private static final int[] OCTANT_XX = {1, 0, 0, -1, -1, 0, 0, 1};
+    private static final int[] OCTANT_XY = {0, 1, -1, 0, 0, -1, 1, 0};
+    private static final int[] OCTANT_YX = {0, 1, 1, 0, 0, -1, -1, 0};
+    private static final int[] OCTANT_YY = {1, 0, 0, 1, -1, 0, 0, -1};
+
+    private final WallQuery walls;
+    private final int radius;
+    private final int side;
+    // visible tiles of the (2 * radius + 1)^2 square around the origin, row by row
+    private final long[] visible;
+    private final LongMap<long[]> exploredChunks = new LongMap<>();
+    // last chunk looked up, the visible tiles of an update are mostly in the same chunk
+    private long lastChunkKey = Long.MIN_VALUE;
+    private long[] lastChunk;
+    private int originX;
+    private int originY;
+    private boolean computed;
+    private int visibleCount;
+    private long exploredCount;
+    // bounding box of the explored tiles
+    private int exploredMinX = Integer.MAX_VALUE;
+    private int exploredMinY = Integer.MAX_VALUE;
+    private int exploredMaxX = Integer.MIN_VALUE;
+    private int exploredMaxY = Integer.MIN_VALUE;
+
+    public FieldOfView(WallQuery walls, int radius) {
+        this.walls = walls;
+        this.radius = radius;
+        this.side = 2 * radius + 1;
+        this.visible = new long[(side * side + 63) >>> 6];
+    }
+
+    /**
+     * Computes the field of view around (tileX, tileY) if the player entered another tile since the last update
+     * @return true if the field of view was computed again
+     */
+    public boolean update(int tileX, int tileY) {
+        if (computed && tileX == originX && tileY == originY)
+            return false;
+        compute(tileX, tileY);
+        return true;
+    }
+
+    /**
+     * Computes the field of view around (tileX, tileY), also if it did not move
+     */
+    public void compute(int tileX, int tileY) {
+        originX = tileX;
+        originY = tileY;
+        computed = true;
+        Arrays.fill(visible, 0);
+        visibleCount = 0;
+
+        markVisible(tileX, tileY);
+        for (int octant = 0; octant < 8; octant++) {
+            castLight(1, 1.0f, 0.0f, OCTANT_XX[octant], OCTANT_XY[octant], OCTANT_YX[octant], OCTANT_YY[octant]);
+        }
+    }
+
+    /**
+     * Scans the rows of one octant from row on, between the slopes start and end (1 is the diagonal, 0 the axis).
+     * A row of walls recurses into the rows behind it with the part of the slopes before the walls and goes on with
+     * the part after them.
+     */
+    private void castLight(int row, float start, float end, int xx, int xy, int yx, int yy) {
+        if (start < end)
+            return;
+
+        int radiusSquared = radius * radius;
+        float newStart = 0;
+        for (int distance = row; distance <= radius; distance++) {
+            boolean blocked = false;
+            int dy = -distance;
+            for (int dx = -distance; dx <= 0; dx++) {
+                float leftSlope = (dx - 0.5f) / (dy + 0.5f);
+                float rightSlope = (dx + 0.5f) / (dy - 0.5f);
+                if (start < rightSlope)
+                    continue;
+                if (end > leftSlope)
+                    break;
+
+                int x = originX + dx * xx + dy * xy;
+                int y = originY + dx * yx + dy * yy;
+                if (dx * dx + dy * dy <= radiusSquared)
+                    markVisible(x, y);
+
+                boolean wall = walls.hasWallAt(x, y);
+                if (blocked) {
+                    if (wall) {
+                        newStart = rightSlope;
+                    } else {
+                        blocked = false;
+                        start = newStart;
+                    }
+                } else if (wall && distance < radius) {
+                    blocked = true;
+                    castLight(distance + 1, start, leftSlope, xx, xy, yx, yy);
+                    newStart = rightSlope;
+                }
+            }
+            if (blocked)
+                break;
+        }
+    }
+
+    private void markVisible(int x, int y) {
+        int bit = (y - originY + radius) * side + (x - originX + radius);
+        long mask = 1L << bit;
+        if ((visible[bit >>> 6] & mask) != 0)
+            return;
+        visible[bit >>> 6] |= mask;
+        visibleCount++;
+        markExplored(x, y);
+    }
+
+    private void markExplored(int x, int y) {
+        long[] chunk = exploredChunk(Math.floorDiv(x, EXPLORED_CHUNK_SIZE), Math.floorDiv(y, EXPLORED_CHUNK_SIZE), true);
+        int row = Math.floorMod(y, EXPLORED_CHUNK_SIZE);
+        long mask = 1L << Math.floorMod(x, EXPLORED_CHUNK_SIZE);
+        if ((chunk[row] & mask) != 0)
+            return;
+        chunk[row] |= mask;
+        exploredCount++;
+        exploredMinX = Math.min(exploredMinX, x);
+        exploredMinY = Math.min(exploredMinY, y);
+        exploredMaxX = Math.max(exploredMaxX, x);
+        exploredMaxY = Math.max(exploredMaxY, y);
+    }
+
+    /**
+     * @return the bits of a chunk, or null if nothing in it was explored and create is false
+     */
+    private long[] exploredChunk(int chunkX, int chunkY, boolean create) {
+        long key = (long) chunkX << 32 | (chunkY & 0xffffffffL);
+        if (key == lastChunkKey)
+            return lastChunk;
+
+        long[] chunk = exploredChunks.get(key);
+        if (chunk == null) {
+            if (!create)
+                return null;
+            chunk = new long[EXPLORED_CHUNK_SIZE];
+            exploredChunks.put(key, chunk);
+        }
+        lastChunkKey = key;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    /**
+     * @return true if the tile is in the field of view of the last update
+     */
+    public boolean isVisible(int x, int y) {
+        int dx = x - originX + radius;
+        int dy = y - originY + radius;
+        if (!computed || dx < 0 || dy < 0 || dx >= side || dy >= side)
+            return false;
+        int bit = dy * side + dx;
+        return (visible[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * @return true if the tile was visible once
+     */
+    public boolean isExplored(int x, int y) {
+        long[] chunk = exploredChunk(Math.floorDiv(x, EXPLORED_CHUNK_SIZE), Math.floorDiv(y, EXPLORED_CHUNK_SIZE), false);
+        return chunk != null && (chunk[Math.floorMod(y, EXPLORED_CHUNK_SIZE)] & (1L << Math.floorMod(x, EXPLORED_CHUNK_SIZE))) != 0;
+    }
+
+    /**
+     * Forgets the explored tiles, for a new level
+     */
+    public void clear() {
+        exploredChunks.clear();
+        lastChunkKey = Long.MIN_VALUE;
+        lastChunk = null;
+        Arrays.fill(visible, 0);
+        computed = false;
+        visibleCount = 0;
+        exploredCount = 0;
+        exploredMinX = exploredMinY = Integer.MAX_VALUE;
+        exploredMaxX = exploredMaxY = Integer.MIN_VALUE;
+    }
+
+    //Getters
+
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * @return the number of tiles visible after the last update
+     */
+    public int getVisibleCount() {
+        return visibleCount;
+    }
+
+    public long getExploredCount() {
+        return exploredCount;
+    }
+
+    /**
+     * @return the bounds of the explored tiles, min > max while nothing was explored
+     */
+    public int getExploredMinX() {
+        return exploredMinX;
+    }
+
+    public int getExploredMinY() {
+        return exploredMinY;
+    }
+
+    public int getExploredMaxX() {
+        return exploredMaxX;
+    }
+
+    public int getExploredMaxY() {
+        return exploredMaxY;
+    }
+}
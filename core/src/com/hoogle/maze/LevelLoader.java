@@ -0,0 +1,189 @@
+package com.hoogle.maze;
+
+import com.badlogic.gdx.Gdx;
+import com.hoogle.maze.map.CorridorIndex;
+import com.hoogle.maze.map.LevelCache;
+import com.hoogle.maze.map.LoadedLevel;
+import com.hoogle.maze.map.MappedTileSource;
+import com.hoogle.maze.map.MazeAnalysis;
+import com.hoogle.maze.map.MazeBinaryFormat;
+import com.hoogle.maze.map.MazeFileParser;
+import com.hoogle.maze.map.ParallelMazeFileParser;
+import com.hoogle.maze.map.TileDiff;
+import com.hoogle.maze.map.TileGrid;
+import com.hoogle.maze.map.TileType;
+import com.hoogle.maze.map.WallGrid;
+import com.hoogle.maze.scene.Hud;
+import com.hoogle.maze.scene.Minimap;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads maze files on a worker thread. The level is parsed and its walls are built off the render thread,
+ * then the finished, immutable LoadedLevel is handed to the listener on the render thread through Gdx.app.postRunnable.
+ * Loaded levels are kept in a LevelCache, so loading an unchanged file again skips parsing.
+ */
+public class LevelLoader {
+
+    /**
+     * Called on the render thread when a load finishes
+     */
+    public interface Listener {
+        void onLevelLoaded(LoadedLevel level);
+
+        void onLoadingFailed(Path path, Exception exception);
+    }
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "maze-level-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LevelCache levelCache = new LevelCache();
+    private volatile float progress;
+    private volatile String status = "";
+
+    /**
+     * Starts loading a maze file in the background
+     * @param path .properties or .mzb maze file
+     * @param listener notified on the render thread once the level is ready or loading failed
+     */
+    public void load(Path path, Listener listener) {
+        progress = 0;
+        status = "Reading maze";
+
+        worker.execute(() -> {
+            try {
+                LoadedLevel level = read(path);
+                Gdx.app.postRunnable(() -> listener.onLevelLoaded(level));
+            } catch (IOException | RuntimeException e) {
+                Gdx.app.postRunnable(() -> listener.onLoadingFailed(path, e));
+            }
+        });
+    }
+
+    /**
+     * Reads and builds a level on the calling thread. Binary mazes of at least ChunkedWorld.PAGING_THRESHOLD_TILES
+     * tiles stay memory-mapped and are paged chunk by chunk, everything else is loaded into a TileGrid.
+     * Big .properties files are parsed on the common ForkJoinPool, see ParallelMazeFileParser.
+     * @throws IOException if the file cannot be read
+     */
+    public LoadedLevel read(Path path) throws IOException {
+        boolean binary = path.getFileName().toString().endsWith(MazeBinaryFormat.EXTENSION);
+        if (binary) {
+            MappedTileSource tileSource = MappedTileSource.open(path);
+            if (tileSource.getHeader().getTileCount() >= ChunkedWorld.PAGING_THRESHOLD_TILES) {
+                // paged levels are not cached, so neither their content is hashed nor are their tiles read here
+                status = "Placing objects";
+                int[] landmarks = tileSource.readLandmarks();
+                progress = 1;
+                return new LoadedLevel(path, 0, tileSource, WallGrid.EMPTY_GRID, CorridorIndex.EMPTY_INDEX, true,
+                        MazeAnalysis.NOT_ANALYZED, landmarks, null);
+            }
+        }
+
+        long contentHash = LevelCache.hashContent(path);
+        LoadedLevel cachedLevel = levelCache.get(path, contentHash);
+        if (cachedLevel != null) {
+            progress = 1;
+            status = "Placing objects";
+            return cachedLevel;
+        }
+
+        TileGrid tileGrid;
+        if (binary) {
+            tileGrid = TileGrid.fromBinary(path);
+        } else {
+            tileGrid = ParallelMazeFileParser.parse(path, MazeFileParser.PRINT_ERRORS,
+                    (parsedBytes, totalBytes) -> progress = 0.8f * parsedBytes / totalBytes);
+        }
+
+        progress = 0.8f;
+        status = "Building walls";
+        WallGrid wallGrid = WallGrid.fromTiles(tileGrid);
+        CorridorIndex corridorIndex = CorridorIndex.build(wallGrid);
+
+        progress = 0.9f;
+        status = "Checking the maze";
+        MazeAnalysis analysis = MazeAnalysis.analyze(tileGrid, wallGrid);
+        System.out.printf("Analyzed %s in %.1f ms: %s, %d open areas%n", path.getFileName(),
+                analysis.getAnalysisNanos() / 1_000_000.0, analysis.describe(), analysis.getComponentCount());
+
+        progress = 1;
+        status = "Placing objects";
+        LoadedLevel level = new LoadedLevel(path, contentHash, tileGrid, wallGrid, corridorIndex, false, analysis,
+                LoadedLevel.NO_LANDMARKS, downsampleMinimapWalls(tileGrid));
+        levelCache.put(level);
+        return level;
+    }
+
+    /**
+     * Builds the walls of a maze whose size was changed by an edit, for the MazeFileWatcher. The edit is neither
+     * analyzed nor cached, and the progress of a load running at the same time is left alone.
+     * @param path absolute path of the edited file
+     */
+    public static LoadedLevel buildEdit(Path path, TileGrid tileGrid) {
+        WallGrid wallGrid = WallGrid.fromTiles(tileGrid);
+        return new LoadedLevel(path, 0, tileGrid, wallGrid, CorridorIndex.build(wallGrid), false,
+                MazeAnalysis.NOT_ANALYZED, LoadedLevel.NO_LANDMARKS, downsampleMinimapWalls(tileGrid));
+    }
+
+    /**
+     * Applies an edit of the same size to a level, for the MazeFileWatcher. The level is left as it is, it may still
+     * be in the LevelCache: only the changed tiles are set in a copy of its wall grid and only their pixels of the
+     * minimap are downsampled again. The corridor index is kept unless a tile started or stopped blocking the way,
+     * then it is dropped and the patrol limits are found by walking the walls. The edit is neither analyzed nor cached.
+     * @param tileGrid the tiles of the edited file
+     * @param diff the tiles that differ between the level and tileGrid
+     */
+    public static LoadedLevel applyEdit(LoadedLevel level, TileGrid tileGrid, TileDiff diff) {
+        WallGrid wallGrid = level.getWallGrid().copy();
+        boolean blockingChanged = false;
+        long wallCount = level.getWallCount();
+        for (int change = 0; change < diff.size(); change++) {
+            boolean wasBlocking = WallGrid.isBlocking(diff.getOldType(change));
+            boolean isBlocking = WallGrid.isBlocking(diff.getNewType(change));
+            if (isBlocking)
+                wallGrid.setWall(diff.getX(change), diff.getY(change));
+            else
+                wallGrid.clearWall(diff.getX(change), diff.getY(change));
+            blockingChanged |= wasBlocking != isBlocking;
+
+            if (diff.getOldType(change) == TileType.WALL)
+                wallCount--;
+            if (diff.getNewType(change) == TileType.WALL)
+                wallCount++;
+        }
+
+        CorridorIndex corridorIndex = blockingChanged ? CorridorIndex.EMPTY_INDEX : level.getCorridorIndex();
+        boolean[] minimapWalls = level.getMinimapWalls() == null ? null
+                : Minimap.changeWalls(level.getMinimapWalls(), tileGrid, diff);
+        return new LoadedLevel(level.getPath(), 0, tileGrid, wallGrid, corridorIndex, false,
+                MazeAnalysis.NOT_ANALYZED, LoadedLevel.NO_LANDMARKS, minimapWalls, wallCount);
+    }
+
+    private static boolean[] downsampleMinimapWalls(TileGrid tileGrid) {
+        return Hud.ALWAYS_SHOW_MINIMAP || Minimap.isUseful(tileGrid) ? Minimap.downsampleWalls(tileGrid) : null;
+    }
+
+    public LevelCache getLevelCache() {
+        return levelCache;
+    }
+
+    /**
+     * @return progress of the current load, from 0 to 1
+     */
+    public float getProgress() {
+        return progress;
+    }
+
+    /**
+     * @return a short description of what the loader is doing
+     */
+    public String getStatus() {
+        return status;
+    }
+}
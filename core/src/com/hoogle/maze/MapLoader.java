@@ -1,26 +1,37 @@
 package com.hoogle.maze;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+import com.hoogle.maze.map.CorridorIndex;
+import com.hoogle.maze.map.LoadedLevel;
+import com.hoogle.maze.map.TileDiff;
+import com.hoogle.maze.map.TileGrid;
+import com.hoogle.maze.map.TileSource;
+import com.hoogle.maze.map.TileType;
+import com.hoogle.maze.map.WallGrid;
 import com.hoogle.maze.models.*;
 import com.hoogle.maze.screens.GameScreen;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class MapLoader {
 
     private final MazeRunnerGame game;
     private GameScreen gameScreen;
-    private final int Cell_Size = 16;
+    /**
+     * Size of a tile in pixels, shared by everything that converts between tiles and world positions
+     */
+    public static final int Cell_Size = 16;
     private final int Scale = 4;
-    private int mapX;
-    private int mapY;
     List<int[]> exitCoordinates = new ArrayList<>();
-    List<int[]> wallCoordinates = new ArrayList<>();
-    private int mapObjectType;
+    // objects created for each tile of the current level, keyed by tileKey, so single tiles can be replaced
+    private final LongMap<GameObject> spawnedObjects = new LongMap<>();
     private static TextureRegion textureRegionFor0;
     private static TextureRegion textureRegionFor1;
     private static TextureRegion textureRegionFor2;
@@ -29,6 +40,10 @@ public class MapLoader {
     private static TextureRegion textureRegionFor5;
     private static final String SKIN_PATH = "craft/craftacular-ui.json";
     private static Skin sharedSkin;
+    private static final Rectangle ORIGIN_TILE = new Rectangle(0, 0, 16, 16);
+    // created on the first frame, it needs the GL context
+    private WallRenderer wallRenderer;
+    private final WallRenderMode wallRenderMode = WallRenderMode.fromSystemProperty();
 
     static {
         loadTextures();
@@ -38,7 +53,6 @@ public class MapLoader {
     public MapLoader(MazeRunnerGame game, GameScreen gameScreen) {
         this.game = game;
         this.gameScreen = gameScreen;
-        loadTextures();
     }
 
 
@@ -47,107 +61,28 @@ public MapLoader(MazeRunnerGame game, GameScreen gameScreen) {
      */
     public void populateMap() {
 
-        int mapWidth = -1, mapHeight = -1;
-
-        for (Map.Entry<int[], Integer> entry : game.getCoordinatesMap().entrySet()) {
-            int[] coordinates = entry.getKey();
-            mapX = coordinates[0] * Cell_Size;
-            mapY = coordinates[1] * Cell_Size;
-
-            mapWidth = Math.max(mapWidth, mapX / 16 + 1);
-            mapHeight = Math.max(mapHeight, mapY / 16 + 1);
+        if (game.getChunkedWorld() != null) {
+            // traps, enemies and walls of paged levels are created chunk by chunk as the player gets close
+            game.getChunkedWorld().placeLandmarks(this);
+            return;
         }
 
-        for (Map.Entry<int[], Integer> entry : game.getCoordinatesMap().entrySet()) {
-            int[] coordinates = entry.getKey();
-            mapX = coordinates[0] * Cell_Size;
-            mapY = coordinates[1] * Cell_Size;
-            mapObjectType = entry.getValue();
+        TileGrid tileGrid = game.getTileGrid();
 
+        for (int tileY = 0; tileY < tileGrid.getHeight(); tileY++) {
+            for (int tileX = 0; tileX < tileGrid.getWidth(); tileX++) {
+                int mapObjectType = tileGrid.get(tileX, tileY);
+                if (mapObjectType == TileType.EMPTY)
+                    continue;
 
-            final int currentFrameY = mapY / 16;
-            final int currentFrameX = mapX / 16;
+                GameObject objectDetected = createGameObject(mapObjectType, tileX, tileY);
 
-            GameObject objectDetected = switch (mapObjectType) {
-                case 0 -> {
-                    //adds variables to the double entry array hasWall
-                    game.setWall(currentFrameX, currentFrameY);
-                    yield null;
-                }
-                case 1 -> {
-                    var entryDetected = new Entry(
-                            mapX,
-                            mapY,
-                            textureRegionFor1.getRegionWidth(),
-                            textureRegionFor1.getRegionHeight(),
-                            textureRegionFor1,
-                            sharedSkin);
-
-                    //adds variables to the double entry array hasWall
-                    game.setWall(currentFrameX, currentFrameY);
-                    game.getPlayer().setInitialX(mapX);
-                    game.getPlayer().setInitialY(mapY);
-                    yield entryDetected;
-                }
-                case 2 -> {
-                    var exit = new Exit(
-                            mapX,
-                            mapY,
-                            textureRegionFor2.getRegionWidth(),
-                            textureRegionFor2.getRegionHeight(),
-                            textureRegionFor2,
-                            sharedSkin);
-
-                    exitCoordinates.add(new int[]{mapX, mapY});
-                    //adds variables to the double entry array hasWall
-                    game.setWall(currentFrameX, currentFrameY);
-                    game.setExit(exit);
-                    yield exit;
-                }
-                case 3 -> {
-                    var trap = new Trap(
-                            mapX,
-                            mapY,
-                            textureRegionFor3.getRegionWidth(),
-                            textureRegionFor3.getRegionHeight(),
-                            textureRegionFor3,
-                            sharedSkin);
-
-                    //adds variables to the double entry array hasWall
-                    game.addTrap(trap);
-                    yield trap;
+                // adds objects into the gameObjects Array
+                if (objectDetected != null) {
+                    game.addGameObject(objectDetected);
+                    spawnedObjects.put(tileKey(tileX, tileY), objectDetected);
                 }
-                case 4 -> {
-                    var enemy = new Enemy(
-                            mapX,
-                            mapY,
-                            textureRegionFor4.getRegionWidth(),
-                            textureRegionFor4.getRegionHeight(),
-                            textureRegionFor4,
-                            sharedSkin);
-                    //adds variables to the double entry array hasWall
-                    game.addEnemy(enemy);
-                    yield enemy;
-                }
-                case 5 -> {
-                    var key = new Key(
-                            mapX,
-                            mapY,
-                            textureRegionFor5.getRegionWidth(),
-                            textureRegionFor5.getRegionHeight(),
-                            textureRegionFor5,
-                            sharedSkin);
-
-                    game.setKey(key);
-                    yield key;
-                }
-                default -> null;
-            };
-
-            // adds objects into the gameObjects Array
-            if (objectDetected != null)
-                game.addGameObject(objectDetected);
-
+            }
         }
 
         game.getEnemies().forEach(enemy -> {
@@ -156,42 +91,199 @@ public void populateMap() {
         });
 
     }
-    public void loadWalls() {
-
-        for (Map.Entry<int[], Integer> entry : game.getCoordinatesMap().entrySet()) {
-            int[] coordinates = entry.getKey();
-            int mapX = coordinates[0] * Cell_Size;
-            int mapY = coordinates[1] * Cell_Size;
-            int mapObjectType = entry.getValue();
-
-            if (mapObjectType == 0) {
-                wallCoordinates.add(new int[]{mapX, mapY});
-                //System.out.println("Drawing wall at X: " + mapX + ", Y: " + mapY);
-                // Skip creating an object for walls
+
+    /**
+     * Creates the GameObject for a tile of the map and registers it in the game (player start, exit, traps, enemies, key).
+     * The object is not added to the gameObjects Array.
+     * @param objectType type of the tile, see TileType
+     * @param tileX x coordinate in the map matrix
+     * @param tileY y coordinate in the map matrix
+     * @return the created object, or null for walls and unknown types
+     */
+    public GameObject createGameObject(int objectType, int tileX, int tileY) {
+        int mapX = tileX * Cell_Size;
+        int mapY = tileY * Cell_Size;
+
+        return switch (objectType) {
+            case 0 -> null; // walls are part of the level's wall grid
+            case 1 -> {
+                var entryDetected = new Entry(
+                        mapX,
+                        mapY,
+                        textureRegionFor1.getRegionWidth(),
+                        textureRegionFor1.getRegionHeight(),
+                        textureRegionFor1,
+                        sharedSkin);
+
+                game.getPlayer().setInitialX(mapX);
+                game.getPlayer().setInitialY(mapY);
+                yield entryDetected;
+            }
+            case 2 -> {
+                var exit = new Exit(
+                        mapX,
+                        mapY,
+                        textureRegionFor2.getRegionWidth(),
+                        textureRegionFor2.getRegionHeight(),
+                        textureRegionFor2,
+                        sharedSkin);
+
+                exitCoordinates.add(new int[]{mapX, mapY});
+                game.setExit(exit);
+                yield exit;
+            }
+            case 3 -> {
+                var trap = new Trap(
+                        mapX,
+                        mapY,
+                        textureRegionFor3.getRegionWidth(),
+                        textureRegionFor3.getRegionHeight(),
+                        textureRegionFor3,
+                        sharedSkin);
+
+                //adds variables to the double entry array hasWall
+                game.addTrap(trap);
+                yield trap;
+            }
+            case 4 -> {
+                var enemy = new Enemy(
+                        mapX,
+                        mapY,
+                        textureRegionFor4.getRegionWidth(),
+                        textureRegionFor4.getRegionHeight(),
+                        textureRegionFor4,
+                        sharedSkin);
+                //adds variables to the double entry array hasWall
+                game.addEnemy(enemy);
+                yield enemy;
             }
+            case 5 -> {
+                var key = new Key(
+                        mapX,
+                        mapY,
+                        textureRegionFor5.getRegionWidth(),
+                        textureRegionFor5.getRegionHeight(),
+                        textureRegionFor5,
+                        sharedSkin);
+
+                game.setKey(key);
+                yield key;
+            }
+            default -> null;
+        };
+    }
+
+    /**
+     * Patches the current level after its file changed: replaces the objects and walls of the changed tiles only.
+     * The new wall grid must already be set in the game.
+     * @param diff tiles that changed
+     */
+    public void applyTileChanges(TileDiff diff) {
+        if (wallRenderer != null)
+            wallRenderer.changeTiles(game.getTileGrid(), diff);
+
+        boolean blockingTilesChanged = false;
+        Array<Enemy> createdEnemies = new Array<>();
+
+        for (int change = 0; change < diff.size(); change++) {
+            int tileX = diff.getX(change);
+            int tileY = diff.getY(change);
+            int oldType = diff.getOldType(change);
+            int newType = diff.getNewType(change);
+
+            GameObject oldObject = spawnedObjects.remove(tileKey(tileX, tileY));
+            if (oldObject != null)
+                removeGameObject(oldObject);
+            GameObject newObject = createGameObject(newType, tileX, tileY);
+            if (newObject != null) {
+                game.addGameObject(newObject);
+                spawnedObjects.put(tileKey(tileX, tileY), newObject);
+                if (newObject instanceof Enemy enemy)
+                    createdEnemies.add(enemy);
+            }
+
+            blockingTilesChanged |= WallGrid.isBlocking(oldType) != WallGrid.isBlocking(newType);
+        }
+
+        // patrol limits only change when walls moved, otherwise only the new enemies need theirs
+        Array<Enemy> enemiesToUpdate = blockingTilesChanged ? game.getEnemies() : createdEnemies;
+        for (Enemy enemy : enemiesToUpdate) {
+            enemy.resetLimits();
+            discoverHorizontalLimits(enemy);
+            discoverVerticalLimits(enemy);
+        }
+    }
 
+    private void removeGameObject(GameObject gameObject) {
+        game.removeGameObject(gameObject);
+        if (gameObject instanceof Enemy enemy) {
+            game.removeEnemy(enemy);
+        } else if (gameObject instanceof Trap trap) {
+            game.removeTrap(trap);
+        } else if (gameObject == game.getKey()) {
+            game.setKey(null);
+        } else if (gameObject == game.getExit()) {
+            game.setExit(null);
+            exitCoordinates.removeIf(coordinates -> coordinates[0] == gameObject.getInitialX() && coordinates[1] == gameObject.getInitialY());
         }
     }
 
-    public void drawWalls() {
-        for (int[] wallCoord : wallCoordinates) {
-            int wallX = wallCoord[0];
-            int wallY = wallCoord[1];
-            game.getSpriteBatch().draw(getTextureRegionFor0(), wallX, wallY);
+    private static long tileKey(int tileX, int tileY) {
+        return ((long) tileX << 32) | (tileY & 0xFFFFFFFFL);
+    }
 
-            if(wallX == 0 && wallY == 0) {
-                game.getSpriteBatch().draw(getTextureRegionFor4(), wallX, wallY);
-            }
+    /**
+     * Draws the walls in the view of the camera, from the cached wall chunks or with the wall shader depending on the
+     * WallRenderMode (-Dmaze.wallRenderer). Must be called outside of SpriteBatch.begin and end.
+     * @param camera camera of the game screen
+     * @param viewBounds part of the world the camera shows, in pixels
+     * @param renderStats receives the number of drawn and culled walls
+     */
+    public void drawWalls(OrthographicCamera camera, Rectangle viewBounds, RenderStats renderStats) {
+        if (wallRenderer == null) {
+            wallRenderer = switch (wallRenderMode) {
+                case SPRITE_CACHE -> new WallLayer(getTextureRegionFor0());
+                case SHADER -> new ShaderWallRenderer(getTextureRegionFor0());
+            };
+        }
+
+        TileSource tiles = getDrawnTiles();
+        if (wallRenderer.getTiles() != tiles) {
+            LoadedLevel level = game.getCurrentLevel();
+            wallRenderer.setTiles(tiles, level != null && level.getTiles() == tiles ? level.getWallCount() : 0);
         }
+        wallRenderer.draw(camera, viewBounds, renderStats);
+    }
+
+    /**
+     * Draws the enemy sprite on the wall at the origin of the maze, if it is in view
+     */
+    public void drawOriginMarker(Rectangle viewBounds) {
+        if (getDrawnTiles().get(0, 0) == TileType.WALL && viewBounds.overlaps(ORIGIN_TILE))
+            game.getSpriteBatch().draw(getTextureRegionFor4(), 0, 0);
+    }
+
+    private TileSource getDrawnTiles() {
+        return game.getChunkedWorld() != null ? game.getChunkedWorld().getTiles() : game.getTileGrid();
     }
 
     /**
-     * Discovers how far an enemy can go without hitting a wall in the x-axis
+     * Discovers how far an enemy can go without hitting a wall in the x-axis. The limits come from the CorridorIndex
+     * of the level, paged levels, levels whose walls were edited by a hot reload and limits that are not in one run of
+     * open tiles are walked tile by tile
      * @param enemy
      */
     public void discoverVerticalLimits(Enemy enemy) {
         int currentFrameX = (int) enemy.getCurrentFrameX();
 
+        CorridorIndex corridors = game.getCorridorIndex();
+        int run = corridors.getColumnRun(currentFrameX, (int) enemy.getMinVertical());
+        if (run != CorridorIndex.NO_RUN && run == corridors.getColumnRun(currentFrameX, (int) enemy.getMaxVertical())) {
+            enemy.setMinVertical(corridors.getColumnRunStart(run));
+            enemy.setMaxVertical(corridors.getColumnRunEnd(run));
+            return;
+        }
+
         while (!game.hasWallAt(currentFrameX, (int)enemy.getMinVertical() - 1)) {
             enemy.setMinVertical(enemy.getMinVertical() - 1);
         }
@@ -202,12 +294,20 @@ public void discoverVerticalLimits(Enemy enemy) {
     }
 
     /**
-     * Discovers how far an enemy can go without hitting a wall in the y-axis
+     * Discovers how far an enemy can go without hitting a wall in the y-axis, like discoverVerticalLimits
      * @param enemy
      */
     public void discoverHorizontalLimits(Enemy enemy) {
         int currentFrameY = (int) enemy.getCurrentFrameY();
 
+        CorridorIndex corridors = game.getCorridorIndex();
+        int run = corridors.getRowRun((int) enemy.getMinHorizontal(), currentFrameY);
+        if (run != CorridorIndex.NO_RUN && run == corridors.getRowRun((int) enemy.getMaxHorizontal(), currentFrameY)) {
+            enemy.setMinHorizontal(corridors.getRowRunStart(run));
+            enemy.setMaxHorizontal(corridors.getRowRunEnd(run));
+            return;
+        }
+
         while (!game.hasWallAt((int)enemy.getMinHorizontal() - 1, currentFrameY)) {
             enemy.setMinHorizontal(enemy.getMinHorizontal() - 1);
         }
@@ -218,6 +318,14 @@ public void discoverHorizontalLimits(Enemy enemy) {
     }
 
 
+    /**
+     * Forgets the walls, exits and objects collected for the previous level
+     */
+    public void clear() {
+        exitCoordinates.clear();
+        spawnedObjects.clear();
+    }
+
 //    public void clearMap() {
 //        if (game.getCoordinatesMap().isEmpty()) {
 //            System.out.println("Map is empty");
@@ -231,13 +339,18 @@ public void saveMap() {
 
     }
 
+    /**
+     * Looks up the regions of the tiles in the sprite atlas
+     */
     public static void loadTextures() {
-        textureRegionFor0 = new TextureRegion(GameScreen.tileSheet, 0, 0, 16, 16); // define the Textureregion for WALLS
-        textureRegionFor1 = new TextureRegion(GameScreen.tileSheet, 32, 96, 16, 16); // define the Textureregion for ENTRY
-        textureRegionFor2 = new TextureRegion(GameScreen.tileSheet, 0, 96, 16, 16); // define the Textureregion for EXIT
-        textureRegionFor3 = new TextureRegion(GameScreen.objectSheet, 112, 48, 16, 16); // define the Textureregion for TRAP
-        textureRegionFor4 = new TextureRegion(GameScreen.mobsSheet, 128, 64, 16, 16); // define the Textureregion for ENEMY
-        textureRegionFor5 = new TextureRegion(GameScreen.keySheet, 0, 0, 16, 16); // define the Textureregion for KEY
+        if (textureRegionFor0 != null)
+            return;
+        textureRegionFor0 = SpriteAtlas.findRegion("wall"); // define the Textureregion for WALLS
+        textureRegionFor1 = SpriteAtlas.findRegion("entry"); // define the Textureregion for ENTRY
+        textureRegionFor2 = SpriteAtlas.findRegion("exit"); // define the Textureregion for EXIT
+        textureRegionFor3 = SpriteAtlas.findRegion("trap", 3); // define the Textureregion for TRAP
+        textureRegionFor4 = SpriteAtlas.findRegion("enemy"); // define the Textureregion for ENEMY
+        textureRegionFor5 = SpriteAtlas.findRegion("key"); // define the Textureregion for KEY
     }
 
     //Getters & Setters
@@ -270,8 +383,20 @@ public List<int[]> getExitCoordinates() {
         return exitCoordinates;
     }
 
-    public List<int[]> getWallCoordinates() {
-        return wallCoordinates;
+    /**
+     * @return the renderer of the walls, or null before the first frame was drawn
+     */
+    public WallRenderer getWallRenderer() {
+        return wallRenderer;
+    }
+
+    public WallRenderMode getWallRenderMode() {
+        return wallRenderMode;
+    }
+
+    public void dispose() {
+        if (wallRenderer != null)
+            wallRenderer.dispose();
     }
 }
 
@@ -0,0 +1,134 @@
+package com.hoogle.maze;
+
+import com.badlogic.gdx.Gdx;
+import com.hoogle.maze.map.LoadedLevel;
+import com.hoogle.maze.map.TileDiff;
+import com.hoogle.maze.map.TileGrid;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the maze file of the current level with a WatchService. When the file changes it is parsed again on the
+ * watcher thread and compared with the previous version; only the tiles that changed are applied to the level and
+ * handed to the listener, on the render thread. The edits do not go through the LevelLoader: they are not hashed,
+ * analyzed or cached, and a load running at the same time keeps its progress. Enabled with -Dmaze.hotReload=true.
+ */
+public class MazeFileWatcher implements Closeable {
+
+    public static final boolean ENABLED = Boolean.getBoolean("maze.hotReload");
+    /**
+     * Editors often write a file in several steps, events arriving within this delay are handled as one change
+     */
+    private static final long DEBOUNCE_MILLIS = 100;
+
+    /**
+     * Called on the render thread after the watched file changed
+     */
+    public interface Listener {
+        /**
+         * @param level the level as it is in the file now, the last level with the changed tiles applied
+         * @param diff the tiles that changed, or null if the size of the maze changed and it has to be rebuilt
+         */
+        void onMazeFileChanged(LoadedLevel level, TileDiff diff);
+    }
+
+    private final Path path;
+    private final Listener listener;
+    private final WatchService watchService;
+    private final Thread thread;
+    private volatile LoadedLevel lastLevel;
+
+    /**
+     * Starts watching the file a level was loaded from
+     * @throws IOException if the directory of the file cannot be watched
+     */
+    public MazeFileWatcher(LoadedLevel level, Listener listener) throws IOException {
+        this.path = level.getPath().toAbsolutePath();
+        this.listener = listener;
+        this.lastLevel = level;
+        this.watchService = path.getFileSystem().newWatchService();
+        path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+
+        thread = new Thread(this::watch, "maze-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (!containsChangeOfFile(watchService.take()))
+                    continue;
+
+                // waits until the editor is done writing
+                WatchKey key;
+                while ((key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    containsChangeOfFile(key);
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // the watcher was closed
+        }
+    }
+
+    private boolean containsChangeOfFile(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (path.getFileName().equals(event.context()))
+                changed = true;
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload() {
+        TileGrid tileGrid;
+        try {
+            tileGrid = TileGrid.load(path);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reloading maze file: " + e.getMessage());
+            return;
+        }
+
+        LoadedLevel previousLevel = lastLevel;
+        TileDiff diff = TileDiff.compute(previousLevel.getTileGrid(), tileGrid);
+        if (diff != null && diff.isEmpty())
+            return;
+        LoadedLevel level = diff == null ? LevelLoader.buildEdit(path, tileGrid)
+                : LevelLoader.applyEdit(previousLevel, tileGrid, diff);
+        lastLevel = level;
+
+        System.out.println("Maze file changed, " + (diff == null ? "rebuilding the level" : diff.size() + " tiles changed"));
+        Gdx.app.postRunnable(() -> listener.onMazeFileChanged(level, diff));
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Sets the level the next change of the file is compared with
+     */
+    public void setLastLevel(LoadedLevel lastLevel) {
+        this.lastLevel = lastLevel;
+    }
+
+    @Override
+    public void close() {
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Error closing maze file watcher: " + e.getMessage());
+        }
+    }
+}
@@ -2,11 +2,20 @@
 
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.Array;
+import com.hoogle.maze.map.CorridorIndex;
+import com.hoogle.maze.map.LoadedLevel;
+import com.hoogle.maze.map.MazeBinaryFormat;
+import com.hoogle.maze.map.TileDiff;
+import com.hoogle.maze.map.TileGrid;
+import com.hoogle.maze.map.TileSource;
+import com.hoogle.maze.map.TileType;
+import com.hoogle.maze.map.WallGrid;
 import com.hoogle.maze.models.*;
 import com.hoogle.maze.scene.Hud;
 import com.hoogle.maze.screens.*;
@@ -15,14 +24,14 @@
 import games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration;
 import games.spooky.gdx.nativefilechooser.NativeFileChooserIntent;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * The MazeRunnerGame class represents the core of the Maze Runner game.
  * It manages the screens and global resources like SpriteBatch and Skin.
  */
-public class MazeRunnerGame extends Game {
+public class MazeRunnerGame extends Game implements LevelLoader.Listener, MazeFileWatcher.Listener {
     // Screens
     private MenuScreen menuScreen;
     private GameScreen gameScreen;
@@ -32,12 +41,24 @@ public class MazeRunnerGame extends Game {
 
     private Player player;
     private Array<Enemy> enemies;
+    // positions, limits and lives of the enemies, moved all at once every tick
+    private final EnemySystem enemySystem = new EnemySystem();
+    // runs the loops over the enemies and traps on several threads on huge levels, see -Dmaze.updateThreads
+    private final ParallelUpdater parallelUpdater = new ParallelUpdater();
     private Array<Trap> traps;
+    // enemies and traps by tile, for the collision checks of the player
+    private final SpatialIndex<Enemy> enemyIndex = new SpatialIndex<>();
+    private final SpatialIndex<Trap> trapIndex = new SpatialIndex<>();
+    // the objects that are neither enemies nor traps: the entry, the exits and the key
+    private final SpatialIndex<GameObject> staticObjectIndex = new SpatialIndex<>();
     private Key key;
     private Exit exit;
     private Array<GameObject> gameObjects;
-    private Map<int[], Integer> coordinatesMap = new HashMap<int[], Integer>();
+    private TileGrid tileGrid = TileGrid.EMPTY_GRID;
     private MapLoader mapLoader;
+    private final LevelLoader levelLoader = new LevelLoader();
+    private LoadedLevel currentLevel;
+    private MazeFileWatcher mazeFileWatcher;
     private GameState gameState;
     private NativeFileChooser fileChooser;
     // Sprite Batch for rendering
@@ -45,7 +66,9 @@ public class MazeRunnerGame extends Game {
     // private final int scale = 4;
     private Hud hud;
     private boolean isMapLoaded;
-    private boolean[][] hasWall = new boolean[10000][10000];
+    private WallGrid wallGrid = WallGrid.EMPTY_GRID;
+    private CorridorIndex corridorIndex = CorridorIndex.EMPTY_INDEX;
+    private ChunkedWorld chunkedWorld;
     private Music backgroundMusic;
     private Music keySound;
     private Music hitSound;
@@ -77,8 +100,7 @@ public void create() {
                 this,
                 new Skin(Gdx.files.internal("craft/craftacular-ui.json")),
                 16,
-                12,
-                hasWall
+                12
         );
 
         // Play some background music
@@ -165,10 +187,8 @@ public void handleScreens() {
     public void winGame() {
         this.setScreen(new WinScreen(this));
         // setGameState(GameState.RUNNING);
-        getGameObjects().clear();
-        getCoordinatesMap().clear();
-        getEnemies().clear();
-        getTraps().clear();
+        clearGameObjects();
+        setTileGrid(TileGrid.EMPTY_GRID);
         player.setFullLife();
         player.setHasKey(false);
         player.setAlive(true);
@@ -182,10 +202,8 @@ public void winGame() {
 
     public void loseGame() {
 
-        getGameObjects().clear();
-        getCoordinatesMap().clear();
-        getEnemies().clear();
-        getTraps().clear();
+        clearGameObjects();
+        setTileGrid(TileGrid.EMPTY_GRID);
         setKey(null);
         player.setFullLife();
         player.setAlive(true);
@@ -210,57 +228,15 @@ public void showFileChooser() {
         var fileChooserConfig = new NativeFileChooserConfiguration();
         fileChooserConfig.title = "Pick a maze file"; // Title of the window that will be opened
         fileChooserConfig.intent = NativeFileChooserIntent.OPEN; // We want to open a file
-        fileChooserConfig.nameFilter = (file, name) -> name.endsWith("properties"); // Only accept .properties files
+        fileChooserConfig.nameFilter = (file, name) -> name.endsWith("properties") || name.endsWith(MazeBinaryFormat.EXTENSION); // Only accept .properties and .mzb files
         fileChooserConfig.directory = Gdx.files.absolute(System.getProperty("user.home")); // Open at the user's home directory
 
         fileChooser.chooseFile(fileChooserConfig, new NativeFileChooserCallback() {
             @Override
             public void onFileChosen(FileHandle fileHandle) {
-                // Do something with fileHandle
-                // Do something with fileHandle
-                if (gameScreen != null) {
-                    gameScreen.dispose();
-                    gameScreen = null;
-                }
-
-                getGameObjects().clear();
-                getCoordinatesMap().clear();
-                getEnemies().clear();
-                getTraps().clear();
-                setKey(null);
-                player.setHasKey(false);
-                player.setFullLife();
-                player.setAlive(true);
-
-
-                String fileContent = fileHandle.readString();
-                // System.out.println("File Content: " + fileContent);
-
-                String[] splitContents = fileContent.split("\n");
-
-                for (String splitContent : splitContents) {
-
-                    splitContent = splitContent.trim(); // Trim leading and trailing whitespace
-                    //System.out.println("Split Content: " + splitContent);
-                    String[] pairs = splitContent.split("=");
-                    String[] coordinates = pairs[0].split(",");
-
-                    try {
-                        int x = Integer.parseInt(coordinates[0]);
-                        int y = Integer.parseInt(coordinates[1]);
-                        int objectType = Integer.parseInt(pairs[1]);
-                        int[] coordinatesXY = new int[]{x, y};
-
-                        //System.out.println("Parsed Data: x=" + x + ", y=" + y + ", objectType=" + objectType);
-                        coordinatesMap.put(coordinatesXY, objectType);
-                    } catch (NumberFormatException e) {
-                        System.out.println("Error parsing data: " + e.getMessage());
-                    }
-                    System.out.println("Filechooser working");
-                }
-
-                goToGame();
-
+                // the chooser may call back on its own thread, the level is loaded from the render thread
+                Path path = fileHandle.file().toPath();
+                Gdx.app.postRunnable(() -> loadLevel(path));
             }
 
             @Override
@@ -276,6 +252,128 @@ public void onError(Exception exception) {
 
     }
 
+    /**
+     * Shows the loading screen and loads the maze file on the level loader's worker thread
+     * @param path .properties or .mzb maze file
+     */
+    public void loadLevel(Path path) {
+        if (gameScreen != null) {
+            gameScreen.dispose();
+            gameScreen = null;
+        }
+        menuMusic.stop();
+        this.setScreen(new LoadingScreen(this, levelLoader));
+        levelLoader.load(path, this);
+    }
+
+    /**
+     * Called on the render thread once the level loader has built the level. Creates the game objects,
+     * so the first frame of the game screen only has to draw.
+     */
+    @Override
+    public void onLevelLoaded(LoadedLevel level) {
+        startLevel(level);
+
+        Screen loadingScreen = getScreen();
+        goToGame();
+        if (loadingScreen != gameScreen)
+            loadingScreen.dispose();
+
+        watchMazeFile(level);
+    }
+
+    /**
+     * Resets the player and creates the game objects of a level. The current screen is kept, so this is also used
+     * to rebuild the level the game screen is showing.
+     */
+    private void startLevel(LoadedLevel level) {
+        clearGameObjects();
+        setKey(null);
+        player.setHasKey(false);
+        player.setFullLife();
+        player.setAlive(true);
+
+        setLevel(level);
+        if (gameScreen != null)
+            gameScreen.resetFieldOfView();
+        mapLoader.clear();
+        mapLoader.populateMap();
+    }
+
+    /**
+     * Called on the render thread when the maze file of the current level was edited. Only the changed tiles are
+     * replaced, unless the size of the maze changed.
+     */
+    @Override
+    public void onMazeFileChanged(LoadedLevel level, TileDiff diff) {
+        if (mazeFileWatcher == null || currentLevel == null
+                || !level.getPath().toAbsolutePath().equals(currentLevel.getPath().toAbsolutePath()))
+            return;
+        // changes made while the level is not played are dropped, the next one is compared with the level as it is
+        if (gameScreen == null || getScreen() != gameScreen) {
+            mazeFileWatcher.setLastLevel(currentLevel);
+            return;
+        }
+
+        if (diff == null) {
+            // the game screen is showing, it stays and draws the rebuilt level from the next frame on
+            startLevel(level);
+            return;
+        }
+        setLevel(level);
+        mapLoader.applyTileChanges(diff);
+        if (gameScreen != null)
+            gameScreen.changeTiles(level.getTiles(), diff);
+    }
+
+    /**
+     * Watches the file of the level for changes when hot reload is enabled
+     */
+    private void watchMazeFile(LoadedLevel level) {
+        if (!MazeFileWatcher.ENABLED || level.isPaged()) {
+            stopWatchingMazeFile();
+            return;
+        }
+        if (mazeFileWatcher != null && mazeFileWatcher.getPath().equals(level.getPath().toAbsolutePath())) {
+            mazeFileWatcher.setLastLevel(level);
+            return;
+        }
+
+        stopWatchingMazeFile();
+        try {
+            mazeFileWatcher = new MazeFileWatcher(level, this);
+        } catch (IOException e) {
+            System.err.println("Error watching maze file: " + e.getMessage());
+        }
+    }
+
+    private void stopWatchingMazeFile() {
+        if (mazeFileWatcher != null) {
+            mazeFileWatcher.close();
+            mazeFileWatcher = null;
+        }
+    }
+
+    /**
+     * Starts the current level again from its loaded snapshot, without reading the maze file
+     */
+    public void retryLevel() {
+        if (currentLevel == null) {
+            goToMenu();
+            return;
+        }
+        victory.stop();
+        gameOver.stop();
+        // the button that triggers a retry belongs to the screen that is disposed when the level starts
+        Gdx.app.postRunnable(() -> onLevelLoaded(currentLevel));
+    }
+
+    @Override
+    public void onLoadingFailed(Path path, Exception exception) {
+        System.err.println("Error reading maze file " + path + ": " + exception.getMessage());
+        goToMenu();
+    }
+
     private void loadMusic() {
           backgroundMusic = Gdx.audio.newMusic(Gdx.files.internal("background.mp3"));
           keySound = Gdx.audio.newMusic(Gdx.files.internal("keySound.wav"));
@@ -290,10 +388,14 @@ private void loadMusic() {
      */
     @Override
     public void dispose() {
+        stopWatchingMazeFile();
         getScreen().hide(); // Hide the current screen
         getScreen().dispose(); // Dispose the current screen
         spriteBatch.dispose(); // Dispose the spriteBatch
+        mapLoader.dispose(); // Dispose the cached walls
+        SpriteAtlas.dispose(); // Dispose the texture of all sprites
         player.getSkin().dispose(); // Dispose the skin
+        parallelUpdater.dispose(); // Stop the update threads
     }
 
     // Getter methods
@@ -307,6 +409,7 @@ public boolean hasAvailableKey() {
 
     public void collectKey() {
         this.gameObjects.removeValue(key, false);
+        staticObjectIndex.remove(key);
         this.key = null;
     }
 
@@ -328,10 +431,29 @@ public Array<Enemy> getEnemies() {
 
     public void addEnemy(Enemy enemy) {
         enemies.add(enemy);
+        enemySystem.add(enemy);
+        enemyIndex.insert(enemy);
     }
 
     public void removeEnemy(Enemy enemy) {
-        enemies.removeValue(enemy, false);
+        enemies.removeValue(enemy, true);
+        enemyIndex.remove(enemy);
+        enemySystem.remove(enemy);
+    }
+
+    public EnemySystem getEnemySystem() {
+        return enemySystem;
+    }
+
+    public ParallelUpdater getParallelUpdater() {
+        return parallelUpdater;
+    }
+
+    /**
+     * @return the enemies by tile, GameScreen moves them into their new cell after every step
+     */
+    public SpatialIndex<Enemy> getEnemyIndex() {
+        return enemyIndex;
     }
 
     public Array<Trap> getTraps() {
@@ -340,34 +462,101 @@ public Array<Trap> getTraps() {
 
     public void addTrap(Trap trap) {
         traps.add(trap);
+        trapIndex.insert(trap);
     }
 
     public void removeTrap(Trap trap) {
         traps.removeValue(trap, false);
+        trapIndex.remove(trap);
+    }
+
+    /**
+     * @return the traps by tile
+     */
+    public SpatialIndex<Trap> getTrapIndex() {
+        return trapIndex;
+    }
+
+    /**
+     * @return the entry, the exits and the key by tile, the enemies and traps are in their own indexes
+     */
+    public SpatialIndex<GameObject> getStaticObjectIndex() {
+        return staticObjectIndex;
     }
 
     public Array<GameObject> getGameObjects() {
         return gameObjects;
     }
 
+    /**
+     * Adds a gameObject to the level, the objects that are neither enemies nor traps also to the static object index
+     */
     public void addGameObject(GameObject gameObject) {
         gameObjects.add(gameObject);
+        if (isStatic(gameObject))
+            staticObjectIndex.insert(gameObject);
     }
 
+    /**
+     * Removes a gameObject from the level and gives its animation back to the AnimationCache
+     */
     public void removeGameObject(GameObject gameObject) {
-        gameObjects.removeValue(gameObject, false);
+        if (gameObjects.removeValue(gameObject, false))
+            gameObject.releaseAnimation();
+        if (isStatic(gameObject))
+            staticObjectIndex.remove(gameObject);
+    }
+
+    private static boolean isStatic(GameObject gameObject) {
+        return !(gameObject instanceof Enemy) && !(gameObject instanceof Trap);
+    }
+
+    /**
+     * Removes every object of the level when it is unloaded, the animations nobody uses any more are dropped
+     */
+    public void clearGameObjects() {
+        for (GameObject gameObject : gameObjects) {
+            gameObject.releaseAnimation();
+        }
+        gameObjects.clear();
+        enemies.clear();
+        traps.clear();
+        enemyIndex.clear();
+        trapIndex.clear();
+        staticObjectIndex.clear();
+        enemySystem.clear();
     }
 
     public SpriteBatch getSpriteBatch() {
         return spriteBatch;
     }
 
+    /**
+     * @return true if the tile (x, y) is blocked, tiles outside of the loaded map count as blocked
+     */
     public boolean hasWallAt(int x, int y) {
-        return hasWall[x][y];
+        if (chunkedWorld != null)
+            return chunkedWorld.isWall(x, y);
+        return wallGrid.isWall(x, y);
     }
 
-    public void setWall(int x, int y) {
-        hasWall[x][y] = true;
+    /**
+     * @return true if the tile (x, y) is an exit of the current level
+     */
+    public boolean hasExitAt(int x, int y) {
+        TileSource tiles = chunkedWorld != null ? chunkedWorld.getTiles() : tileGrid;
+        return tiles != null && tiles.get(x, y) == TileType.EXIT;
+    }
+
+    public WallGrid getWallGrid() {
+        return wallGrid;
+    }
+
+    /**
+     * @return the runs of open tiles of the current level, CorridorIndex.EMPTY_INDEX for paged levels
+     */
+    public CorridorIndex getCorridorIndex() {
+        return corridorIndex;
     }
 
     // GETTER SETTER FOR STATE ENUMs
@@ -391,8 +580,43 @@ public void setGameState(GameState gameState) {
         this.gameState = gameState;
     }
 
-    public Map<int[], Integer> getCoordinatesMap() {
-        return coordinatesMap;
+    public TileGrid getTileGrid() {
+        return tileGrid;
+    }
+
+    /**
+     * @return the level being played, with its MazeAnalysis, or null before the first level was loaded
+     */
+    public LoadedLevel getCurrentLevel() {
+        return currentLevel;
+    }
+
+    /**
+     * Makes a loaded level the current one
+     */
+    public void setLevel(LoadedLevel level) {
+        this.currentLevel = level;
+        this.tileGrid = level.getTileGrid();
+        this.wallGrid = level.getWallGrid();
+        this.corridorIndex = level.getCorridorIndex();
+        this.chunkedWorld = level.isPaged() ? new ChunkedWorld(this, level.getTiles(), level.getLandmarks()) : null;
+    }
+
+    /**
+     * Sets the tiles of the current map and allocates an empty wall grid with the same bounds
+     */
+    public void setTileGrid(TileGrid tileGrid) {
+        this.tileGrid = tileGrid;
+        this.wallGrid = tileGrid.isEmpty() ? WallGrid.EMPTY_GRID : new WallGrid(tileGrid.getWidth(), tileGrid.getHeight());
+        this.corridorIndex = CorridorIndex.EMPTY_INDEX;
+        this.chunkedWorld = null;
+    }
+
+    /**
+     * @return the paged world of the current level, or null if the level is fully loaded in the tile grid
+     */
+    public ChunkedWorld getChunkedWorld() {
+        return chunkedWorld;
     }
 
     public MapLoader getMapLoader() {
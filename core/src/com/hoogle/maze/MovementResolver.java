@@ -0,0 +1,101 @@
+package com.hoogle.maze;
+
+import static com.hoogle.maze.MapLoader.Cell_Size;
+
+/**
+ * Moves an axis aligned box through the tile grid without letting it enter blocked tiles. A move is swept one axis at
+ * a time, x first: only the columns (or rows) the leading edge of the box enters during the move are tested, in the
+ * order it reaches them, and the box stops against the first blocked one. So a fast box cannot tunnel through a wall,
+ * a diagonal move slides along a wall it hits on one axis, and a move costs (tiles crossed) x (tiles the box spans)
+ * lookups whatever the number of walls in the maze.
+ * Tiles the box already overlaps are not tested, a box placed inside of a blocked tile (the player on the entry, a
+ * wall added by a hot reload) can walk out of it.
+ * Positions and sizes are in pixels; the methods are static and allocate nothing.
+ */
+public final class MovementResolver {
+
+    private MovementResolver() {
+    }
+
+    /**
+     * Sweeps the box (x, y, width, height) by dx along the x axis
+     * @return the x the box can move to, x + dx if nothing blocks it
+     */
+    public static int sweepX(WallQuery walls, int x, int y, int width, int height, int dx) {
+        if (dx == 0)
+            return x;
+
+        int firstRow = Math.floorDiv(y, Cell_Size);
+        int lastRow = Math.floorDiv(y + height - 1, Cell_Size);
+        if (dx > 0) {
+            int right = x + width;
+            int lastColumn = Math.floorDiv(right + dx - 1, Cell_Size);
+            for (int column = Math.floorDiv(right - 1, Cell_Size) + 1; column <= lastColumn; column++) {
+                if (isColumnBlocked(walls, column, firstRow, lastRow))
+                    return column * Cell_Size - width;
+            }
+        } else {
+            int firstColumn = Math.floorDiv(x + dx, Cell_Size);
+            for (int column = Math.floorDiv(x, Cell_Size) - 1; column >= firstColumn; column--) {
+                if (isColumnBlocked(walls, column, firstRow, lastRow))
+                    return (column + 1) * Cell_Size;
+            }
+        }
+        return x + dx;
+    }
+
+    /**
+     * Sweeps the box (x, y, width, height) by dy along the y axis
+     * @return the y the box can move to, y + dy if nothing blocks it
+     */
+    public static int sweepY(WallQuery walls, int x, int y, int width, int height, int dy) {
+        if (dy == 0)
+            return y;
+
+        int firstColumn = Math.floorDiv(x, Cell_Size);
+        int lastColumn = Math.floorDiv(x + width - 1, Cell_Size);
+        if (dy > 0) {
+            int top = y + height;
+            int lastRow = Math.floorDiv(top + dy - 1, Cell_Size);
+            for (int row = Math.floorDiv(top - 1, Cell_Size) + 1; row <= lastRow; row++) {
+                if (isRowBlocked(walls, row, firstColumn, lastColumn))
+                    return row * Cell_Size - height;
+            }
+        } else {
+            int firstRow = Math.floorDiv(y + dy, Cell_Size);
+            for (int row = Math.floorDiv(y, Cell_Size) - 1; row >= firstRow; row--) {
+                if (isRowBlocked(walls, row, firstColumn, lastColumn))
+                    return (row + 1) * Cell_Size;
+            }
+        }
+        return y + dy;
+    }
+
+    /**
+     * @return true if the box (x, y, width, height) overlaps no blocked tile
+     */
+    public static boolean isFree(WallQuery walls, int x, int y, int width, int height) {
+        int lastRow = Math.floorDiv(y + height - 1, Cell_Size);
+        for (int row = Math.floorDiv(y, Cell_Size); row <= lastRow; row++) {
+            if (isRowBlocked(walls, row, Math.floorDiv(x, Cell_Size), Math.floorDiv(x + width - 1, Cell_Size)))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isColumnBlocked(WallQuery walls, int column, int firstRow, int lastRow) {
+        for (int row = firstRow; row <= lastRow; row++) {
+            if (walls.hasWallAt(column, row))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isRowBlocked(WallQuery walls, int row, int firstColumn, int lastColumn) {
+        for (int column = firstColumn; column <= lastColumn; column++) {
+            if (walls.hasWallAt(column, row))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,232 @@
+package com.hoogle.maze;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.hoogle.maze.models.Enemy;
+import com.hoogle.maze.models.EnemySystem;
+import com.hoogle.maze.models.Trap;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the per tick loops over the enemies and traps of a level, moving the enemies, respawning them and reactivating
+ * the traps, in slices of SLICE_SIZE objects on the calling thread and worker threads that are parked between ticks,
+ * or on the calling thread alone with one thread or less than two slices.
+ * The result is the same as the sequential loops, bit for bit: the slices of the moves write disjoint slots, and the
+ * respawns and reactivations are only looked for in parallel. The ones found are applied on the calling thread in
+ * the order of the sequential loop, so the cooldowns, the logs and everything the collision pass sees next are
+ * identical.
+ * The threads claim the slices from a shared counter and the last worker done unparks the calling thread. The slices
+ * and the threads are created once and reused, a tick allocates nothing.
+ */
+public class ParallelUpdater {
+
+    /**
+     * Number of threads updating the enemies and traps (-Dmaze.updateThreads), 1 updates them on the render thread,
+     * 0 uses one thread per core
+     */
+    public static final int THREADS = Integer.getInteger("maze.updateThreads", 1);
+    /**
+     * Objects per slice (-Dmaze.updateSlice), a slice is the unit of work of a thread
+     */
+    public static final int SLICE_SIZE = Integer.getInteger("maze.updateSlice", 16384);
+
+    private enum Phase {
+        MOVE_ENEMIES,
+        FIND_RESPAWNS,
+        FIND_REACTIVATIONS
+    }
+
+    private final Thread[] workers;
+    private final int sliceSize;
+    private final AtomicInteger nextSlice = new AtomicInteger();
+    private final AtomicInteger runningWorkers = new AtomicInteger();
+    // incremented by the calling thread to start a phase on the workers
+    private volatile int generation;
+    private volatile boolean disposed;
+    private volatile Thread caller;
+    private Slice[] slices = new Slice[0];
+    private int sliceCount;
+    private Phase phase;
+    private EnemySystem enemySystem;
+    private Array<Trap> traps;
+
+    public ParallelUpdater() {
+        this(THREADS, SLICE_SIZE);
+    }
+
+    /**
+     * @param threads number of threads, 1 for the sequential loops, 0 for one per core
+     * @param sliceSize objects per slice
+     */
+    public ParallelUpdater(int threads, int sliceSize) {
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.sliceSize = sliceSize;
+        // the calling thread is one of the threads
+        this.workers = new Thread[parallelism > 1 ? parallelism - 1 : 0];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(this::work, "maze-update-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Moves every alive enemy one step, like EnemySystem.update
+     */
+    public void moveEnemies(EnemySystem enemySystem) {
+        if (!runParallel(Phase.MOVE_ENEMIES, enemySystem, null, enemySystem.size()))
+            enemySystem.update();
+    }
+
+    /**
+     * Respawns the dead enemies whose cooldown is over, like EnemySystem.respawn
+     */
+    public void respawnEnemies(EnemySystem enemySystem) {
+        if (enemySystem.getDeadCount() == 0)
+            return;
+        if (!runParallel(Phase.FIND_RESPAWNS, enemySystem, null, enemySystem.size())) {
+            enemySystem.respawn();
+            return;
+        }
+
+        for (int i = 0; i < sliceCount; i++) {
+            IntArray due = slices[i].found;
+            for (int j = 0; j < due.size; j++) {
+                Enemy enemy = enemySystem.getEnemy(due.get(j));
+                if (enemy != null)
+                    enemy.tryRespawn();
+            }
+        }
+    }
+
+    /**
+     * Reactivates the traps whose cooldown is over, in the order of the array
+     */
+    public void reactivateTraps(Array<Trap> traps) {
+        if (!runParallel(Phase.FIND_REACTIVATIONS, null, traps, traps.size)) {
+            for (int i = 0; i < traps.size; i++) {
+                traps.get(i).tryReactivate();
+            }
+            return;
+        }
+
+        for (int i = 0; i < sliceCount; i++) {
+            IntArray due = slices[i].found;
+            for (int j = 0; j < due.size; j++) {
+                traps.get(due.get(j)).tryReactivate();
+            }
+        }
+    }
+
+    /**
+     * Runs a phase over count objects in slices on the calling thread and the workers and waits for it
+     * @return false if the phase has to run on the calling thread instead
+     */
+    private boolean runParallel(Phase phase, EnemySystem enemySystem, Array<Trap> traps, int count) {
+        if (workers.length == 0 || count < 2 * sliceSize)
+            return false;
+
+        this.phase = phase;
+        this.enemySystem = enemySystem;
+        this.traps = traps;
+        sliceCount = (count + sliceSize - 1) / sliceSize;
+        if (slices.length < sliceCount) {
+            Slice[] grown = new Slice[sliceCount];
+            System.arraycopy(slices, 0, grown, 0, slices.length);
+            for (int i = slices.length; i < sliceCount; i++) {
+                grown[i] = new Slice();
+            }
+            slices = grown;
+        }
+        for (int i = 0; i < sliceCount; i++) {
+            Slice slice = slices[i];
+            slice.from = i * sliceSize;
+            slice.to = Math.min(count, slice.from + sliceSize);
+            slice.found.clear();
+        }
+        caller = Thread.currentThread();
+        runningWorkers.set(workers.length);
+        nextSlice.set(0);
+        generation++;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        runSlices();
+        // every worker takes part in every phase, so none is left claiming slices when the next phase starts
+        while (runningWorkers.get() > 0) {
+            LockSupport.park(this);
+        }
+        this.enemySystem = null;
+        this.traps = null;
+        return true;
+    }
+
+    /**
+     * Runs the slices of the current phase until none is left
+     */
+    private void runSlices() {
+        int slice;
+        while ((slice = nextSlice.getAndIncrement()) < sliceCount) {
+            slices[slice].run();
+        }
+    }
+
+    /**
+     * Loop of a worker thread, parked until the next phase starts
+     */
+    private void work() {
+        // not the current generation, a phase may already have started when the thread gets to run
+        int done = 0;
+        while (!disposed) {
+            if (generation == done) {
+                LockSupport.park(this);
+                continue;
+            }
+            done = generation;
+            runSlices();
+            if (runningWorkers.decrementAndGet() == 0)
+                LockSupport.unpark(caller);
+        }
+    }
+
+    /**
+     * Shuts the threads down
+     */
+    public void dispose() {
+        disposed = true;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    //Getters
+
+    /**
+     * @return the number of threads, 1 when the loops run on the calling thread
+     */
+    public int getParallelism() {
+        return workers.length + 1;
+    }
+
+    private class Slice {
+        private int from;
+        private int to;
+        // slots of the enemies or indexes of the traps found by the FIND phases, in order
+        private final IntArray found = new IntArray();
+
+        void run() {
+            switch (phase) {
+                case MOVE_ENEMIES -> enemySystem.update(from, to);
+                case FIND_RESPAWNS -> enemySystem.findRespawns(from, to, found);
+                case FIND_REACTIVATIONS -> {
+                    for (int i = from; i < to; i++) {
+                        if (traps.get(i).canReactivate())
+                            found.add(i);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.hoogle.maze;
+
+/**
+ * Counters of what the last frame drew and what it culled because it was outside of the camera view, and how many
+ * render calls the SpriteBatch needed for it. The game objects are looked up in the spatial index cells around the
+ * view, so the culled objects are only the ones of those cells, not every object of the level. With all sprites in one atlas the batch only flushes when the HUD
+ * changes the projection and at the end of the frame.
+ * Printed once per second when the game runs with -Dmaze.renderStats=true.
+ */
+public class RenderStats {
+
+    public static final boolean LOGGING_ENABLED = Boolean.getBoolean("maze.renderStats");
+
+    private int wallsDrawn;
+    private int wallsCulled;
+    private int wallRenderCalls;
+    private int objectsDrawn;
+    private int objectsCulled;
+    private int batchRenderCalls;
+
+    /**
+     * Clears the counters at the start of a frame
+     */
+    public void reset() {
+        wallsDrawn = 0;
+        wallsCulled = 0;
+        wallRenderCalls = 0;
+        objectsDrawn = 0;
+        objectsCulled = 0;
+        batchRenderCalls = 0;
+    }
+
+    public void addWalls(int drawn, int culled, int renderCalls) {
+        wallsDrawn += drawn;
+        wallsCulled += culled;
+        wallRenderCalls += renderCalls;
+    }
+
+    public void addObject(boolean drawn) {
+        if (drawn)
+            objectsDrawn++;
+        else
+            objectsCulled++;
+    }
+
+    /**
+     * @param renderCalls SpriteBatch.renderCalls after the batch of the frame ended
+     */
+    public void addBatchRenderCalls(int renderCalls) {
+        batchRenderCalls += renderCalls;
+    }
+
+    @Override
+    public String toString() {
+        return "walls drawn " + wallsDrawn + ", culled " + wallsCulled + " (" + wallRenderCalls + " render calls), "
+                + "objects drawn " + objectsDrawn + ", culled " + objectsCulled + " near the view"
+                + " (" + batchRenderCalls + " sprite batch render calls)";
+    }
+
+    //Getters
+
+    public int getWallsDrawn() {
+        return wallsDrawn;
+    }
+
+    public int getWallsCulled() {
+        return wallsCulled;
+    }
+
+    public int getWallRenderCalls() {
+        return wallRenderCalls;
+    }
+
+    public int getObjectsDrawn() {
+        return objectsDrawn;
+    }
+
+    public int getObjectsCulled() {
+        return objectsCulled;
+    }
+
+    public int getBatchRenderCalls() {
+        return batchRenderCalls;
+    }
+}
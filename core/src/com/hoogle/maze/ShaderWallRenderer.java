@@ -0,0 +1,346 @@
+package com.hoogle.maze;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.hoogle.maze.map.TileDiff;
+import com.hoogle.maze.map.TileSource;
+import com.hoogle.maze.map.TileType;
+
+import java.nio.ByteBuffer;
+
+import static com.hoogle.maze.MapLoader.Cell_Size;
+
+/**
+ * Draws the walls with one quad over the visible part of the maze. The tiles around the view are uploaded as an
+ * index texture, one byte per tile (1 for a wall, 0 for nothing), and the fragment shader looks up the tile of each
+ * pixel in it and takes the color from the wall sprite in the atlas. The vertex data is 4 vertices whatever the zoom,
+ * only the index texture grows with the visible area.
+ * The index texture covers a square window of tiles around the view. It is filled again when the view leaves the
+ * window or the tiles change, not every frame. Views wider than MAX_WINDOW_SIZE tiles only show the walls of the
+ * window in their middle, and the window only moves once the middle of the view got within an eighth of the window
+ * of its border.
+ * A summed-area table of the walls of the window is filled with it, so the walls inside the view are counted for
+ * the RenderStats without going through the tiles every frame.
+ * The quad and the index window are built by static methods without GL, so they can be checked headless.
+ */
+public class ShaderWallRenderer implements WallRenderer {
+
+    /**
+     * Smallest and largest side of the index window in tiles, the window is a power of two
+     */
+    public static final int MIN_WINDOW_SIZE = 128;
+    public static final int MAX_WINDOW_SIZE = 2048;
+    /**
+     * Index of a wall in the index texture, empty tiles are 0
+     */
+    public static final byte WALL_INDEX = 1;
+
+    // tiles kept around the view in the window, so small camera moves do not refill it
+    private static final int WINDOW_MARGIN = 16;
+
+    private static final String VERTEX_SHADER = """
+            attribute vec2 a_position;
+            uniform mat4 u_projTrans;
+            uniform vec2 u_windowOrigin;
+            uniform float u_cellSize;
+            varying vec2 v_tile;
+
+            void main() {
+                // tile coordinates relative to the index window, small numbers even on huge mazes
+                v_tile = a_position / u_cellSize - u_windowOrigin;
+                gl_Position = u_projTrans * vec4(a_position, 0.0, 1.0);
+            }
+            """;
+
+    private static final String FRAGMENT_SHADER = """
+            #ifdef GL_ES
+            precision highp float;
+            #endif
+            uniform sampler2D u_indices;
+            uniform sampler2D u_atlas;
+            uniform float u_windowSize;
+            // u, v, u2, v2 of the wall sprite in the atlas, shrunk by half a texel against bleeding
+            uniform vec4 u_wallRegion;
+            varying vec2 v_tile;
+
+            void main() {
+                vec2 tile = floor(v_tile);
+                if (tile.x < 0.0 || tile.y < 0.0 || tile.x >= u_windowSize || tile.y >= u_windowSize)
+                    discard;
+                float index = texture2D(u_indices, (tile + 0.5) / u_windowSize).a * 255.0;
+                if (index < 0.5)
+                    discard;
+                // the v of a region grows downwards, the world y upwards
+                vec2 inTile = v_tile - tile;
+                vec2 uv = vec2(mix(u_wallRegion.x, u_wallRegion.z, inTile.x), mix(u_wallRegion.w, u_wallRegion.y, inTile.y));
+                gl_FragColor = texture2D(u_atlas, uv);
+            }
+            """;
+
+    private final TextureRegion wallRegion;
+    private final ShaderProgram shader;
+    private final Mesh mesh;
+    private final float[] vertices = new float[8];
+    // minX, minY, maxX, maxY of the tiles in view and of the ones the window has to cover in this frame
+    private final int[] viewTiles = new int[4];
+    private final int[] coveredTiles = new int[4];
+    private Pixmap indexPixmap;
+    private Texture indexTexture;
+    private TileSource tiles;
+    private long wallCount;
+    // window of tiles in the index texture
+    private int windowX;
+    private int windowY;
+    private int windowSize;
+    // walls of the window from its origin up to each tile, see fillIndices
+    private int[] wallSums;
+    private boolean windowValid;
+
+    /**
+     * @param wallRegion region drawn for every wall, its texture is sampled by the shader
+     */
+    public ShaderWallRenderer(TextureRegion wallRegion) {
+        this.wallRegion = wallRegion;
+
+        shader = new ShaderProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+        if (!shader.isCompiled())
+            throw new GdxRuntimeException("Cannot compile the wall shader: " + shader.getLog());
+
+        mesh = new Mesh(false, 4, 6, new VertexAttribute(VertexAttributes.Usage.Position, 2, "a_position"));
+        mesh.setIndices(new short[]{0, 1, 2, 2, 3, 0});
+    }
+
+    @Override
+    public void setTiles(TileSource tiles, long wallCount) {
+        this.tiles = tiles;
+        this.wallCount = wallCount;
+        windowValid = false;
+    }
+
+    /**
+     * Switches to the edited tiles of the same level, the window is filled again if a wall inside of it changed
+     */
+    @Override
+    public void changeTiles(TileSource tiles, TileDiff diff) {
+        this.tiles = tiles;
+        for (int change = 0; change < diff.size(); change++) {
+            boolean wasWall = diff.getOldType(change) == TileType.WALL;
+            boolean isWall = diff.getNewType(change) == TileType.WALL;
+            if (wasWall != isWall) {
+                wallCount += isWall ? 1 : -1;
+                int x = diff.getX(change) - windowX;
+                int y = diff.getY(change) - windowY;
+                if (x >= 0 && y >= 0 && x < windowSize && y < windowSize)
+                    windowValid = false;
+            }
+        }
+    }
+
+    @Override
+    public void draw(OrthographicCamera camera, Rectangle viewBounds, RenderStats renderStats) {
+        if (tiles == null || !buildQuad(viewBounds, tiles.getWidth(), tiles.getHeight(), Cell_Size, vertices))
+            return;
+
+        updateWindow(vertices);
+
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        indexTexture.bind(1);
+        wallRegion.getTexture().bind(0);
+
+        float halfTexelU = 0.5f / wallRegion.getTexture().getWidth();
+        float halfTexelV = 0.5f / wallRegion.getTexture().getHeight();
+        shader.bind();
+        shader.setUniformMatrix("u_projTrans", camera.combined);
+        shader.setUniformf("u_windowOrigin", windowX, windowY);
+        shader.setUniformf("u_cellSize", Cell_Size);
+        shader.setUniformf("u_windowSize", windowSize);
+        shader.setUniformf("u_wallRegion", wallRegion.getU() + halfTexelU, wallRegion.getV() + halfTexelV,
+                wallRegion.getU2() - halfTexelU, wallRegion.getV2() - halfTexelV);
+        shader.setUniformi("u_atlas", 0);
+        shader.setUniformi("u_indices", 1);
+
+        mesh.setVertices(vertices);
+        mesh.render(shader, GL20.GL_TRIANGLES);
+        Gdx.gl.glDisable(GL20.GL_BLEND);
+
+        int wallsDrawn = countWalls(wallSums, windowSize, viewTiles[0] - windowX, viewTiles[1] - windowY,
+                viewTiles[2] - windowX, viewTiles[3] - windowY);
+        renderStats.addWalls(wallsDrawn, (int) (wallCount - wallsDrawn), 1);
+    }
+
+    /**
+     * Fills the index texture again if the part of the quad it has to cover is not inside of the window any more,
+     * the tiles changed or the quad grew bigger than the window
+     */
+    private void updateWindow(float[] quad) {
+        viewTiles[0] = (int) Math.floor(quad[0] / Cell_Size);
+        viewTiles[1] = (int) Math.floor(quad[1] / Cell_Size);
+        viewTiles[2] = (int) Math.ceil(quad[4] / Cell_Size);
+        viewTiles[3] = (int) Math.ceil(quad[5] / Cell_Size);
+        int size = windowSizeFor(Math.max(viewTiles[2] - viewTiles[0], viewTiles[3] - viewTiles[1]));
+
+        System.arraycopy(viewTiles, 0, coveredTiles, 0, 4);
+        clampToWindow(coveredTiles, size);
+        int minX = coveredTiles[0];
+        int minY = coveredTiles[1];
+        int maxX = coveredTiles[2];
+        int maxY = coveredTiles[3];
+
+        boolean inside = minX >= windowX && minY >= windowY && maxX <= windowX + windowSize && maxY <= windowY + windowSize;
+        if (windowValid && inside && size <= windowSize)
+            return;
+
+        if (indexTexture == null || size != windowSize) {
+            if (indexTexture != null) {
+                indexTexture.dispose();
+                indexPixmap.dispose();
+            }
+            windowSize = size;
+            indexPixmap = new Pixmap(windowSize, windowSize, Pixmap.Format.Alpha);
+            indexTexture = new Texture(indexPixmap);
+            indexTexture.setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+            wallSums = new int[(windowSize + 1) * (windowSize + 1)];
+        }
+
+        // centered on the quad, so the view can move half the margin in any direction before the next fill
+        windowX = Math.floorDiv(minX + maxX - windowSize, 2);
+        windowY = Math.floorDiv(minY + maxY - windowSize, 2);
+        fillIndices(tiles, windowX, windowY, windowSize, indexPixmap.getPixels(), wallSums);
+        indexTexture.draw(indexPixmap, 0, 0);
+        windowValid = true;
+    }
+
+    /**
+     * Shrinks the tiles of a view to the part a window of windowSize tiles has to cover: all of them, or the middle of
+     * the view when it is wider than the window with a margin of an eighth of the window on both sides
+     * @param bounds minX, minY, maxX, maxY of the view in tiles, changed in place
+     */
+    public static void clampToWindow(int[] bounds, int windowSize) {
+        int covered = windowSize - 2 * Math.max(WINDOW_MARGIN, windowSize / 8);
+        for (int axis = 0; axis < 2; axis++) {
+            int min = bounds[axis];
+            int max = bounds[axis + 2];
+            if (max - min > windowSize - 2 * WINDOW_MARGIN) {
+                bounds[axis] = Math.floorDiv(min + max - covered, 2);
+                bounds[axis + 2] = bounds[axis] + covered;
+            }
+        }
+    }
+
+    /**
+     * Sets the corners of the quad covering the part of the maze inside of the view: x, y of the bottom left,
+     * bottom right, top right and top left corner, in pixels.
+     * @param vertices receives the 8 coordinates
+     * @return false if no part of the maze is in view
+     */
+    public static boolean buildQuad(Rectangle viewBounds, int mazeWidth, int mazeHeight, int cellSize, float[] vertices) {
+        float minX = Math.max(viewBounds.x, 0);
+        float minY = Math.max(viewBounds.y, 0);
+        float maxX = Math.min(viewBounds.x + viewBounds.width, (float) mazeWidth * cellSize);
+        float maxY = Math.min(viewBounds.y + viewBounds.height, (float) mazeHeight * cellSize);
+        if (minX >= maxX || minY >= maxY)
+            return false;
+
+        vertices[0] = minX;
+        vertices[1] = minY;
+        vertices[2] = maxX;
+        vertices[3] = minY;
+        vertices[4] = maxX;
+        vertices[5] = maxY;
+        vertices[6] = minX;
+        vertices[7] = maxY;
+        return true;
+    }
+
+    /**
+     * @param visibleTiles number of tiles the view shows along its longer side
+     * @return the side of the window for that view, a power of two between MIN_WINDOW_SIZE and MAX_WINDOW_SIZE
+     */
+    public static int windowSizeFor(int visibleTiles) {
+        return MathUtils.clamp(MathUtils.nextPowerOfTwo(visibleTiles + 2 * WINDOW_MARGIN), MIN_WINDOW_SIZE, MAX_WINDOW_SIZE);
+    }
+
+    /**
+     * Writes the index of every tile of a size x size window, row by row from the bottom, WALL_INDEX for walls and 0
+     * for everything else, including the tiles outside of the maze
+     * @param indices receives size * size bytes from position 0
+     * @param wallSums receives the summed-area table of the walls: (size + 1) * (size + 1) entries, entry
+     *                 (y + 1) * (size + 1) + x + 1 is the number of walls in the tiles (0, 0) to (x, y) of the window
+     * @return the number of walls in the window
+     */
+    public static int fillIndices(TileSource tiles, int windowX, int windowY, int size, ByteBuffer indices, int[] wallSums) {
+        int stride = size + 1;
+        for (int y = 0; y < size; y++) {
+            int tileY = windowY + y;
+            int rowWalls = 0;
+            for (int x = 0; x < size; x++) {
+                int tileX = windowX + x;
+                boolean wall = tileX >= 0 && tileY >= 0 && tileX < tiles.getWidth() && tileY < tiles.getHeight()
+                        && tiles.get(tileX, tileY) == TileType.WALL;
+                indices.put(y * size + x, wall ? WALL_INDEX : 0);
+                if (wall)
+                    rowWalls++;
+                wallSums[(y + 1) * stride + x + 1] = wallSums[y * stride + x + 1] + rowWalls;
+            }
+        }
+        return wallSums[size * stride + size];
+    }
+
+    /**
+     * Counts the walls of a rectangle of the window in its summed-area table, the parts outside of the window are
+     * left out
+     * @param fromX first tile column, relative to the window
+     * @param toX tile column after the last one
+     * @return the number of walls in the rectangle
+     */
+    public static int countWalls(int[] wallSums, int size, int fromX, int fromY, int toX, int toY) {
+        fromX = MathUtils.clamp(fromX, 0, size);
+        fromY = MathUtils.clamp(fromY, 0, size);
+        toX = MathUtils.clamp(toX, fromX, size);
+        toY = MathUtils.clamp(toY, fromY, size);
+        int stride = size + 1;
+        return wallSums[toY * stride + toX] - wallSums[fromY * stride + toX]
+                - wallSums[toY * stride + fromX] + wallSums[fromY * stride + fromX];
+    }
+
+    @Override
+    public void dispose() {
+        shader.dispose();
+        mesh.dispose();
+        if (indexTexture != null) {
+            indexTexture.dispose();
+            indexPixmap.dispose();
+        }
+    }
+
+    //Getters
+
+    @Override
+    public TileSource getTiles() {
+        return tiles;
+    }
+
+    public int getWindowX() {
+        return windowX;
+    }
+
+    public int getWindowY() {
+        return windowY;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+}
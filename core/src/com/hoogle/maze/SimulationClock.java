@@ -0,0 +1,37 @@
+package com.hoogle.maze;
+
+/**
+ * Time of the game simulation, advanced by every simulation tick instead of the wall clock. Cooldowns measured with
+ * it take the same number of ticks at any frame rate and any simulation speed, and do not run on while the game
+ * is paused.
+ * Used like TimeUtils.millis and TimeUtils.timeSinceMillis.
+ */
+public final class SimulationClock {
+
+    private static long nanos;
+
+    private SimulationClock() {
+    }
+
+    /**
+     * Advances the clock by one tick
+     * @param seconds duration of the tick
+     */
+    public static void advance(float seconds) {
+        nanos += (long) (seconds * 1_000_000_000L);
+    }
+
+    /**
+     * @return the simulated time in milliseconds
+     */
+    public static long millis() {
+        return nanos / 1_000_000L;
+    }
+
+    /**
+     * @return the simulated milliseconds since a time returned by millis
+     */
+    public static long timeSinceMillis(long previousMillis) {
+        return millis() - previousMillis;
+    }
+}
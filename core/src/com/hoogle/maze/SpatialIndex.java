@@ -0,0 +1,162 @@
+package com.hoogle.maze;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+import com.hoogle.maze.models.GameObject;
+
+import static com.hoogle.maze.MapLoader.Cell_Size;
+
+/**
+ * Uniform grid of game objects keyed by their tile, the same tile checkCollision compares. A cell covers a square of
+ * cellTiles x cellTiles tiles. A collision query only looks at the objects in the cells around a tile, so its cost
+ * depends on how crowded that part of the maze is and not on the number of objects in the level.
+ * Static objects are inserted once. Moving objects are put into another cell by update, which only compares the
+ * cell of their tile with the cell the object keeps (GameObject.getSpatialCell) while they stay in the same cell.
+ * Bigger cells mean fewer moves between cells and more objects per query. An object can be in one index at a time.
+ * The cells are kept in a hash map, so paged mazes larger than memory only pay for the cells with objects. A cell a
+ * moving object leaves stays in the map, objects moving back and forth do not allocate.
+ * @param <T> type of the objects in the index
+ */
+public class SpatialIndex<T extends GameObject> {
+
+    /**
+     * Side of a cell in tiles of the indexes of the game, an enemy changes its cell every 64 steps at most
+     */
+    public static final int DEFAULT_CELL_TILES = 4;
+
+    private final int cellTiles;
+    private final int cellPixels;
+    private final LongMap<Array<T>> cells = new LongMap<>();
+    private int size;
+
+    public SpatialIndex() {
+        this(DEFAULT_CELL_TILES);
+    }
+
+    /**
+     * @param cellTiles side of a cell in tiles
+     */
+    public SpatialIndex(int cellTiles) {
+        this.cellTiles = cellTiles;
+        this.cellPixels = cellTiles * Cell_Size;
+    }
+
+    /**
+     * Adds an object in the cell of its current tile
+     */
+    public void insert(T gameObject) {
+        long key = cellKey(gameObject);
+        gameObject.setSpatialCell(key);
+        cellFor(key).add(gameObject);
+        size++;
+    }
+
+    /**
+     * Removes an object, objects that are not in the index are ignored. The cell is dropped when it gets empty, so
+     * the cells of paged out chunks do not pile up
+     */
+    public void remove(T gameObject) {
+        long key = gameObject.getSpatialCell();
+        Array<T> cell = key == GameObject.NO_SPATIAL_CELL ? null : cells.get(key);
+        if (cell == null || !cell.removeValue(gameObject, true))
+            return;
+        gameObject.setSpatialCell(GameObject.NO_SPATIAL_CELL);
+        size--;
+        if (cell.isEmpty())
+            cells.remove(key);
+    }
+
+    /**
+     * Puts a moving object into the cell of its current tile
+     * @return true if the object changed its cell
+     */
+    public boolean update(T gameObject) {
+        long key = gameObject.getSpatialCell();
+        long newKey = cellKey(gameObject);
+        if (newKey == key || key == GameObject.NO_SPATIAL_CELL)
+            return false;
+
+        cells.get(key).removeValue(gameObject, true);
+        cellFor(newKey).add(gameObject);
+        gameObject.setSpatialCell(newKey);
+        return true;
+    }
+
+    /**
+     * Adds the objects of the cells within radius tiles of (tileX, tileY), in both directions, to result. These are
+     * all objects within the radius and some more of the same cells, the caller checks the exact distance.
+     */
+    public void query(int tileX, int tileY, int radius, Array<? super T> result) {
+        query(tileX - radius, tileY - radius, tileX + radius, tileY + radius, result);
+    }
+
+    /**
+     * Adds the objects of the cells that overlap the tiles from (minTileX, minTileY) to (maxTileX, maxTileY),
+     * inclusive, to result. The caller checks the exact bounds.
+     */
+    public void query(int minTileX, int minTileY, int maxTileX, int maxTileY, Array<? super T> result) {
+        int maxCellX = Math.floorDiv(maxTileX, cellTiles);
+        int maxCellY = Math.floorDiv(maxTileY, cellTiles);
+        for (int cellY = Math.floorDiv(minTileY, cellTiles); cellY <= maxCellY; cellY++) {
+            for (int cellX = Math.floorDiv(minTileX, cellTiles); cellX <= maxCellX; cellX++) {
+                Array<T> cell = cells.get(key(cellX, cellY));
+                if (cell != null)
+                    result.addAll(cell);
+            }
+        }
+    }
+
+    /**
+     * Removes every object
+     */
+    public void clear() {
+        for (Array<T> cell : cells.values()) {
+            for (int i = 0; i < cell.size; i++) {
+                cell.get(i).setSpatialCell(GameObject.NO_SPATIAL_CELL);
+            }
+        }
+        cells.clear();
+        size = 0;
+    }
+
+    private Array<T> cellFor(long key) {
+        Array<T> cell = cells.get(key);
+        if (cell == null) {
+            cell = new Array<>(false, 4);
+            cells.put(key, cell);
+        }
+        return cell;
+    }
+
+    /**
+     * @return the tile of a gameObject, like getCurrentFrameX, also for negative coordinates
+     */
+    public static int tileX(GameObject gameObject) {
+        return Math.floorDiv(gameObject.getInitialX(), Cell_Size);
+    }
+
+    public static int tileY(GameObject gameObject) {
+        return Math.floorDiv(gameObject.getInitialY(), Cell_Size);
+    }
+
+    private long cellKey(GameObject gameObject) {
+        return key(Math.floorDiv(gameObject.getInitialX(), cellPixels), Math.floorDiv(gameObject.getInitialY(), cellPixels));
+    }
+
+    private static long key(int cellX, int cellY) {
+        return (long) cellX << 32 | (cellY & 0xffffffffL);
+    }
+
+    //Getters
+
+    /**
+     * @return the number of objects in the index
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getCellTiles() {
+        return cellTiles;
+    }
+}
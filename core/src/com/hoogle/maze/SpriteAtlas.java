@@ -0,0 +1,110 @@
+package com.hoogle.maze;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * All sprites of the game world and the HUD, packed into one texture by the SpriteAtlasPacker tool
+ * (gradle desktop:packSprites). Everything drawn with the SpriteBatch during a frame comes from the same texture,
+ * so the batch is not flushed by texture switches.
+ * The atlas is loaded through the AssetManager on first use and shared by every object, the animations of the game
+ * objects are shared through the AnimationCache.
+ */
+public class SpriteAtlas {
+
+    public static final String ATLAS_FILE = "sprites.atlas";
+    /**
+     * Region of the default libGDX font, packed into the atlas so the HUD text does not need its own texture
+     */
+    public static final String FONT_REGION = "lsans-15";
+    public static final String FONT_FILE = "com/badlogic/gdx/utils/lsans-15.fnt";
+    public static final String FONT_IMAGE = "com/badlogic/gdx/utils/lsans-15.png";
+
+    private static AssetManager assetManager;
+    private static AnimationCache animationCache;
+    // the atlas the static regions were taken from, this class holds one reference to it in the AssetManager
+    private static TextureAtlas atlas;
+
+    private SpriteAtlas() {
+    }
+
+    public static AssetManager getAssetManager() {
+        if (assetManager == null)
+            assetManager = new AssetManager();
+        return assetManager;
+    }
+
+    /**
+     * @return the atlas, loaded once and kept until the game is disposed, for the regions of the tiles and the HUD
+     */
+    public static TextureAtlas getAtlas() {
+        if (atlas == null) {
+            AssetManager manager = getAssetManager();
+            manager.load(ATLAS_FILE, TextureAtlas.class);
+            manager.finishLoading();
+            atlas = manager.get(ATLAS_FILE, TextureAtlas.class);
+        }
+        return atlas;
+    }
+
+    public static AnimationCache getAnimationCache() {
+        if (animationCache == null)
+            animationCache = new AnimationCache(getAssetManager(), ATLAS_FILE);
+        return animationCache;
+    }
+
+    /**
+     * @return the region with the given name
+     * @throws GdxRuntimeException if the atlas has no such region, the atlas then has to be packed again
+     */
+    public static TextureRegion findRegion(String name) {
+        TextureRegion region = getAtlas().findRegion(name);
+        if (region == null)
+            throw new GdxRuntimeException("Region " + name + " is missing in " + ATLAS_FILE);
+        return region;
+    }
+
+    /**
+     * @return the frame with the given index of an animation
+     */
+    public static TextureRegion findRegion(String name, int index) {
+        TextureRegion region = getAtlas().findRegion(name, index);
+        if (region == null)
+            throw new GdxRuntimeException("Region " + name + "_" + index + " is missing in " + ATLAS_FILE);
+        return region;
+    }
+
+    /**
+     * @return the frames name_0, name_1, ... of an animation in order
+     */
+    public static Array<TextureAtlas.AtlasRegion> findRegions(String name) {
+        Array<TextureAtlas.AtlasRegion> regions = getAtlas().findRegions(name);
+        if (regions.isEmpty())
+            throw new GdxRuntimeException("Animation " + name + " is missing in " + ATLAS_FILE);
+        return regions;
+    }
+
+    /**
+     * @return the default libGDX font, drawn from the atlas texture
+     */
+    public static BitmapFont createFont() {
+        return new BitmapFont(Gdx.files.classpath(FONT_FILE), findRegion(FONT_REGION));
+    }
+
+    public static void dispose() {
+        if (animationCache != null) {
+            animationCache.dispose();
+            animationCache = null;
+        }
+        if (assetManager != null) {
+            assetManager.dispose();
+            assetManager = null;
+            atlas = null;
+        }
+    }
+}
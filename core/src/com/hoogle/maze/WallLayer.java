@@ -0,0 +1,255 @@
+package com.hoogle.maze;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+import com.hoogle.maze.map.TileDiff;
+import com.hoogle.maze.map.TileSource;
+import com.hoogle.maze.map.TileType;
+
+import static com.hoogle.maze.MapLoader.Cell_Size;
+
+/**
+ * Static layer of the walls. Walls never move, so the walls of each CHUNK_SIZE x CHUNK_SIZE chunk are baked into
+ * one SpriteCache cache the first time the chunk is visible and drawn with a single call afterwards.
+ * The SpriteCache holds a fixed number of cache slots, each big enough for a chunk full of walls; when all of them
+ * are in use the least recently drawn chunk gives its slot to the new one. The cost of drawing the walls depends on
+ * the number of visible chunks, not on the size of the maze.
+ * The walls of a chunk are cached row by row, so only the rows that overlap the camera view are drawn.
+ */
+public class WallLayer implements WallRenderer {
+
+    public static final int CHUNK_SIZE = 32;
+    /**
+     * Number of chunks that can be cached at once, at least the number of chunks visible on the screen
+     */
+    public static final int DEFAULT_CACHED_CHUNKS = Integer.getInteger("maze.wallCacheChunks", 24);
+
+    /**
+     * A cache of the SpriteCache and the chunk it currently holds
+     */
+    private static class Slot {
+        private final int cacheId;
+        // index of the first wall of each row of the chunk in the cache, the last entry is the number of walls
+        private final int[] rowStarts = new int[CHUNK_SIZE + 1];
+        private long chunkKey = -1;
+        private long lastDrawn = -1;
+
+        Slot(int cacheId) {
+            this.cacheId = cacheId;
+        }
+    }
+
+    private final SpriteCache spriteCache;
+    private final TextureRegion wallRegion;
+    private final Array<Slot> slots = new Array<>();
+    private final LongMap<Slot> cachedChunks = new LongMap<>();
+    private TileSource tiles;
+    private long wallCount;
+    private long frame;
+    private int visibleChunks;
+    private int renderCalls;
+    // whether the last frame had more visible chunks than slots, logged when it starts
+    private boolean outOfSlots;
+
+    /**
+     * @param wallRegion region drawn for every wall
+     */
+    public WallLayer(TextureRegion wallRegion) {
+        this(wallRegion, DEFAULT_CACHED_CHUNKS);
+    }
+
+    public WallLayer(TextureRegion wallRegion, int cachedChunks) {
+        this.wallRegion = wallRegion;
+
+        int spritesPerChunk = CHUNK_SIZE * CHUNK_SIZE;
+        spriteCache = new SpriteCache(cachedChunks * spritesPerChunk, false);
+
+        // every slot is created full once, so it can be redefined later with any chunk
+        for (int i = 0; i < cachedChunks; i++) {
+            spriteCache.beginCache();
+            for (int sprite = 0; sprite < spritesPerChunk; sprite++) {
+                spriteCache.add(wallRegion, 0, 0);
+            }
+            slots.add(new Slot(spriteCache.endCache()));
+        }
+    }
+
+    @Override
+    public void setTiles(TileSource tiles, long wallCount) {
+        this.tiles = tiles;
+        this.wallCount = wallCount;
+        invalidateAll();
+    }
+
+    /**
+     * Switches to the edited tiles of the same level, only the chunks where walls changed are built again
+     */
+    @Override
+    public void changeTiles(TileSource tiles, TileDiff diff) {
+        this.tiles = tiles;
+        for (int change = 0; change < diff.size(); change++) {
+            boolean wasWall = diff.getOldType(change) == TileType.WALL;
+            boolean isWall = diff.getNewType(change) == TileType.WALL;
+            if (wasWall != isWall) {
+                wallCount += isWall ? 1 : -1;
+                invalidate(diff.getX(change), diff.getY(change));
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the chunk of a tile the next time it is drawn, after the tile changed
+     */
+    public void invalidate(int tileX, int tileY) {
+        Slot slot = cachedChunks.remove(key(Math.floorDiv(tileX, CHUNK_SIZE), Math.floorDiv(tileY, CHUNK_SIZE)));
+        if (slot != null) {
+            slot.chunkKey = -1;
+            slot.lastDrawn = -1;
+        }
+    }
+
+    public void invalidateAll() {
+        cachedChunks.clear();
+        for (Slot slot : slots) {
+            slot.chunkKey = -1;
+            slot.lastDrawn = -1;
+        }
+    }
+
+    /**
+     * Draws the walls of the chunks in the view of the camera. Must be called outside of SpriteBatch.begin and end.
+     */
+    @Override
+    public void draw(OrthographicCamera camera, Rectangle viewBounds, RenderStats renderStats) {
+        visibleChunks = 0;
+        renderCalls = 0;
+        if (tiles == null)
+            return;
+
+        frame++;
+        int minTileY = Math.max(0, (int) Math.floor(viewBounds.y / Cell_Size));
+        int maxTileY = Math.min(tiles.getHeight() - 1, (int) Math.floor((viewBounds.y + viewBounds.height) / Cell_Size));
+        int chunkColumns = (tiles.getWidth() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int minChunkX = Math.max(0, (int) Math.floor(viewBounds.x / (CHUNK_SIZE * Cell_Size)));
+        int maxChunkX = Math.min(chunkColumns - 1, (int) Math.floor((viewBounds.x + viewBounds.width) / (CHUNK_SIZE * Cell_Size)));
+        int minChunkY = Math.floorDiv(minTileY, CHUNK_SIZE);
+        int maxChunkY = Math.floorDiv(maxTileY, CHUNK_SIZE);
+
+        // caches are built before drawing starts, a SpriteCache cannot be redefined while drawing
+        boolean missingSlots = false;
+        for (int chunkY = minChunkY; chunkY <= maxChunkY; chunkY++) {
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                Slot slot = cachedChunks.get(key(chunkX, chunkY));
+                if (slot == null)
+                    slot = cache(chunkX, chunkY);
+                if (slot != null)
+                    slot.lastDrawn = frame;
+                else
+                    missingSlots = true;
+            }
+        }
+        if (missingSlots && !outOfSlots)
+            System.err.println("Not enough wall cache slots for the visible chunks, raise maze.wallCacheChunks");
+        outOfSlots = missingSlots;
+
+        int wallsDrawn = 0;
+        spriteCache.setProjectionMatrix(camera.combined);
+        spriteCache.begin();
+        for (Slot slot : slots) {
+            if (slot.lastDrawn != frame)
+                continue;
+            visibleChunks++;
+
+            // only the rows of the chunk inside the view
+            int chunkTileY = (int) (slot.chunkKey & 0xFFFFFFFFL) * CHUNK_SIZE;
+            int firstRow = Math.max(minTileY - chunkTileY, 0);
+            int lastRow = Math.min(maxTileY - chunkTileY, CHUNK_SIZE - 1);
+            int first = slot.rowStarts[firstRow];
+            int count = slot.rowStarts[lastRow + 1] - first;
+            if (count > 0) {
+                spriteCache.draw(slot.cacheId, first, count);
+                wallsDrawn += count;
+            }
+        }
+        spriteCache.end();
+        renderCalls = spriteCache.renderCalls;
+        renderStats.addWalls(wallsDrawn, (int) (wallCount - wallsDrawn), renderCalls);
+    }
+
+    /**
+     * Bakes the walls of a chunk into the least recently drawn slot
+     * @return the slot, or null if every slot is already drawn in this frame
+     */
+    private Slot cache(int chunkX, int chunkY) {
+        Slot slot = slots.first();
+        for (Slot candidate : slots) {
+            if (candidate.lastDrawn < slot.lastDrawn)
+                slot = candidate;
+        }
+        if (slot.lastDrawn == frame)
+            return null;
+        if (slot.chunkKey != -1)
+            cachedChunks.remove(slot.chunkKey);
+
+        spriteCache.beginCache(slot.cacheId);
+        int walls = 0;
+        int startY = chunkY * CHUNK_SIZE;
+        int endX = Math.min((chunkX + 1) * CHUNK_SIZE, tiles.getWidth());
+        for (int row = 0; row < CHUNK_SIZE; row++) {
+            slot.rowStarts[row] = walls;
+            int tileY = startY + row;
+            if (tileY >= tiles.getHeight())
+                continue;
+            for (int tileX = chunkX * CHUNK_SIZE; tileX < endX; tileX++) {
+                if (tiles.get(tileX, tileY) == TileType.WALL) {
+                    spriteCache.add(wallRegion, tileX * Cell_Size, tileY * Cell_Size);
+                    walls++;
+                }
+            }
+        }
+        slot.rowStarts[CHUNK_SIZE] = walls;
+        spriteCache.endCache();
+
+        slot.chunkKey = key(chunkX, chunkY);
+        cachedChunks.put(slot.chunkKey, slot);
+        return slot;
+    }
+
+    private static long key(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public void dispose() {
+        spriteCache.dispose();
+    }
+
+    //Getters
+
+    /**
+     * @return the number of chunks drawn in the last frame
+     */
+    public int getVisibleChunks() {
+        return visibleChunks;
+    }
+
+    /**
+     * @return the number of render calls of the walls in the last frame
+     */
+    public int getRenderCalls() {
+        return renderCalls;
+    }
+
+    @Override
+    public TileSource getTiles() {
+        return tiles;
+    }
+
+    public int getCachedChunkCount() {
+        return cachedChunks.size;
+    }
+}
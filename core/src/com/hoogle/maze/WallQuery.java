@@ -0,0 +1,12 @@
+package com.hoogle.maze;
+
+/**
+ * Tells which tiles block the way or the view, MazeRunnerGame::hasWallAt for the current level
+ */
+public interface WallQuery {
+
+    /**
+     * @return true if the tile (x, y) is blocked
+     */
+    boolean hasWallAt(int x, int y);
+}
@@ -0,0 +1,22 @@
+package com.hoogle.maze;
+
+/**
+ * How the walls are drawn, chosen with -Dmaze.wallRenderer=spriteCache|shader
+ */
+public enum WallRenderMode {
+    /**
+     * One sprite per wall, cached chunk by chunk in a SpriteCache, see WallLayer
+     */
+    SPRITE_CACHE,
+    /**
+     * One quad over the visible part of the maze, the walls are looked up in a tile index texture by a fragment
+     * shader, see ShaderWallRenderer. The vertex data does not grow with the number of visible walls, for
+     * zoomed out views of large mazes
+     */
+    SHADER;
+
+    public static WallRenderMode fromSystemProperty() {
+        String mode = System.getProperty("maze.wallRenderer", "spriteCache");
+        return mode.equalsIgnoreCase("shader") ? SHADER : SPRITE_CACHE;
+    }
+}
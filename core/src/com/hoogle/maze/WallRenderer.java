@@ -0,0 +1,37 @@
+package com.hoogle.maze;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Disposable;
+import com.hoogle.maze.map.TileDiff;
+import com.hoogle.maze.map.TileSource;
+
+/**
+ * Draws the walls of the level, outside of SpriteBatch.begin and end. MapLoader picks the implementation with
+ * the WallRenderMode.
+ */
+public interface WallRenderer extends Disposable {
+
+    /**
+     * Draws the walls of the tiles of a new level from now on
+     * @param wallCount number of walls of the tiles, counted by the level loader
+     */
+    void setTiles(TileSource tiles, long wallCount);
+
+    /**
+     * Switches to the edited tiles of the same level
+     * @param tiles tiles of the level after the edit
+     * @param diff tiles that changed
+     */
+    void changeTiles(TileSource tiles, TileDiff diff);
+
+    /**
+     * Draws the walls in the view of the camera
+     * @param camera camera the walls are drawn with
+     * @param viewBounds part of the world the camera shows, in pixels
+     * @param renderStats receives the number of drawn and culled walls
+     */
+    void draw(OrthographicCamera camera, Rectangle viewBounds, RenderStats renderStats);
+
+    TileSource getTiles();
+}
@@ -0,0 +1,46 @@
+package com.hoogle.maze;
+
+import com.badlogic.gdx.utils.Array;
+import com.hoogle.maze.models.GameObject;
+
+/**
+ * A CHUNK_SIZE x CHUNK_SIZE block of a paged world, holding the game objects created for it
+ */
+public class WorldChunk {
+
+    private final int chunkX;
+    private final int chunkY;
+    private final Array<GameObject> gameObjects = new Array<>();
+    private long lastUsed;
+
+    public WorldChunk(int chunkX, int chunkY) {
+        this.chunkX = chunkX;
+        this.chunkY = chunkY;
+    }
+
+    public void addGameObject(GameObject gameObject) {
+        gameObjects.add(gameObject);
+    }
+
+    //Getters & Setters
+
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    public int getChunkY() {
+        return chunkY;
+    }
+
+    public Array<GameObject> getGameObjects() {
+        return gameObjects;
+    }
+
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    public void setLastUsed(long lastUsed) {
+        this.lastUsed = lastUsed;
+    }
+}
@@ -0,0 +1,186 @@
+package com.hoogle.maze.map;
+
+import java.util.Arrays;
+
+/**
+ * Runs of open tiles of a maze, built in one pass over its WallGrid: each row is split into horizontal runs between
+ * walls and each column into vertical runs. Every open tile knows its horizontal and its vertical run, and every run
+ * its first and last tile, so the stretch of corridor around a tile, up to the walls on both sides, is two array
+ * lookups instead of a walk tile by tile.
+ * Used for the patrol limits of the enemies; the runs also answer "can (x1, y) see (x2, y)" for straight lines.
+ * Built together with the WallGrid of a level and never modified afterwards, a hot reload loads a new level.
+ */
+public final class CorridorIndex {
+
+    /**
+     * Run of the tiles that block the way and of the tiles outside of the maze
+     */
+    public static final int NO_RUN = -1;
+
+    /**
+     * Index of a maze without walls, for paged levels whose walls are never loaded whole
+     */
+    public static final CorridorIndex EMPTY_INDEX = new CorridorIndex(0, 0, new int[0], new int[0], new int[0],
+            new int[0], new int[0], new int[0], 0);
+
+    private final int width;
+    private final int height;
+    // run of every tile, row by row
+    private final int[] rowRuns;
+    private final int[] columnRuns;
+    // first and last tile of every run, x for the rows and y for the columns
+    private final int[] rowRunStarts;
+    private final int[] rowRunEnds;
+    private final int[] columnRunStarts;
+    private final int[] columnRunEnds;
+    private final long buildNanos;
+
+    private CorridorIndex(int width, int height, int[] rowRuns, int[] columnRuns, int[] rowRunStarts, int[] rowRunEnds,
+                          int[] columnRunStarts, int[] columnRunEnds, long buildNanos) {
+        this.width = width;
+        this.height = height;
+        this.rowRuns = rowRuns;
+        this.columnRuns = columnRuns;
+        this.rowRunStarts = rowRunStarts;
+        this.rowRunEnds = rowRunEnds;
+        this.columnRunStarts = columnRunStarts;
+        this.columnRunEnds = columnRunEnds;
+        this.buildNanos = buildNanos;
+    }
+
+    /**
+     * Builds the runs of a maze. The rows are scanned a word of the WallGrid at a time; a vertical run goes on when
+     * the tile above is open, so both kinds of runs come out of the same pass.
+     */
+    public static CorridorIndex build(WallGrid wallGrid) {
+        long start = System.nanoTime();
+        int width = wallGrid.getWidth();
+        int height = wallGrid.getHeight();
+        int[] rowRuns = new int[width * height];
+        int[] columnRuns = new int[width * height];
+        Arrays.fill(rowRuns, NO_RUN);
+        Arrays.fill(columnRuns, NO_RUN);
+        RunList rows = new RunList();
+        RunList columns = new RunList();
+
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * width;
+            for (int x = wallGrid.nextOpen(0, y); x < width; x = wallGrid.nextOpen(x, y)) {
+                int wall = wallGrid.nextWall(x, y);
+                Arrays.fill(rowRuns, rowStart + x, rowStart + wall, rows.add(x, wall - 1));
+
+                for (int tile = rowStart + x; tile < rowStart + wall; tile++) {
+                    int above = y > 0 ? columnRuns[tile - width] : NO_RUN;
+                    if (above == NO_RUN) {
+                        columnRuns[tile] = columns.add(y, y);
+                    } else {
+                        columnRuns[tile] = above;
+                        columns.ends[above] = y;
+                    }
+                }
+                x = wall;
+            }
+        }
+
+        return new CorridorIndex(width, height, rowRuns, columnRuns, rows.trimmedStarts(), rows.trimmedEnds(),
+                columns.trimmedStarts(), columns.trimmedEnds(), System.nanoTime() - start);
+    }
+
+    /**
+     * @return the horizontal run of the tile, NO_RUN for blocked tiles and tiles outside of the maze
+     */
+    public int getRowRun(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return NO_RUN;
+        return rowRuns[y * width + x];
+    }
+
+    /**
+     * @return the vertical run of the tile, NO_RUN for blocked tiles and tiles outside of the maze
+     */
+    public int getColumnRun(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return NO_RUN;
+        return columnRuns[y * width + x];
+    }
+
+    /**
+     * @return the x of the first open tile of a horizontal run, the tile after the wall on its left
+     */
+    public int getRowRunStart(int run) {
+        return rowRunStarts[run];
+    }
+
+    /**
+     * @return the x of the last open tile of a horizontal run, the tile before the wall on its right
+     */
+    public int getRowRunEnd(int run) {
+        return rowRunEnds[run];
+    }
+
+    /**
+     * @return the y of the first open tile of a vertical run
+     */
+    public int getColumnRunStart(int run) {
+        return columnRunStarts[run];
+    }
+
+    /**
+     * @return the y of the last open tile of a vertical run
+     */
+    public int getColumnRunEnd(int run) {
+        return columnRunEnds[run];
+    }
+
+    //Getters
+
+    public int getRowRunCount() {
+        return rowRunStarts.length;
+    }
+
+    public int getColumnRunCount() {
+        return columnRunStarts.length;
+    }
+
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * @return the heap memory held by the index
+     */
+    public long getSizeInBytes() {
+        return (long) (rowRuns.length + columnRuns.length + 2 * rowRunStarts.length + 2 * columnRunStarts.length)
+                * Integer.BYTES;
+    }
+
+    /**
+     * First and last tiles of the runs while they are built, grown like an ArrayList
+     */
+    private static class RunList {
+        private int[] starts = new int[64];
+        private int[] ends = new int[64];
+        private int size;
+
+        /**
+         * @return the new run
+         */
+        int add(int start, int end) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            return size++;
+        }
+
+        int[] trimmedStarts() {
+            return Arrays.copyOf(starts, size);
+        }
+
+        int[] trimmedEnds() {
+            return Arrays.copyOf(ends, size);
+        }
+    }
+}
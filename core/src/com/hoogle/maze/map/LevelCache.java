@@ -0,0 +1,93 @@
+package com.hoogle.maze.map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * In-memory cache of loaded levels, keyed by file path and content hash, so a file that was edited is never
+ * served from the cache. Least recently used levels are evicted once the cached levels exceed the byte budget.
+ * The cached levels are never modified, they are the pristine state every retry starts from.
+ */
+public class LevelCache {
+
+    public static final long DEFAULT_BUDGET_BYTES = Long.getLong("maze.levelCacheBytes", 64L << 20);
+
+    private final long budgetBytes;
+    private final LinkedHashMap<String, LoadedLevel> levels = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    public LevelCache() {
+        this(DEFAULT_BUDGET_BYTES);
+    }
+
+    public LevelCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * @return the cached level for this file and content, or null
+     */
+    public synchronized LoadedLevel get(Path path, long contentHash) {
+        return levels.get(key(path, contentHash));
+    }
+
+    /**
+     * Caches a level and evicts the least recently used levels that no longer fit in the budget.
+     * Levels bigger than the whole budget are not cached.
+     */
+    public synchronized void put(LoadedLevel level) {
+        long size = level.getSizeInBytes();
+        if (size > budgetBytes)
+            return;
+
+        LoadedLevel previous = levels.put(key(level.getPath(), level.getContentHash()), level);
+        if (previous != null)
+            cachedBytes -= previous.getSizeInBytes();
+        cachedBytes += size;
+
+        Iterator<Map.Entry<String, LoadedLevel>> leastRecentlyUsed = levels.entrySet().iterator();
+        while (cachedBytes > budgetBytes && leastRecentlyUsed.hasNext()) {
+            LoadedLevel evicted = leastRecentlyUsed.next().getValue();
+            if (evicted == level)
+                continue;
+            cachedBytes -= evicted.getSizeInBytes();
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        levels.clear();
+        cachedBytes = 0;
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * Hashes the content of a file (CRC-32C over the memory-mapped bytes)
+     * @throws IOException if the file cannot be read
+     */
+    public static long hashContent(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            CRC32C crc = new CRC32C();
+            long size = channel.size();
+            for (long position = 0; position < size; position += Integer.MAX_VALUE) {
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(Integer.MAX_VALUE, size - position));
+                crc.update(window);
+            }
+            return (size << 32) ^ crc.getValue();
+        }
+    }
+
+    private static String key(Path path, long contentHash) {
+        return path.toAbsolutePath().normalize() + "#" + Long.toHexString(contentHash);
+    }
+}
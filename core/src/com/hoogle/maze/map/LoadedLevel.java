@@ -0,0 +1,144 @@
+package com.hoogle.maze.map;
+
+import java.nio.file.Path;
+
+/**
+ * Result of loading a maze file: its tiles and walls, fully built and never modified afterwards,
+ * so it can be handed from the loading thread to the render thread.
+ */
+public final class LoadedLevel {
+
+    /**
+     * Landmarks of the levels that are loaded whole, their objects are created from the tile grid
+     */
+    public static final int[] NO_LANDMARKS = new int[0];
+
+    private final Path path;
+    private final long contentHash;
+    private final TileSource tiles;
+    private final WallGrid wallGrid;
+    private final CorridorIndex corridorIndex;
+    private final boolean paged;
+    private final MazeAnalysis analysis;
+    private final int[] landmarks;
+    private final boolean[] minimapWalls;
+    private final long wallCount;
+
+    /**
+     * @param path file the level was loaded from
+     * @param contentHash hash of the file content, see LevelCache.hashContent, 0 for the levels that are not cached:
+     *                    paged levels and the edits of a hot reload
+     * @param tiles tiles of the level, a TileGrid unless the level is paged
+     * @param wallGrid walls of the level, WallGrid.EMPTY_GRID for paged levels
+     * @param corridorIndex runs of open tiles of the wallGrid, CorridorIndex.EMPTY_INDEX for paged levels
+     * @param paged true if the level is too big to be loaded whole and is paged chunk by chunk
+     * @param analysis reachability of the level, MazeAnalysis.NOT_ANALYZED for paged levels
+     * @param landmarks x, y and type of the entries, exits and keys of paged levels, NO_LANDMARKS for the others
+     * @param minimapWalls walls of the minimap, see Minimap.downsampleWalls, null if the level gets no minimap
+     */
+    public LoadedLevel(Path path, long contentHash, TileSource tiles, WallGrid wallGrid, CorridorIndex corridorIndex,
+                       boolean paged, MazeAnalysis analysis, int[] landmarks, boolean[] minimapWalls) {
+        this(path, contentHash, tiles, wallGrid, corridorIndex, paged, analysis, landmarks, minimapWalls,
+                countWalls(tiles));
+    }
+
+    /**
+     * @param wallCount number of walls of the tiles, for a level whose walls were counted along the way
+     */
+    public LoadedLevel(Path path, long contentHash, TileSource tiles, WallGrid wallGrid, CorridorIndex corridorIndex,
+                       boolean paged, MazeAnalysis analysis, int[] landmarks, boolean[] minimapWalls, long wallCount) {
+        this.path = path;
+        this.contentHash = contentHash;
+        this.tiles = tiles;
+        this.wallGrid = wallGrid;
+        this.corridorIndex = corridorIndex;
+        this.paged = paged;
+        this.analysis = analysis;
+        this.landmarks = landmarks;
+        this.minimapWalls = minimapWalls;
+        this.wallCount = wallCount;
+    }
+
+    /**
+     * @return the number of walls of the tiles, from the header of a mapped file or counted on the loader thread
+     */
+    private static long countWalls(TileSource tiles) {
+        if (tiles instanceof TileGrid tileGrid)
+            return tileGrid.count(TileType.WALL);
+        if (tiles instanceof MappedTileSource mappedTiles)
+            return mappedTiles.getHeader().getTypeCount(TileType.WALL);
+
+        long walls = 0;
+        for (int y = 0; y < tiles.getHeight(); y++) {
+            for (int x = 0; x < tiles.getWidth(); x++) {
+                if (tiles.get(x, y) == TileType.WALL)
+                    walls++;
+            }
+        }
+        return walls;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    public TileSource getTiles() {
+        return tiles;
+    }
+
+    /**
+     * @return the tile grid of the level, TileGrid.EMPTY_GRID for paged levels
+     */
+    public TileGrid getTileGrid() {
+        return tiles instanceof TileGrid tileGrid ? tileGrid : TileGrid.EMPTY_GRID;
+    }
+
+    public WallGrid getWallGrid() {
+        return wallGrid;
+    }
+
+    public CorridorIndex getCorridorIndex() {
+        return corridorIndex;
+    }
+
+    public boolean isPaged() {
+        return paged;
+    }
+
+    public MazeAnalysis getAnalysis() {
+        return analysis;
+    }
+
+    /**
+     * @return x, y and type of the entries, exits and keys of paged levels, found on the loader thread
+     */
+    public int[] getLandmarks() {
+        return landmarks;
+    }
+
+    /**
+     * @return the downsampled walls of the minimap, null for small levels and paged levels
+     */
+    public boolean[] getMinimapWalls() {
+        return minimapWalls;
+    }
+
+    /**
+     * @return the number of walls, for the RenderStats of the wall renderers
+     */
+    public long getWallCount() {
+        return wallCount;
+    }
+
+    /**
+     * @return the heap memory held by the level, the tiles of paged levels stay in the mapped file
+     */
+    public long getSizeInBytes() {
+        return getTileGrid().getTileCount() + wallGrid.getSizeInBytes() + corridorIndex.getSizeInBytes()
+                + analysis.getSizeInBytes() + (minimapWalls == null ? 0 : minimapWalls.length);
+    }
+}
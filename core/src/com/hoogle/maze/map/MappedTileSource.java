@@ -0,0 +1,90 @@
+package com.hoogle.maze.map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Tiles read straight from a memory-mapped .mzb file. Nothing is copied onto the heap, the operating system
+ * pages the parts of the file that are accessed in and out of memory.
+ * The file is mapped in windows of MazeBinaryFormat.MAPPING_WINDOW_SIZE bytes and the offsets of the tiles are
+ * longs, so mazes of more than 2^31 tiles can be paged.
+ */
+public class MappedTileSource implements TileSource {
+
+    private final ByteBuffer[] windows;
+    private final int windowShift;
+    private final long windowMask;
+    private final MazeBinaryFormat.Header header;
+
+    private MappedTileSource(ByteBuffer[] windows, int windowSize, MazeBinaryFormat.Header header) {
+        this.windows = windows;
+        this.windowShift = Integer.numberOfTrailingZeros(windowSize);
+        this.windowMask = windowSize - 1;
+        this.header = header;
+    }
+
+    /**
+     * Memory-maps a binary maze file
+     * @throws IOException if the file cannot be read or is not a valid maze file
+     */
+    public static MappedTileSource open(Path path) throws IOException {
+        return open(path, MazeBinaryFormat.MAPPING_WINDOW_SIZE);
+    }
+
+    /**
+     * Memory-maps a binary maze file in windows of windowSize bytes
+     * @param windowSize a power of two of at least MazeBinaryFormat.HEADER_SIZE bytes
+     * @throws IOException if the file cannot be read or is not a valid maze file
+     */
+    static MappedTileSource open(Path path, int windowSize) throws IOException {
+        ByteBuffer[] windows = MazeBinaryFormat.mapWindows(path, windowSize);
+        long fileSize = (long) (windows.length - 1) * windowSize + windows[windows.length - 1].limit();
+        return new MappedTileSource(windows, windowSize, MazeBinaryFormat.readHeader(windows[0], fileSize));
+    }
+
+    @Override
+    public int get(int x, int y) {
+        if (x < 0 || y < 0 || x >= header.getWidth() || y >= header.getHeight())
+            return TileType.EMPTY;
+        return getByte(MazeBinaryFormat.HEADER_SIZE + (long) y * header.getWidth() + x);
+    }
+
+    private byte getByte(long offset) {
+        return windows[(int) (offset >>> windowShift)].get((int) (offset & windowMask));
+    }
+
+    /**
+     * @return the big-endian int at offset, it may span two windows
+     */
+    private int getInt(long offset) {
+        return (getByte(offset) & 0xFF) << 24 | (getByte(offset + 1) & 0xFF) << 16
+                | (getByte(offset + 2) & 0xFF) << 8 | getByte(offset + 3) & 0xFF;
+    }
+
+    @Override
+    public int getWidth() {
+        return header.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return header.getHeight();
+    }
+
+    /**
+     * Reads the entries, exits and keys from the end of the file, the tiles are not touched
+     * @return x, y and type of every entry, exit and key, row by row
+     */
+    public int[] readLandmarks() {
+        int[] landmarks = new int[3 * header.getLandmarkCount()];
+        for (int i = 0; i < landmarks.length; i++) {
+            landmarks[i] = getInt(header.getLandmarkOffset() + 4L * i);
+        }
+        return landmarks;
+    }
+
+    public MazeBinaryFormat.Header getHeader() {
+        return header;
+    }
+}
@@ -0,0 +1,321 @@
+package com.hoogle.maze.map;
+
+import java.util.Arrays;
+
+/**
+ * Playability checks run when a level is loaded: connected components of the open tiles, whether the key can be
+ * reached from the entry and the exit from the key, and the length of the shortest way through the maze.
+ * The player starts on the entry and finishes by touching the exit, and both block the way, so they are left through
+ * and reached from one of their four neighbours. When a map has several entries, keys or exits the last one in
+ * row order counts, like in MapLoader.
+ * All searches are breadth-first over int arrays copied once from the WallGrid, with an int array as queue,
+ * so nothing is allocated per tile.
+ */
+public final class MazeAnalysis {
+
+    public static final int UNREACHABLE = -1;
+    /**
+     * Component of the tiles that block the way
+     */
+    public static final int NO_COMPONENT = -1;
+    /**
+     * Value of the blocking tiles while searching, the results are stored with a blocked border around the maze
+     */
+    private static final int BLOCKED = -2;
+
+    /**
+     * Result for levels that were not analyzed, such as paged levels
+     */
+    public static final MazeAnalysis NOT_ANALYZED = new MazeAnalysis(0, 0, new int[0], new int[0], new int[0],
+            -1, -1, -1, UNREACHABLE, UNREACHABLE, 0);
+
+    private final int width;
+    private final int height;
+    private final int[] components;
+    private final int[] componentSizes;
+    private final int[] distancesFromEntry;
+    private final int entryIndex;
+    private final int keyIndex;
+    private final int exitIndex;
+    private final int entryToKeyDistance;
+    private final int keyToExitDistance;
+    private final long analysisNanos;
+
+    private MazeAnalysis(int width, int height, int[] components, int[] componentSizes, int[] distancesFromEntry,
+                         int entryIndex, int keyIndex, int exitIndex, int entryToKeyDistance, int keyToExitDistance, long analysisNanos) {
+        this.width = width;
+        this.height = height;
+        this.components = components;
+        this.componentSizes = componentSizes;
+        this.distancesFromEntry = distancesFromEntry;
+        this.entryIndex = entryIndex;
+        this.keyIndex = keyIndex;
+        this.exitIndex = exitIndex;
+        this.entryToKeyDistance = entryToKeyDistance;
+        this.keyToExitDistance = keyToExitDistance;
+        this.analysisNanos = analysisNanos;
+    }
+
+    /**
+     * Analyzes a loaded maze
+     * @param tiles tiles of the maze, used to find the entry, key and exit
+     * @param wallGrid blocked tiles of the maze
+     */
+    public static MazeAnalysis analyze(TileGrid tiles, WallGrid wallGrid) {
+        long start = System.nanoTime();
+        int width = tiles.getWidth();
+        int height = tiles.getHeight();
+        int stride = width + 2;
+        byte[] types = tiles.tiles();
+
+        int entryIndex = -1;
+        int keyIndex = -1;
+        int exitIndex = -1;
+        for (int i = 0; i < types.length; i++) {
+            switch (types[i]) {
+                case TileType.ENTRY -> entryIndex = padded(i, width);
+                case TileType.KEY -> keyIndex = padded(i, width);
+                case TileType.EXIT -> exitIndex = padded(i, width);
+                default -> {
+                }
+            }
+        }
+
+        // open tiles start UNREACHABLE and unlabeled, blocking tiles and the border around the maze BLOCKED,
+        // so each step of a search only has to look at one int
+        int[] cells = new int[stride * (height + 2)];
+        Arrays.fill(cells, BLOCKED);
+        int openTiles = 0;
+        for (int y = 0; y < height; y++) {
+            int rowStart = (y + 1) * stride + 1;
+            for (int x = wallGrid.nextOpen(0, y); x < width; x = wallGrid.nextOpen(x, y)) {
+                int wall = wallGrid.nextWall(x, y);
+                Arrays.fill(cells, rowStart + x, rowStart + wall, UNREACHABLE);
+                openTiles += wall - x;
+                x = wall;
+            }
+        }
+
+        int[] queue = new int[openTiles + 1];
+        int[] distancesFromEntry = cells.clone();
+        search(entryIndex, -1, distancesFromEntry, queue, stride);
+        int entryToKeyDistance = keyIndex < 0 ? UNREACHABLE : distancesFromEntry[keyIndex];
+        int[] distancesFromKey = entryToKeyDistance == UNREACHABLE || exitIndex < 0 ? null : cells.clone();
+
+        // the labels overwrite the template, the searches got their own copies
+        int[] components = cells;
+        int[] componentSizes = labelComponents(components, queue, stride);
+
+        // the search from the key only runs when the exit borders the key's component, and stops at the exit.
+        // The exit blocks the way, opening it for this search gives the number of steps needed to touch it
+        int keyToExitDistance = UNREACHABLE;
+        if (distancesFromKey != null && bordersComponent(exitIndex, components[keyIndex], components, stride)) {
+            distancesFromKey[exitIndex] = UNREACHABLE;
+            search(keyIndex, exitIndex, distancesFromKey, queue, stride);
+            keyToExitDistance = distancesFromKey[exitIndex];
+        }
+
+        return new MazeAnalysis(width, height, components, componentSizes, distancesFromEntry,
+                entryIndex, keyIndex, exitIndex, entryToKeyDistance, keyToExitDistance, System.nanoTime() - start);
+    }
+
+    /**
+     * Breadth-first search from start over the cells that are UNREACHABLE, writing the number of steps into them.
+     * The start tile may block the way (the entry), the search then leaves it through its open neighbours.
+     * @param target the search stops once this cell is reached, -1 to reach every cell
+     */
+    private static void search(int start, int target, int[] cells, int[] queue, int stride) {
+        if (start < 0)
+            return;
+
+        int head = 0;
+        int tail = 0;
+        cells[start] = 0;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int index = queue[head++];
+            if (index == target)
+                return;
+            int next = cells[index] + 1;
+            if (cells[index - 1] == UNREACHABLE) {
+                cells[index - 1] = next;
+                queue[tail++] = index - 1;
+            }
+            if (cells[index + 1] == UNREACHABLE) {
+                cells[index + 1] = next;
+                queue[tail++] = index + 1;
+            }
+            if (cells[index - stride] == UNREACHABLE) {
+                cells[index - stride] = next;
+                queue[tail++] = index - stride;
+            }
+            if (cells[index + stride] == UNREACHABLE) {
+                cells[index + stride] = next;
+                queue[tail++] = index + stride;
+            }
+        }
+    }
+
+    /**
+     * Floods every open cell that is still UNREACHABLE, writing its component number into it
+     * @return the number of tiles of each component
+     */
+    private static int[] labelComponents(int[] cells, int[] queue, int stride) {
+        int[] sizes = new int[16];
+        int componentCount = 0;
+
+        for (int index = 0; index < cells.length; index++) {
+            if (cells[index] != UNREACHABLE)
+                continue;
+
+            if (componentCount == sizes.length)
+                sizes = Arrays.copyOf(sizes, componentCount * 2);
+            int component = componentCount;
+            int head = 0;
+            int tail = 0;
+            cells[index] = component;
+            queue[tail++] = index;
+            while (head < tail) {
+                int current = queue[head++];
+                if (cells[current - 1] == UNREACHABLE) {
+                    cells[current - 1] = component;
+                    queue[tail++] = current - 1;
+                }
+                if (cells[current + 1] == UNREACHABLE) {
+                    cells[current + 1] = component;
+                    queue[tail++] = current + 1;
+                }
+                if (cells[current - stride] == UNREACHABLE) {
+                    cells[current - stride] = component;
+                    queue[tail++] = current - stride;
+                }
+                if (cells[current + stride] == UNREACHABLE) {
+                    cells[current + stride] = component;
+                    queue[tail++] = current + stride;
+                }
+            }
+            sizes[componentCount++] = tail;
+        }
+        return Arrays.copyOf(sizes, componentCount);
+    }
+
+    private static boolean bordersComponent(int index, int component, int[] components, int stride) {
+        return components[index - 1] == component || components[index + 1] == component
+                || components[index - stride] == component || components[index + stride] == component;
+    }
+
+    /**
+     * @return the index in the arrays padded with a blocked border of a tile index of the maze
+     */
+    private static int padded(int index, int width) {
+        return (index / width + 1) * (width + 2) + index % width + 1;
+    }
+
+    /**
+     * @return true if the maze was analyzed, false for paged levels
+     */
+    public boolean isAnalyzed() {
+        return this != NOT_ANALYZED;
+    }
+
+    /**
+     * @return true if the maze has an entry, a key and an exit, and the player can walk from the entry to the key and on to the exit
+     */
+    public boolean isSolvable() {
+        return entryIndex >= 0 && isKeyReachable() && isExitReachable();
+    }
+
+    public boolean isKeyReachable() {
+        return entryToKeyDistance != UNREACHABLE;
+    }
+
+    /**
+     * @return true if the exit can be reached once the key was picked up
+     */
+    public boolean isExitReachable() {
+        return keyToExitDistance != UNREACHABLE;
+    }
+
+    /**
+     * @return the number of steps of the shortest way from the entry over the key to the exit, or UNREACHABLE
+     */
+    public int getSolutionLength() {
+        return isSolvable() ? entryToKeyDistance + keyToExitDistance : UNREACHABLE;
+    }
+
+    /**
+     * @return the component of an open tile, NO_COMPONENT for blocking tiles and tiles outside of the maze
+     */
+    public int getComponent(int x, int y) {
+        if (!contains(x, y))
+            return NO_COMPONENT;
+        int component = components[(y + 1) * (width + 2) + x + 1];
+        return component < 0 ? NO_COMPONENT : component;
+    }
+
+    /**
+     * @return the number of steps from the entry to (x, y), or UNREACHABLE
+     */
+    public int getDistanceFromEntry(int x, int y) {
+        if (!contains(x, y))
+            return UNREACHABLE;
+        int distance = distancesFromEntry[(y + 1) * (width + 2) + x + 1];
+        return distance < 0 ? UNREACHABLE : distance;
+    }
+
+    /**
+     * @return the number of open tiles in a component
+     */
+    public int getComponentSize(int component) {
+        return componentSizes[component];
+    }
+
+    /**
+     * @return a one line description of the result, for the log
+     */
+    public String describe() {
+        if (!isAnalyzed())
+            return "not analyzed";
+        if (entryIndex < 0)
+            return "no entry";
+        if (keyIndex < 0)
+            return "no key";
+        if (exitIndex < 0)
+            return "no exit";
+        if (!isKeyReachable())
+            return "the key cannot be reached from the entry";
+        if (!isExitReachable())
+            return "the exit cannot be reached from the key";
+        return "solvable in " + getSolutionLength() + " steps";
+    }
+
+    private boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    //Getters
+
+    public int getComponentCount() {
+        return componentSizes.length;
+    }
+
+    public int getEntryToKeyDistance() {
+        return entryToKeyDistance;
+    }
+
+    public int getKeyToExitDistance() {
+        return keyToExitDistance;
+    }
+
+    public long getAnalysisNanos() {
+        return analysisNanos;
+    }
+
+    /**
+     * @return the heap memory held by the per-tile results
+     */
+    public long getSizeInBytes() {
+        return 4L * (components.length + distancesFromEntry.length + componentSizes.length);
+    }
+}
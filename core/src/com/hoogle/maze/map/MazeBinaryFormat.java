@@ -0,0 +1,217 @@
+package com.hoogle.maze.map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary maze format (.mzb).
+ * <pre>
+ * offset  size         content
+ * 0       4            magic "MZB\0"
+ * 4       4            format version
+ * 8       4            width in tiles
+ * 12      4            height in tiles
+ * 16      4 * 6        number of tiles of each type (wall, entry, exit, trap, enemy, key)
+ * 40      width*height one byte per tile, row-major (tile (x, y) at y * width + x), 0xFF for an empty tile
+ * 40+w*h  12 * n       landmarks: x, y and type of every entry, exit and key, row by row,
+ *                      n is the sum of their type counts
+ * </pre>
+ * All integers are big-endian. Files of other versions are rejected, they have to be converted again.
+ */
+public final class MazeBinaryFormat {
+
+    public static final String EXTENSION = ".mzb";
+    public static final int MAGIC = 0x4D5A4200;
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 16 + 4 * TileType.COUNT;
+    /**
+     * Size of the windows paged files are mapped in, a MappedByteBuffer cannot hold more than 2 GB
+     */
+    public static final int MAPPING_WINDOW_SIZE = 1 << 30;
+
+    private MazeBinaryFormat() {
+    }
+
+    /**
+     * Header of a binary maze file
+     */
+    public static final class Header {
+        private final int version;
+        private final int width;
+        private final int height;
+        private final int[] typeCounts;
+
+        public Header(int version, int width, int height, int[] typeCounts) {
+            this.version = version;
+            this.width = width;
+            this.height = height;
+            this.typeCounts = typeCounts;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        /**
+         * @return the number of entries, exits and keys
+         */
+        public int getLandmarkCount() {
+            return typeCounts[TileType.ENTRY] + typeCounts[TileType.EXIT] + typeCounts[TileType.KEY];
+        }
+
+        /**
+         * @return the offset of the landmarks, right after the tiles
+         */
+        public long getLandmarkOffset() {
+            return HEADER_SIZE + getTileCount();
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public int getTypeCount(int type) {
+            return typeCounts[type];
+        }
+
+        public long getTileCount() {
+            return (long) width * height;
+        }
+    }
+
+    /**
+     * Memory-maps a whole binary maze file in read-only mode, for the files loaded into a TileGrid
+     * @throws IOException if the file cannot be mapped or is bigger than 2 GB
+     */
+    public static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Binary maze file too big to be loaded whole, it can only be paged");
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Memory-maps a binary maze file of any size in read-only mode, in consecutive windows of windowSize bytes
+     * @return the windows, the last one holds the rest of the file, at least one window even for an empty file
+     * @throws IOException if the file cannot be mapped
+     */
+    public static MappedByteBuffer[] mapWindows(Path path, int windowSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer[] windows = new MappedByteBuffer[(int) Math.max(1, (size + windowSize - 1) / windowSize)];
+            for (int window = 0; window < windows.length; window++) {
+                long position = (long) window * windowSize;
+                windows[window] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+            }
+            return windows;
+        }
+    }
+
+    /**
+     * Reads and validates the header at the beginning of the buffer, which holds the whole file
+     * @throws IOException if the buffer does not hold a supported maze file
+     */
+    public static Header readHeader(ByteBuffer buffer) throws IOException {
+        return readHeader(buffer, buffer.limit());
+    }
+
+    /**
+     * Reads and validates the header at the beginning of the buffer
+     * @param fileSize size of the whole file, the buffer may only hold its beginning
+     * @throws IOException if the file is not a supported maze file
+     */
+    public static Header readHeader(ByteBuffer buffer, long fileSize) throws IOException {
+        if (fileSize < HEADER_SIZE || buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+            throw new IOException("Not a binary maze file");
+
+        int version = buffer.getInt(4);
+        if (version != VERSION)
+            throw new IOException("Unsupported binary maze version " + version + ", convert the maze file again");
+
+        int width = buffer.getInt(8);
+        int height = buffer.getInt(12);
+        int[] typeCounts = new int[TileType.COUNT];
+        for (int type = 0; type < TileType.COUNT; type++) {
+            typeCounts[type] = buffer.getInt(16 + 4 * type);
+            if (typeCounts[type] < 0)
+                throw new IOException("Corrupt binary maze header");
+        }
+
+        long landmarkCount = (long) typeCounts[TileType.ENTRY] + typeCounts[TileType.EXIT] + typeCounts[TileType.KEY];
+        if (landmarkCount > Integer.MAX_VALUE / 3)
+            throw new IOException("Corrupt binary maze header");
+
+        Header header = new Header(version, width, height, typeCounts);
+        if (width < 0 || height < 0 || fileSize < header.getLandmarkOffset() + 12L * landmarkCount)
+            throw new IOException("Truncated binary maze file");
+        return header;
+    }
+
+    /**
+     * Writes a maze in the binary format
+     * @param path destination file
+     * @param width width in tiles
+     * @param height height in tiles
+     * @param tiles row-major tile types, TileType.EMPTY for empty tiles
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, int width, int height, byte[] tiles) throws IOException {
+        int[] typeCounts = new int[TileType.COUNT];
+        for (int i = 0; i < width * height; i++) {
+            if (TileType.isValid(tiles[i]))
+                typeCounts[tiles[i]]++;
+        }
+
+        int landmarkCount = typeCounts[TileType.ENTRY] + typeCounts[TileType.EXIT] + typeCounts[TileType.KEY];
+        ByteBuffer landmarks = ByteBuffer.allocate(12 * landmarkCount);
+        for (int i = 0; i < width * height; i++) {
+            if (isLandmark(tiles[i]))
+                landmarks.putInt(i % width).putInt(i / width).putInt(tiles[i]);
+        }
+        landmarks.flip();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height);
+        for (int typeCount : typeCounts) {
+            header.putInt(typeCount);
+        }
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(header);
+            ByteBuffer body = ByteBuffer.wrap(tiles, 0, width * height);
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+            while (landmarks.hasRemaining()) {
+                channel.write(landmarks);
+            }
+        }
+    }
+
+    /**
+     * @return true for the tiles that are created once for a whole paged level: entries, exits and keys
+     */
+    public static boolean isLandmark(int type) {
+        return type == TileType.ENTRY || type == TileType.EXIT || type == TileType.KEY;
+    }
+
+    /**
+     * Converts a .properties maze into the binary format. Later entries for the same tile overwrite earlier ones.
+     * @param source .properties maze file
+     * @param destination .mzb file to write
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void convert(Path source, Path destination) throws IOException {
+        TileGrid.fromProperties(source).writeBinary(destination);
+    }
+}
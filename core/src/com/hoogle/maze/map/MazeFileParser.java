@@ -0,0 +1,266 @@
+package com.hoogle.maze.map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming parser for the maze .properties files (one "x,y=type" entry per line).
+ * The file is memory-mapped and the integers are read straight from the bytes, so no Strings are created per line.
+ */
+public final class MazeFileParser {
+
+    /**
+     * Largest window mapped at once, files bigger than this are parsed window by window
+     */
+    private static final long MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * Receives every well-formed entry, in file order
+     */
+    @FunctionalInterface
+    public interface TileConsumer {
+        void accept(int x, int y, int type);
+    }
+
+    /**
+     * Receives every malformed line together with the byte offset where the line starts
+     */
+    @FunctionalInterface
+    public interface ErrorHandler {
+        void onMalformedLine(long offset, String reason);
+    }
+
+    /**
+     * Receives the number of bytes parsed so far while a file is being parsed
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long parsedBytes, long totalBytes);
+    }
+
+    /**
+     * Number of bytes parsed between two progress reports
+     */
+    private static final int PROGRESS_STEP = 1 << 20;
+
+    public static final ErrorHandler PRINT_ERRORS = (offset, reason) ->
+            System.out.println("Error parsing data at byte " + offset + ": " + reason);
+
+    private MazeFileParser() {
+    }
+
+    /**
+     * Memory-maps the given file and parses all of its entries
+     * @param path maze file
+     * @param consumer receives each parsed entry
+     * @param errorHandler receives each malformed line
+     * @return number of parsed entries
+     * @throws IOException if the file cannot be read
+     */
+    public static int parse(Path path, TileConsumer consumer, ErrorHandler errorHandler) throws IOException {
+        return parse(path, consumer, errorHandler, null);
+    }
+
+    /**
+     * Memory-maps the given file and parses all of its entries, reporting the progress about every megabyte
+     * @param path maze file
+     * @param consumer receives each parsed entry
+     * @param errorHandler receives each malformed line
+     * @param progressListener receives the progress, may be null
+     * @return number of parsed entries
+     * @throws IOException if the file cannot be read
+     */
+    public static int parse(Path path, TileConsumer consumer, ErrorHandler errorHandler, ProgressListener progressListener) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long windowStart = 0;
+            int parsedEntries = 0;
+
+            while (windowStart < size) {
+                long windowSize = Math.min(MAX_WINDOW_SIZE, size - windowStart);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+
+                // only the last window may end in the middle of a line
+                int end = (int) windowSize;
+                if (windowStart + windowSize < size) {
+                    end = lastLineEnd(buffer, end);
+                    if (end == 0)
+                        throw new IOException("Line longer than " + MAX_WINDOW_SIZE + " bytes at offset " + windowStart);
+                }
+
+                if (progressListener == null) {
+                    parsedEntries += parse(buffer, 0, end, windowStart, consumer, errorHandler);
+                } else {
+                    // parses the window in steps that end on a line break, reporting after each of them
+                    int stepStart = 0;
+                    while (stepStart < end) {
+                        int stepEnd = end;
+                        if (end - stepStart > PROGRESS_STEP) {
+                            stepEnd = lastLineEnd(buffer, stepStart + PROGRESS_STEP);
+                            if (stepEnd <= stepStart)
+                                stepEnd = end;
+                        }
+                        parsedEntries += parse(buffer, stepStart, stepEnd, windowStart, consumer, errorHandler);
+                        stepStart = stepEnd;
+                        progressListener.onProgress(windowStart + stepStart, size);
+                    }
+                }
+                windowStart += end;
+            }
+            return parsedEntries;
+        }
+    }
+
+    /**
+     * Parses the entries between from (inclusive) and to (exclusive). The range is expected to start at the beginning of a line.
+     * @param buffer bytes of the maze file
+     * @param from first byte to parse
+     * @param to end of the range
+     * @param baseOffset file offset of index 0 of the buffer, used when reporting errors
+     * @param consumer receives each parsed entry
+     * @param errorHandler receives each malformed line
+     * @return number of parsed entries
+     */
+    public static int parse(ByteBuffer buffer, int from, int to, long baseOffset, TileConsumer consumer, ErrorHandler errorHandler) {
+        int parsedEntries = 0;
+        int position = from;
+
+        while (position < to) {
+            int lineStart = position;
+            position = skipBlanks(buffer, position, to);
+
+            // empty lines and comments
+            if (position >= to || isLineEnd(buffer.get(position))) {
+                position = nextLine(buffer, position, to);
+                continue;
+            }
+            byte first = buffer.get(position);
+            if (first == '#' || first == '!') {
+                position = nextLine(buffer, position, to);
+                continue;
+            }
+
+            // x
+            long x = parseInt(buffer, position, to);
+            if (x == NOT_A_NUMBER) {
+                position = reportAndSkip(buffer, lineStart, to, baseOffset, "invalid x coordinate", errorHandler);
+                continue;
+            }
+            position = skipBlanks(buffer, position + numberLength(x), to);
+            if (position >= to || buffer.get(position) != ',') {
+                position = reportAndSkip(buffer, lineStart, to, baseOffset, "expected ','", errorHandler);
+                continue;
+            }
+
+            // y
+            position = skipBlanks(buffer, position + 1, to);
+            long y = parseInt(buffer, position, to);
+            if (y == NOT_A_NUMBER) {
+                position = reportAndSkip(buffer, lineStart, to, baseOffset, "invalid y coordinate", errorHandler);
+                continue;
+            }
+            position = skipBlanks(buffer, position + numberLength(y), to);
+            if (position >= to || buffer.get(position) != '=') {
+                position = reportAndSkip(buffer, lineStart, to, baseOffset, "expected '='", errorHandler);
+                continue;
+            }
+
+            // type
+            position = skipBlanks(buffer, position + 1, to);
+            long type = parseInt(buffer, position, to);
+            if (type == NOT_A_NUMBER) {
+                position = reportAndSkip(buffer, lineStart, to, baseOffset, "invalid object type", errorHandler);
+                continue;
+            }
+            position = skipBlanks(buffer, position + numberLength(type), to);
+            if (position < to && !isLineEnd(buffer.get(position))) {
+                position = reportAndSkip(buffer, lineStart, to, baseOffset, "unexpected characters after object type", errorHandler);
+                continue;
+            }
+
+            consumer.accept(value(x), value(y), value(type));
+            parsedEntries++;
+            position = nextLine(buffer, position, to);
+        }
+        return parsedEntries;
+    }
+
+    /**
+     * Finds the end of the last complete line in the first length bytes of the buffer
+     * @return index right after the last '\n', or 0 if there is none
+     */
+    public static int lastLineEnd(ByteBuffer buffer, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n')
+                return i + 1;
+        }
+        return 0;
+    }
+
+    // A parsed number is returned as a long holding the value in the low 32 bits and the digit count (sign included) above them,
+    // so parsing a number does not need any object to return both.
+    private static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+    private static long parseInt(ByteBuffer buffer, int position, int to) {
+        int start = position;
+        boolean negative = false;
+        if (position < to && buffer.get(position) == '-') {
+            negative = true;
+            position++;
+        }
+
+        int digitsStart = position;
+        long value = 0;
+        while (position < to) {
+            int digit = buffer.get(position) - '0';
+            if (digit < 0 || digit > 9)
+                break;
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE)
+                return NOT_A_NUMBER;
+            position++;
+        }
+        if (position == digitsStart)
+            return NOT_A_NUMBER;
+
+        int result = negative ? (int) -value : (int) value;
+        return ((long) (position - start) << 32) | (result & 0xFFFFFFFFL);
+    }
+
+    private static int value(long parsedNumber) {
+        return (int) parsedNumber;
+    }
+
+    private static int numberLength(long parsedNumber) {
+        return (int) (parsedNumber >>> 32);
+    }
+
+    private static int reportAndSkip(ByteBuffer buffer, int lineStart, int to, long baseOffset, String reason, ErrorHandler errorHandler) {
+        errorHandler.onMalformedLine(baseOffset + lineStart, reason);
+        return nextLine(buffer, lineStart, to);
+    }
+
+    private static int skipBlanks(ByteBuffer buffer, int position, int to) {
+        while (position < to) {
+            byte current = buffer.get(position);
+            if (current != ' ' && current != '\t' && current != '\r')
+                break;
+            position++;
+        }
+        return position;
+    }
+
+    private static int nextLine(ByteBuffer buffer, int position, int to) {
+        while (position < to && buffer.get(position) != '\n')
+            position++;
+        return position + 1;
+    }
+
+    private static boolean isLineEnd(byte value) {
+        return value == '\n';
+    }
+}
@@ -0,0 +1,160 @@
+package com.hoogle.maze.map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parses big .properties maze files on several cores. The mapped file is split into byte ranges that start right after
+ * a line break, each range is parsed into its own TileGrid.Builder on a ForkJoinPool, and the builders are merged in
+ * file order, so later entries for the same tile win exactly like with the sequential parser.
+ * Files smaller than the sequential threshold are parsed on the calling thread.
+ */
+public final class ParallelMazeFileParser {
+
+    /**
+     * Files smaller than this many bytes are parsed sequentially, splitting them costs more than it saves
+     */
+    public static final long SEQUENTIAL_THRESHOLD_BYTES = Long.getLong("maze.parallelParseBytes", 4L << 20);
+
+    /**
+     * Ranges are not split below this size
+     */
+    private static final int MIN_RANGE_BYTES = 256 << 10;
+
+    /**
+     * Number of ranges per thread, more ranges than threads keep every thread busy when some lines are slower to parse
+     */
+    private static final int RANGES_PER_THREAD = 4;
+
+    /**
+     * Largest window mapped at once, files bigger than this are parsed window by window
+     */
+    private static final long MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    private ParallelMazeFileParser() {
+    }
+
+    /**
+     * Parses a maze file on the common ForkJoinPool
+     * @see #parse(Path, ForkJoinPool, long, MazeFileParser.ErrorHandler, MazeFileParser.ProgressListener)
+     */
+    public static TileGrid parse(Path path, MazeFileParser.ErrorHandler errorHandler, MazeFileParser.ProgressListener progressListener) throws IOException {
+        return parse(path, ForkJoinPool.commonPool(), SEQUENTIAL_THRESHOLD_BYTES, errorHandler, progressListener);
+    }
+
+    /**
+     * Parses a maze file into a TileGrid
+     * @param path maze file
+     * @param pool pool the ranges are parsed on
+     * @param sequentialThreshold files smaller than this many bytes are parsed on the calling thread
+     * @param errorHandler receives each malformed line, called from the pool threads in no particular order
+     * @param progressListener receives the progress, called from the pool threads, may be null
+     * @return the grid, identical to the one built by the sequential parser
+     * @throws IOException if the file cannot be read
+     */
+    public static TileGrid parse(Path path, ForkJoinPool pool, long sequentialThreshold,
+                                 MazeFileParser.ErrorHandler errorHandler, MazeFileParser.ProgressListener progressListener) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < sequentialThreshold || pool.getParallelism() == 1) {
+                TileGrid.Builder builder = new TileGrid.Builder();
+                MazeFileParser.parse(path, builder, errorHandler, progressListener);
+                return builder.build();
+            }
+
+            long maxRangeSize = Math.max(MIN_RANGE_BYTES, size / ((long) pool.getParallelism() * RANGES_PER_THREAD));
+            AtomicLong parsedBytes = new AtomicLong();
+            List<TileGrid.Builder> parts = new ArrayList<>();
+            long windowStart = 0;
+
+            while (windowStart < size) {
+                long windowSize = Math.min(MAX_WINDOW_SIZE, size - windowStart);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+
+                // only the last window may end in the middle of a line
+                int end = (int) windowSize;
+                if (windowStart + windowSize < size) {
+                    end = MazeFileParser.lastLineEnd(buffer, end);
+                    if (end == 0)
+                        throw new IOException("Line longer than " + MAX_WINDOW_SIZE + " bytes at offset " + windowStart);
+                }
+
+                RangeTask task = new RangeTask(buffer, 0, end, windowStart, (int) Math.min(maxRangeSize, end), errorHandler,
+                        progressListener, parsedBytes, size);
+                parts.addAll(pool.invoke(task));
+                windowStart += end;
+            }
+            return TileGrid.Builder.merge(parts);
+        }
+    }
+
+    /**
+     * Parses a range, or splits it in two at a line break and parses both halves in parallel.
+     * Returns the builders of its leaves in file order.
+     */
+    private static class RangeTask extends RecursiveTask<List<TileGrid.Builder>> {
+
+        private final ByteBuffer buffer;
+        private final int from;
+        private final int to;
+        private final long baseOffset;
+        private final int maxRangeSize;
+        private final MazeFileParser.ErrorHandler errorHandler;
+        private final MazeFileParser.ProgressListener progressListener;
+        private final AtomicLong parsedBytes;
+        private final long totalBytes;
+
+        RangeTask(ByteBuffer buffer, int from, int to, long baseOffset, int maxRangeSize, MazeFileParser.ErrorHandler errorHandler,
+                  MazeFileParser.ProgressListener progressListener, AtomicLong parsedBytes, long totalBytes) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.baseOffset = baseOffset;
+            this.maxRangeSize = maxRangeSize;
+            this.errorHandler = errorHandler;
+            this.progressListener = progressListener;
+            this.parsedBytes = parsedBytes;
+            this.totalBytes = totalBytes;
+        }
+
+        @Override
+        protected List<TileGrid.Builder> compute() {
+            int split = to - from > maxRangeSize ? lineStartAfter(from + (to - from) / 2) : to;
+            if (split >= to) {
+                TileGrid.Builder builder = new TileGrid.Builder();
+                MazeFileParser.parse(buffer, from, to, baseOffset, builder, errorHandler);
+                long parsed = parsedBytes.addAndGet(to - from);
+                if (progressListener != null)
+                    progressListener.onProgress(parsed, totalBytes);
+                return List.of(builder);
+            }
+
+            RangeTask second = new RangeTask(buffer, split, to, baseOffset, maxRangeSize, errorHandler, progressListener, parsedBytes, totalBytes);
+            second.fork();
+            List<TileGrid.Builder> parts = new ArrayList<>(new RangeTask(buffer, from, split, baseOffset, maxRangeSize, errorHandler,
+                    progressListener, parsedBytes, totalBytes).compute());
+            parts.addAll(second.join());
+            return parts;
+        }
+
+        /**
+         * @return index right after the first '\n' at or after position, or to if there is none
+         */
+        private int lineStartAfter(int position) {
+            for (int i = position; i < to; i++) {
+                if (buffer.get(i) == '\n')
+                    return i + 1;
+            }
+            return to;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.hoogle.maze.map;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * Tiles that differ between two versions of the same maze, stored as (x, y, old type, new type) groups
+ */
+public class TileDiff {
+
+    private final IntArray changes = new IntArray();
+
+    /**
+     * Compares two grids of the same size. Equal stretches are skipped with Arrays.mismatch, which compares
+     * many bytes per instruction, so unchanged rows cost next to nothing even on very large mazes.
+     * @return the changed tiles, or null if the grids do not have the same size
+     */
+    public static TileDiff compute(TileGrid before, TileGrid after) {
+        if (before.getWidth() != after.getWidth() || before.getHeight() != after.getHeight())
+            return null;
+
+        byte[] oldTiles = before.tiles();
+        byte[] newTiles = after.tiles();
+        int width = before.getWidth();
+        int length = oldTiles.length;
+
+        TileDiff diff = new TileDiff();
+        int index = 0;
+        while (index < length) {
+            int mismatch = Arrays.mismatch(oldTiles, index, length, newTiles, index, length);
+            if (mismatch < 0)
+                break;
+            index += mismatch;
+            diff.changes.add(index % width, index / width, oldTiles[index], newTiles[index]);
+            index++;
+        }
+        return diff;
+    }
+
+    public int size() {
+        return changes.size / 4;
+    }
+
+    public boolean isEmpty() {
+        return changes.size == 0;
+    }
+
+    public int getX(int change) {
+        return changes.get(change * 4);
+    }
+
+    public int getY(int change) {
+        return changes.get(change * 4 + 1);
+    }
+
+    public int getOldType(int change) {
+        return changes.get(change * 4 + 2);
+    }
+
+    public int getNewType(int change) {
+        return changes.get(change * 4 + 3);
+    }
+}
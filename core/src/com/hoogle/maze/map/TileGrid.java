@@ -0,0 +1,246 @@
+package com.hoogle.maze.map;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Packed tile map of a maze: one byte per tile in a flat row-major array, TileType.EMPTY where the file has no entry.
+ * Tile (x, y) is stored at index y * width + x.
+ */
+public class TileGrid implements TileSource {
+
+    public static final TileGrid EMPTY_GRID = new TileGrid(0, 0);
+    /**
+     * Largest number of tiles a grid can hold, the largest array the JVM allocates. Bigger mazes can only be paged.
+     */
+    public static final int MAX_TILE_COUNT = Integer.MAX_VALUE - 8;
+
+    private final int width;
+    private final int height;
+    private final byte[] tiles;
+
+    /**
+     * Creates a grid with all tiles empty
+     * @throws IllegalArgumentException if the grid would hold more than MAX_TILE_COUNT tiles
+     */
+    public TileGrid(int width, int height) {
+        this(width, height, new byte[tileCount(width, height)]);
+        Arrays.fill(tiles, (byte) TileType.EMPTY);
+    }
+
+    TileGrid(int width, int height, byte[] tiles) {
+        this.width = width;
+        this.height = height;
+        this.tiles = tiles;
+    }
+
+    /**
+     * Loads a maze file, choosing the binary or the .properties reader from the file extension
+     * @throws IOException if the file cannot be read
+     */
+    public static TileGrid load(Path path) throws IOException {
+        if (path.getFileName().toString().endsWith(MazeBinaryFormat.EXTENSION))
+            return fromBinary(path);
+        return fromProperties(path);
+    }
+
+    /**
+     * Parses a .properties maze file, in parallel if it is big. Later entries for the same tile overwrite earlier ones.
+     * @throws IOException if the file cannot be read
+     */
+    public static TileGrid fromProperties(Path path) throws IOException {
+        return ParallelMazeFileParser.parse(path, MazeFileParser.PRINT_ERRORS, null);
+    }
+
+    /**
+     * Memory-maps a binary maze file and copies its tile section into a new grid
+     * @throws IOException if the file cannot be read or is not a valid maze file
+     */
+    public static TileGrid fromBinary(Path path) throws IOException {
+        ByteBuffer buffer = MazeBinaryFormat.map(path);
+        MazeBinaryFormat.Header header = MazeBinaryFormat.readHeader(buffer);
+
+        if (header.getTileCount() > MAX_TILE_COUNT)
+            throw new IOException("Binary maze file too big to be loaded whole, it can only be paged");
+        byte[] tiles = new byte[(int) header.getTileCount()];
+        buffer.get(MazeBinaryFormat.HEADER_SIZE, tiles);
+        return new TileGrid(header.getWidth(), header.getHeight(), tiles);
+    }
+
+    /**
+     * @return width * height
+     * @throws IllegalArgumentException if the size is negative or more than MAX_TILE_COUNT tiles
+     */
+    static int tileCount(int width, int height) {
+        if (width < 0 || height < 0)
+            throw new IllegalArgumentException("Negative maze size " + width + " x " + height);
+        try {
+            int count = Math.multiplyExact(width, height);
+            if (count <= MAX_TILE_COUNT)
+                return count;
+        } catch (ArithmeticException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Maze of " + width + " x " + height + " tiles is bigger than "
+                + MAX_TILE_COUNT + " tiles");
+    }
+
+    @Override
+    public int get(int x, int y) {
+        if (!contains(x, y))
+            return TileType.EMPTY;
+        return tiles[y * width + x];
+    }
+
+    public void set(int x, int y, int type) {
+        tiles[y * width + x] = (byte) type;
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * Hands every non-empty tile to the consumer, row by row
+     */
+    public void forEachTile(MazeFileParser.TileConsumer consumer) {
+        for (int y = 0; y < height; y++) {
+            forEachInRow(y, consumer);
+        }
+    }
+
+    /**
+     * Hands every non-empty tile of row y to the consumer, from left to right
+     */
+    public void forEachInRow(int y, MazeFileParser.TileConsumer consumer) {
+        int rowStart = y * width;
+        for (int x = 0; x < width; x++) {
+            byte type = tiles[rowStart + x];
+            if (type != TileType.EMPTY)
+                consumer.accept(x, y, type);
+        }
+    }
+
+    /**
+     * Copies row y into destination, starting at offset
+     */
+    public void copyRow(int y, byte[] destination, int offset) {
+        System.arraycopy(tiles, y * width, destination, offset, width);
+    }
+
+    /**
+     * Counts the tiles of the given type
+     */
+    public int count(int type) {
+        int count = 0;
+        for (byte tile : tiles) {
+            if (tile == type)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Saves the grid in the binary maze format
+     * @throws IOException if the file cannot be written
+     */
+    public void writeBinary(Path path) throws IOException {
+        MazeBinaryFormat.write(path, width, height, tiles);
+    }
+
+    /**
+     * @return the backing array, for the classes of this package that work on whole grids
+     */
+    byte[] tiles() {
+        return tiles;
+    }
+
+    //Getters
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    public int getTileCount() {
+        return tiles.length;
+    }
+
+    public boolean isEmpty() {
+        return tiles.length == 0;
+    }
+
+    /**
+     * Collects parsed entries and builds a grid sized to their bounds.
+     * Entries are applied in the order they were received, so later entries for the same tile win.
+     */
+    public static class Builder implements MazeFileParser.TileConsumer {
+        private final IntArray entries = new IntArray();
+        private int width;
+        private int height;
+
+        @Override
+        public void accept(int x, int y, int type) {
+            if (!TileType.isValid(type)) {
+                System.out.println("Skipping unknown object type " + type + " at (" + x + ", " + y + ")");
+                return;
+            }
+            if (x < 0 || y < 0) {
+                System.out.println("Skipping negative coordinates (" + x + ", " + y + ")");
+                return;
+            }
+            if (Math.max(width, x + 1L) * Math.max(height, y + 1L) > MAX_TILE_COUNT) {
+                System.out.println("Skipping coordinates (" + x + ", " + y + ") outside of the largest maze size");
+                return;
+            }
+            entries.add(x, y, type);
+            width = Math.max(width, x + 1);
+            height = Math.max(height, y + 1);
+        }
+
+        /**
+         * @throws IOException if the entries span more than MAX_TILE_COUNT tiles
+         */
+        public TileGrid build() throws IOException {
+            return merge(List.of(this));
+        }
+
+        /**
+         * Builds one grid from builders that each received a consecutive part of the same file.
+         * The parts are applied in list order, so the result is the same as if a single builder had received the whole file.
+         * @throws IOException if the entries of all parts together span more than MAX_TILE_COUNT tiles
+         */
+        public static TileGrid merge(List<Builder> parts) throws IOException {
+            int width = 0;
+            int height = 0;
+            for (Builder part : parts) {
+                width = Math.max(width, part.width);
+                height = Math.max(height, part.height);
+            }
+
+            TileGrid grid;
+            try {
+                grid = new TileGrid(width, height);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            for (Builder part : parts) {
+                int[] items = part.entries.items;
+                for (int i = 0; i < part.entries.size; i += 3) {
+                    grid.tiles[items[i + 1] * width + items[i]] = (byte) items[i + 2];
+                }
+            }
+            return grid;
+        }
+    }
+}
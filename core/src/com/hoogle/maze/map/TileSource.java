@@ -0,0 +1,16 @@
+package com.hoogle.maze.map;
+
+/**
+ * Read access to the tiles of a maze, wherever they are stored
+ */
+public interface TileSource {
+
+    int getWidth();
+
+    int getHeight();
+
+    /**
+     * @return the tile type at (x, y), TileType.EMPTY outside of the maze
+     */
+    int get(int x, int y);
+}
@@ -0,0 +1,27 @@
+package com.hoogle.maze.map;
+
+/**
+ * Object types used in the maze files ("x,y=type")
+ */
+public final class TileType {
+
+    public static final int EMPTY = -1;
+    public static final int WALL = 0;
+    public static final int ENTRY = 1;
+    public static final int EXIT = 2;
+    public static final int TRAP = 3;
+    public static final int ENEMY = 4;
+    public static final int KEY = 5;
+
+    /**
+     * Number of non-empty types
+     */
+    public static final int COUNT = 6;
+
+    private TileType() {
+    }
+
+    public static boolean isValid(int type) {
+        return type >= WALL && type < COUNT;
+    }
+}
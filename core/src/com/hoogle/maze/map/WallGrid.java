@@ -0,0 +1,171 @@
+package com.hoogle.maze.map;
+
+/**
+ * Bitset of the blocked tiles of a maze, sized to the loaded map. Each row starts on a new long, so tile (x, y)
+ * is bit x % 64 of word y * wordsPerRow + x / 64. Tiles outside of the grid count as walls, which keeps
+ * lookups at the border of the map safe.
+ */
+public class WallGrid {
+
+    public static final WallGrid EMPTY_GRID = new WallGrid(0, 0);
+
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    public WallGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.words = new long[wordsPerRow * height];
+    }
+
+    /**
+     * Builds the wall grid of a maze. Walls, the entry and the exit block the way.
+     */
+    public static WallGrid fromTiles(TileSource tiles) {
+        WallGrid wallGrid = new WallGrid(tiles.getWidth(), tiles.getHeight());
+        for (int y = 0; y < tiles.getHeight(); y++) {
+            for (int x = 0; x < tiles.getWidth(); x++) {
+                if (isBlocking(tiles.get(x, y)))
+                    wallGrid.setWall(x, y);
+            }
+        }
+        return wallGrid;
+    }
+
+    /**
+     * @return a grid with the same walls that can be changed without touching this one
+     */
+    public WallGrid copy() {
+        WallGrid copy = new WallGrid(width, height);
+        System.arraycopy(words, 0, copy.words, 0, words.length);
+        return copy;
+    }
+
+    /**
+     * @return true for the tile types that block the way
+     */
+    public static boolean isBlocking(int type) {
+        return type == TileType.WALL || type == TileType.ENTRY || type == TileType.EXIT;
+    }
+
+    /**
+     * @return true if (x, y) is blocked or lies outside of the grid
+     */
+    public boolean isWall(int x, int y) {
+        if (!contains(x, y))
+            return true;
+        return (words[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    public void setWall(int x, int y) {
+        words[y * wordsPerRow + (x >>> 6)] |= 1L << x;
+    }
+
+    public void clearWall(int x, int y) {
+        words[y * wordsPerRow + (x >>> 6)] &= ~(1L << x);
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * Scans row y to the right, a word at a time
+     * @return the first wall at or after x, or width if there is none
+     */
+    public int nextWall(int x, int y) {
+        return nextBit(x, y, 0L);
+    }
+
+    /**
+     * Scans row y to the right, a word at a time
+     * @return the first open tile at or after x, or width if there is none
+     */
+    public int nextOpen(int x, int y) {
+        return nextBit(x, y, -1L);
+    }
+
+    /**
+     * Scans row y to the left, a word at a time
+     * @return the last wall at or before x, or -1 if there is none
+     */
+    public int previousWall(int x, int y) {
+        return previousBit(x, y, 0L);
+    }
+
+    /**
+     * Scans row y to the left, a word at a time
+     * @return the last open tile at or before x, or -1 if there is none
+     */
+    public int previousOpen(int x, int y) {
+        return previousBit(x, y, -1L);
+    }
+
+    /**
+     * @return the number of walls in the grid
+     */
+    public int countWalls() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    // flip is 0 to look for set bits and -1 to look for cleared bits
+    private int nextBit(int x, int y, long flip) {
+        if (y < 0 || y >= height || x >= width)
+            return width;
+        x = Math.max(x, 0);
+
+        int rowStart = y * wordsPerRow;
+        int wordIndex = x >>> 6;
+        long word = (words[rowStart + wordIndex] ^ flip) & (-1L << x);
+        while (true) {
+            if (word != 0) {
+                int found = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                return Math.min(found, width);
+            }
+            if (++wordIndex == wordsPerRow)
+                return width;
+            word = words[rowStart + wordIndex] ^ flip;
+        }
+    }
+
+    private int previousBit(int x, int y, long flip) {
+        if (y < 0 || y >= height || x < 0)
+            return -1;
+        x = Math.min(x, width - 1);
+
+        int rowStart = y * wordsPerRow;
+        int wordIndex = x >>> 6;
+        long word = (words[rowStart + wordIndex] ^ flip) & (-1L >>> (63 - (x & 63)));
+        while (true) {
+            if (word != 0)
+                return (wordIndex << 6) + 63 - Long.numberOfLeadingZeros(word);
+            if (--wordIndex < 0)
+                return -1;
+            word = words[rowStart + wordIndex] ^ flip;
+        }
+    }
+
+    //Getters
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the memory used by the wall bits
+     */
+    public long getSizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+}
@@ -2,31 +2,41 @@
 
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
-import com.badlogic.gdx.utils.TimeUtils;
+import com.hoogle.maze.SimulationClock;
 
+/**
+ * An enemy patrolling between two walls. While the enemy is in a level its position, direction, limits and life are
+ * kept by the EnemySystem of the level, and the getters and setters read and write them there. Its own fields only
+ * hold them before it is added and after it is removed.
+ */
 public class Enemy extends GameObject {
 
     private static long idCounter = 0;
     private long id;
     public static final long DEATH_COOLDOWN_IN_MILLIS = 4000;
+    private static final int START_TO_END = 1;
+    // the deaths and respawns are printed with -Dmaze.debugEvents=true
+    private static final boolean DEBUG_EVENTS = Boolean.getBoolean("maze.debugEvents");
+    private EnemySystem system;
+    private int slot = -1;
     private boolean alive;
     private long deathTimeInMillis;
-    private Direction direction;
-    private double maxHorizontal;
-    private double minHorizontal;
-    private double maxVertical;
-    private double minVertical;
+    private int direction;
+    private int maxHorizontal;
+    private int minHorizontal;
+    private int maxVertical;
+    private int minVertical;
 
     //Constructor
     public Enemy(int initialX, int initialY, int height, int width, TextureRegion textureRegion, Skin skin) {
         super(initialX, initialY, height, width, textureRegion, skin);
         id = idCounter++;
         alive = true;
-        direction = Direction.START_TO_END;
-        maxHorizontal = getCurrentFrameX();
-        minHorizontal = getCurrentFrameX();
-        maxVertical = getCurrentFrameY();
-        minVertical = getCurrentFrameY();
+        direction = START_TO_END;
+        maxHorizontal = (int) getCurrentFrameX();
+        minHorizontal = (int) getCurrentFrameX();
+        maxVertical = (int) getCurrentFrameY();
+        minVertical = (int) getCurrentFrameY();
         loadCharacterAnimations();
     }
 
@@ -44,149 +54,242 @@ public void handleColision(GameObject gameObject) {
     }
 
     /**
-     * Checks if enemy is set to move vertically or horizontally and makes it move accordingly.
-     * If enemy is approaching its max value for x or y (where the walls are), its direction is changed
+     * Moves the enemy one step along the longer axis of its limits and turns it around at the end of them.
+     * The enemies of a level are all moved at once by EnemySystem.update, this moves a single one. An enemy that is
+     * in no level does not move
      */
     public void handleMovement() {
-        var frameStep = 1;
-        boolean turnAround = false;
-
-        if(direction.equals(Direction.START_TO_END) && getAxis().equals(Axis.HORIZONTAL)) {
-            initialX += frameStep;
-            turnAround = (getCurrentFrameX() >= maxHorizontal);
-        } else if (direction.equals(Direction.START_TO_END) && getAxis().equals(Axis.VERTICAL)) {
-            initialY += frameStep;
-            turnAround = (getCurrentFrameY() >= maxVertical);
-        } else if (direction.equals(Direction.END_TO_START) && getAxis().equals(Axis.HORIZONTAL)) {
-            initialX -= frameStep;
-            turnAround = (getCurrentFrameX() < minHorizontal);
-        } else if (direction.equals(Direction.END_TO_START) && getAxis().equals(Axis.VERTICAL)) {
-            initialY -= frameStep;
-            turnAround = (getCurrentFrameY() < minVertical);
-        }
-
-        if(turnAround)
-            direction = direction.getInverted();
+        if (system != null)
+            system.move(slot);
+    }
 
+    /**
+     * Shrinks the patrol limits to the current tile, so they can be discovered again after the walls changed
+     */
+    public void resetLimits() {
+        int tileX = (int) getCurrentFrameX();
+        int tileY = (int) getCurrentFrameY();
+        setLimits(tileX, tileX, tileY, tileY);
     }
 
     /**
-     * Calls for the loadAnimationsFromFile from the upper class and loads the character animation from the mobs.png file.
+     * Calls for the loadAnimation from the upper class and loads the walking animation of the enemy from the sprite atlas.
      */
-    private void loadCharacterAnimations() {
+    protected void loadCharacterAnimations() {
         hasAnimation = true;
-        int frameWidth = 16;
-        int frameHeight = 16;
-
-        int y = 5 * frameHeight;
-        int x = 6 * frameWidth;
-
-        currentAnimation = loadAnimationsFromFile("mobs.png", 3, .1f, frameWidth, frameHeight, x, y);
+        currentAnimation = loadAnimation("enemy-walk", .1f);
     }
 
     /**
      * If enemy is not alive, checks if his death happened more than DEATH_COOLDOWN_IN_MILLIS, if yes, it sets alive to true again
      */
     public void tryRespawn() {
-        if (alive) return;
+        if (isAlive()) return;
 
-        if (TimeUtils.timeSinceMillis(this.deathTimeInMillis) < DEATH_COOLDOWN_IN_MILLIS)
+        if (SimulationClock.timeSinceMillis(getDeathTimeInMillis()) < DEATH_COOLDOWN_IN_MILLIS)
             return;
 
-        System.out.println("respawing...");
-        this.alive = true;
-        this.deathTimeInMillis = 0;
+        if (DEBUG_EVENTS)
+            System.out.println("respawing...");
+        if (system != null) {
+            system.revive(slot);
+        } else {
+            this.alive = true;
+            this.deathTimeInMillis = 0;
+        }
     }
 
     /**
      * Sets alive to false and starts counting the time of death
      */
     public void kill() {
-        this.alive = false;
-        this.deathTimeInMillis = TimeUtils.millis();
-        System.out.println("Death Moment: " + deathTimeInMillis);
+        long now = SimulationClock.millis();
+        if (system != null) {
+            system.kill(slot, now);
+        } else {
+            this.alive = false;
+            this.deathTimeInMillis = now;
+        }
+        if (DEBUG_EVENTS)
+            System.out.println("Death Moment: " + now);
+    }
+
+    /**
+     * Called by the EnemySystem when the enemy gets a slot, also when it is moved to another one
+     */
+    void attach(EnemySystem system, int slot) {
+        this.system = system;
+        this.slot = slot;
+    }
+
+    /**
+     * Called by the EnemySystem when the enemy is removed, with the state of its slot
+     */
+    void detach(int x, int y, int previousX, int previousY, int direction, boolean alive, long deathTimeInMillis,
+                int minHorizontal, int maxHorizontal, int minVertical, int maxVertical) {
+        system = null;
+        slot = -1;
+        this.initialX = x;
+        this.initialY = y;
+        this.previousX = previousX;
+        this.previousY = previousY;
+        this.direction = direction;
+        this.alive = alive;
+        this.deathTimeInMillis = deathTimeInMillis;
+        this.minHorizontal = minHorizontal;
+        this.maxHorizontal = maxHorizontal;
+        this.minVertical = minVertical;
+        this.maxVertical = maxVertical;
+    }
+
+    private void setLimits(int minHorizontal, int maxHorizontal, int minVertical, int maxVertical) {
+        if (system != null) {
+            system.setBounds(slot, minHorizontal, maxHorizontal, minVertical, maxVertical);
+        } else {
+            this.minHorizontal = minHorizontal;
+            this.maxHorizontal = maxHorizontal;
+            this.minVertical = minVertical;
+            this.maxVertical = maxVertical;
+        }
+    }
+
+    @Override
+    public void savePreviousPosition() {
+        if (system == null)
+            super.savePreviousPosition();
+    }
+
+    @Override
+    public float getInterpolatedX(float alpha) {
+        if (system == null)
+            return super.getInterpolatedX(alpha);
+        int previous = system.getPreviousX(slot);
+        return previous + (system.getX(slot) - previous) * alpha;
+    }
+
+    @Override
+    public float getInterpolatedY(float alpha) {
+        if (system == null)
+            return super.getInterpolatedY(alpha);
+        int previous = system.getPreviousY(slot);
+        return previous + (system.getY(slot) - previous) * alpha;
     }
 
     //Getters & Setters
 
     public boolean isAlive() {
-        return alive;
+        return system != null ? system.isAlive(slot) : alive;
     }
     public long getId() {
         return id;
     }
 
+    long getDeathTimeInMillis() {
+        return system != null ? system.getDeathTimeInMillis(slot) : deathTimeInMillis;
+    }
+
+    /**
+     * @return 1 while walking towards the max limit, -1 towards the min limit
+     */
+    int getDirection() {
+        return system != null ? system.getDirection(slot) : direction;
+    }
+
+    EnemySystem getSystem() {
+        return system;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    @Override
+    public int getInitialX() {
+        return system != null ? system.getX(slot) : initialX;
+    }
+
+    @Override
+    public void setInitialX(int initialX) {
+        if (system != null)
+            system.setPosition(slot, initialX, getInitialY());
+        else
+            super.setInitialX(initialX);
+    }
+
+    @Override
+    public int getInitialY() {
+        return system != null ? system.getY(slot) : initialY;
+    }
+
+    @Override
+    public void setInitialY(int initialY) {
+        if (system != null)
+            system.setPosition(slot, getInitialX(), initialY);
+        else
+            super.setInitialY(initialY);
+    }
+
     public double getMaxHorizontal() {
-        return maxHorizontal;
+        return system != null ? system.getMaxTileX(slot) : maxHorizontal;
     }
 
     public void setMaxHorizontal(double maxHorizontal) {
-        this.maxHorizontal = maxHorizontal;
+        setLimits((int) getMinHorizontal(), (int) maxHorizontal, (int) getMinVertical(), (int) getMaxVertical());
     }
 
     public double getMinHorizontal() {
-        return minHorizontal;
+        return system != null ? system.getMinTileX(slot) : minHorizontal;
     }
 
     public void setMinHorizontal(double minHorizontal) {
-        this.minHorizontal = minHorizontal;
+        setLimits((int) minHorizontal, (int) getMaxHorizontal(), (int) getMinVertical(), (int) getMaxVertical());
     }
 
     public double getMaxVertical() {
-        return maxVertical;
+        return system != null ? system.getMaxTileY(slot) : maxVertical;
     }
 
     public void setMaxVertical(double maxVertical) {
-        this.maxVertical = maxVertical;
+        setLimits((int) getMinHorizontal(), (int) getMaxHorizontal(), (int) getMinVertical(), (int) maxVertical);
     }
 
     public double getMinVertical() {
-        return minVertical;
+        return system != null ? system.getMinTileY(slot) : minVertical;
     }
 
     public void setMinVertical(double minVertical) {
-        this.minVertical = minVertical;
+        setLimits((int) getMinHorizontal(), (int) getMaxHorizontal(), (int) minVertical, (int) getMaxVertical());
     }
 
     public double getDistVertical() {
-        return maxVertical - minVertical + 1;
+        return getMaxVertical() - getMinVertical() + 1;
     }
 
     public double getDistHorizontal() {
-        return maxHorizontal - minHorizontal + 1;
+        return getMaxHorizontal() - getMinHorizontal() + 1;
+    }
+
+    /**
+     * Enemies move, so they are only equal to themselves
+     */
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
     }
 
-    private Axis getAxis() {
-        return getDistHorizontal() > getDistVertical() ? Axis.HORIZONTAL : Axis.VERTICAL;
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
     }
 
     @Override
     public String toString() {
         return "Enemy{" +
-                "deathTimeInMillis=" + deathTimeInMillis +
-                ", initialX=" + initialX +
-                ", initialY=" + initialY +
+                "deathTimeInMillis=" + getDeathTimeInMillis() +
+                ", initialX=" + getInitialX() +
+                ", initialY=" + getInitialY() +
                 ", height=" + height +
                 ", width=" + width +
                 '}';
     }
-
-    private enum Axis {
-        HORIZONTAL,
-        VERTICAL
-
-    }
-
-    private enum Direction {
-        START_TO_END,
-        END_TO_START;
-
-        public Direction getInverted() {
-            if (this == START_TO_END) {
-                return END_TO_START;
-            } else {
-                return START_TO_END;
-            }
-        }
-    }
 }
@@ -0,0 +1,363 @@
+package com.hoogle.maze.models;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.hoogle.maze.SimulationClock;
+
+import java.util.Arrays;
+
+import static com.hoogle.maze.MapLoader.Cell_Size;
+
+/**
+ * The state of the enemies of a level in parallel primitive arrays, one slot per enemy, and their movement.
+ * An enemy patrols along one axis, the longer one of its limits, so only its coordinate along that axis changes. The
+ * axis and the limits along it in pixels are computed when the limits change, not on every step, and update moves
+ * every enemy in one loop over four int arrays, position, step and the two limits, without touching the Enemy objects.
+ * The loop has no branches: a dead enemy has a step of 0, the limit ahead is picked and the enemy turned around with
+ * arithmetic on the sign of the step. So random directions and deaths cost no mispredictions and the JIT compiles the
+ * loop to vector instructions.
+ * An Enemy added to the system is a view on its slot: its getters and setters read and write the arrays. Removing an
+ * enemy moves the last slot into its place, so the slots are dense but the slot of an enemy can change.
+ * Positions are in pixels, the limits in tiles like the Enemy getters.
+ */
+public class EnemySystem {
+
+    private static final int TILE_SHIFT = 4;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int size;
+    // read and written by update
+    private int[] position = new int[INITIAL_CAPACITY];
+    // 1 towards the max limit, -1 towards the min limit, 0 while dead
+    private int[] step = new int[INITIAL_CAPACITY];
+    // the last pixel before the min limit and the first pixel of the max limit along the axis
+    private int[] lowLimit = new int[INITIAL_CAPACITY];
+    private int[] highLimit = new int[INITIAL_CAPACITY];
+    // only read when the limits change, when an enemy dies or when it is drawn
+    private int[] previousPosition = new int[INITIAL_CAPACITY];
+    private int[] stepBeforeDeath = new int[INITIAL_CAPACITY];
+    private boolean[] horizontal = new boolean[INITIAL_CAPACITY];
+    private int[] fixed = new int[INITIAL_CAPACITY];
+    private int[] minTileX = new int[INITIAL_CAPACITY];
+    private int[] maxTileX = new int[INITIAL_CAPACITY];
+    private int[] minTileY = new int[INITIAL_CAPACITY];
+    private int[] maxTileY = new int[INITIAL_CAPACITY];
+    private long[] deathTimeInMillis = new long[INITIAL_CAPACITY];
+    private Enemy[] enemies = new Enemy[INITIAL_CAPACITY];
+    private int deadCount;
+    // slots whose enemy entered another tile, filled by findCrossedTiles
+    private final IntArray crossedTiles = new IntArray();
+
+    /**
+     * Moves the state of an enemy into a new slot, the enemy reads and writes it there until it is removed
+     */
+    public void add(Enemy enemy) {
+        if (enemy.getSystem() != null)
+            return;
+
+        int slot = add(enemy.initialX, enemy.initialY, (int) enemy.getMinHorizontal(), (int) enemy.getMaxHorizontal(),
+                (int) enemy.getMinVertical(), (int) enemy.getMaxVertical());
+        previousPosition[slot] = horizontal[slot] ? enemy.previousX : enemy.previousY;
+        step[slot] = enemy.getDirection();
+        if (!enemy.isAlive())
+            kill(slot, enemy.getDeathTimeInMillis());
+        enemies[slot] = enemy;
+        enemy.attach(this, slot);
+    }
+
+    /**
+     * Adds an alive enemy without an Enemy object, walking towards the end of its axis
+     * @return the slot of the enemy
+     */
+    public int add(int x, int y, int minTileX, int maxTileX, int minTileY, int maxTileY) {
+        if (size == position.length)
+            grow(size * 2);
+
+        int slot = size++;
+        step[slot] = 1;
+        deathTimeInMillis[slot] = 0;
+        enemies[slot] = null;
+        setBounds(slot, x, y, minTileX, maxTileX, minTileY, maxTileY);
+        previousPosition[slot] = position[slot];
+        return slot;
+    }
+
+    /**
+     * Removes an enemy and gives its state back to it, enemies that are not in the system are ignored
+     */
+    public void remove(Enemy enemy) {
+        int slot = enemy.getSlot();
+        if (enemy.getSystem() != this || enemies[slot] != enemy)
+            return;
+
+        enemy.detach(getX(slot), getY(slot), getPreviousX(slot), getPreviousY(slot), getDirection(slot), isAlive(slot),
+                deathTimeInMillis[slot], minTileX[slot], maxTileX[slot], minTileY[slot], maxTileY[slot]);
+        if (!isAlive(slot))
+            deadCount--;
+
+        int last = --size;
+        if (slot != last) {
+            moveSlot(last, slot);
+            if (enemies[slot] != null)
+                enemies[slot].attach(this, slot);
+        }
+        enemies[last] = null;
+    }
+
+    /**
+     * Removes every enemy
+     */
+    public void clear() {
+        while (size > 0) {
+            Enemy enemy = enemies[size - 1];
+            if (enemy != null) {
+                remove(enemy);
+            } else {
+                size--;
+            }
+        }
+        deadCount = 0;
+        crossedTiles.clear();
+    }
+
+    /**
+     * Moves every alive enemy one pixel along its axis and turns it around at the end of its limits
+     */
+    public void update() {
+        update(0, size);
+    }
+
+    /**
+     * Moves the alive enemies of the slots from (inclusive) to to (exclusive) like update. Slots do not depend on each
+     * other, so disjoint ranges can be moved on several threads at once
+     */
+    public void update(int from, int to) {
+        int[] position = this.position;
+        int[] step = this.step;
+        int[] lowLimit = this.lowLimit;
+        int[] highLimit = this.highLimit;
+        for (int i = from; i < to; i++) {
+            int currentStep = step[i];
+            int moved = position[i] + currentStep;
+            position[i] = moved;
+            // the high limit when walking towards it, else the low one; the distance past it is not negative when the
+            // enemy has to turn around, then the sign bit is 0 and the step is flipped
+            int low = lowLimit[i];
+            int limit = low + ((currentStep + 1) >> 1) * (highLimit[i] - low);
+            int keepSign = (currentStep * (moved - limit)) >> 31;
+            step[i] = -currentStep * (2 * keepSign + 1);
+        }
+    }
+
+    /**
+     * Moves a single enemy like update
+     */
+    void move(int slot) {
+        int currentStep = step[slot];
+        int moved = position[slot] + currentStep;
+        position[slot] = moved;
+        if (currentStep > 0 ? moved >= highLimit[slot] : moved <= lowLimit[slot])
+            step[slot] = -currentStep;
+    }
+
+    /**
+     * Collects the enemies that entered another tile since savePreviousPositions, the ones a SpatialIndex may have to
+     * put into another cell. A separate pass, so update stays a loop the JIT can vectorize
+     * @return the slots of the enemies, valid until the next call
+     */
+    public IntArray findCrossedTiles() {
+        int[] position = this.position;
+        int[] previousPosition = this.previousPosition;
+        int[] crossed = crossedTiles.ensureCapacity(size - crossedTiles.size);
+        int crossedCount = 0;
+        for (int i = 0; i < size; i++) {
+            // every slot is written, the count only goes past the ones that crossed
+            crossed[crossedCount] = i;
+            int tileChange = (position[i] >> TILE_SHIFT) ^ (previousPosition[i] >> TILE_SHIFT);
+            crossedCount += (tileChange | -tileChange) >>> 31;
+        }
+        crossedTiles.size = crossedCount;
+        return crossedTiles;
+    }
+
+    /**
+     * Remembers the current positions as the previous ones, called before every simulation tick
+     */
+    public void savePreviousPositions() {
+        System.arraycopy(position, 0, previousPosition, 0, size);
+    }
+
+    /**
+     * Calls tryRespawn on the dead enemies, nothing is looked at while every enemy is alive
+     */
+    public void respawn() {
+        for (int i = 0; i < size && deadCount > 0; i++) {
+            if (step[i] == 0 && enemies[i] != null)
+                enemies[i].tryRespawn();
+        }
+    }
+
+    /**
+     * Adds the slots from (inclusive) to to (exclusive) of the dead enemies whose DEATH_COOLDOWN_IN_MILLIS is over to
+     * due, in slot order. Only reads the arrays, so disjoint ranges can be searched on several threads at once
+     */
+    public void findRespawns(int from, int to, IntArray due) {
+        for (int i = from; i < to; i++) {
+            if (step[i] == 0 && SimulationClock.timeSinceMillis(deathTimeInMillis[i]) >= Enemy.DEATH_COOLDOWN_IN_MILLIS)
+                due.add(i);
+        }
+    }
+
+    /**
+     * Sets the limits of an enemy and chooses its axis again, the position is kept
+     */
+    void setBounds(int slot, int minTileX, int maxTileX, int minTileY, int maxTileY) {
+        setBounds(slot, getX(slot), getY(slot), minTileX, maxTileX, minTileY, maxTileY);
+    }
+
+    private void setBounds(int slot, int x, int y, int minTileX, int maxTileX, int minTileY, int maxTileY) {
+        boolean wasHorizontal = horizontal[slot];
+        boolean isHorizontal = maxTileX - minTileX > maxTileY - minTileY;
+        this.minTileX[slot] = minTileX;
+        this.maxTileX[slot] = maxTileX;
+        this.minTileY[slot] = minTileY;
+        this.maxTileY[slot] = maxTileY;
+        horizontal[slot] = isHorizontal;
+        position[slot] = isHorizontal ? x : y;
+        fixed[slot] = isHorizontal ? y : x;
+        lowLimit[slot] = (isHorizontal ? minTileX : minTileY) * Cell_Size - 1;
+        highLimit[slot] = (isHorizontal ? maxTileX : maxTileY) * Cell_Size;
+        if (wasHorizontal != isHorizontal)
+            previousPosition[slot] = position[slot];
+    }
+
+    /**
+     * Moves an enemy without interpolation, like a teleport
+     */
+    void setPosition(int slot, int x, int y) {
+        position[slot] = horizontal[slot] ? x : y;
+        previousPosition[slot] = position[slot];
+        fixed[slot] = horizontal[slot] ? y : x;
+    }
+
+    /**
+     * Stops an enemy until it is revived, it keeps its direction
+     */
+    void kill(int slot, long timeInMillis) {
+        if (step[slot] != 0) {
+            stepBeforeDeath[slot] = step[slot];
+            step[slot] = 0;
+            deadCount++;
+        }
+        deathTimeInMillis[slot] = timeInMillis;
+    }
+
+    void revive(int slot) {
+        if (step[slot] == 0) {
+            step[slot] = stepBeforeDeath[slot];
+            deadCount--;
+        }
+        deathTimeInMillis[slot] = 0;
+    }
+
+    private void moveSlot(int from, int to) {
+        position[to] = position[from];
+        step[to] = step[from];
+        lowLimit[to] = lowLimit[from];
+        highLimit[to] = highLimit[from];
+        previousPosition[to] = previousPosition[from];
+        stepBeforeDeath[to] = stepBeforeDeath[from];
+        horizontal[to] = horizontal[from];
+        fixed[to] = fixed[from];
+        minTileX[to] = minTileX[from];
+        maxTileX[to] = maxTileX[from];
+        minTileY[to] = minTileY[from];
+        maxTileY[to] = maxTileY[from];
+        deathTimeInMillis[to] = deathTimeInMillis[from];
+        enemies[to] = enemies[from];
+    }
+
+    private void grow(int capacity) {
+        position = Arrays.copyOf(position, capacity);
+        step = Arrays.copyOf(step, capacity);
+        lowLimit = Arrays.copyOf(lowLimit, capacity);
+        highLimit = Arrays.copyOf(highLimit, capacity);
+        previousPosition = Arrays.copyOf(previousPosition, capacity);
+        stepBeforeDeath = Arrays.copyOf(stepBeforeDeath, capacity);
+        horizontal = Arrays.copyOf(horizontal, capacity);
+        fixed = Arrays.copyOf(fixed, capacity);
+        minTileX = Arrays.copyOf(minTileX, capacity);
+        maxTileX = Arrays.copyOf(maxTileX, capacity);
+        minTileY = Arrays.copyOf(minTileY, capacity);
+        maxTileY = Arrays.copyOf(maxTileY, capacity);
+        deathTimeInMillis = Arrays.copyOf(deathTimeInMillis, capacity);
+        enemies = Arrays.copyOf(enemies, capacity);
+    }
+
+    //Getters
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the enemy of a slot, null for enemies added without an Enemy object
+     */
+    public Enemy getEnemy(int slot) {
+        return enemies[slot];
+    }
+
+    public int getDeadCount() {
+        return deadCount;
+    }
+
+    public int getX(int slot) {
+        return horizontal[slot] ? position[slot] : fixed[slot];
+    }
+
+    public int getY(int slot) {
+        return horizontal[slot] ? fixed[slot] : position[slot];
+    }
+
+    public int getPreviousX(int slot) {
+        return horizontal[slot] ? previousPosition[slot] : fixed[slot];
+    }
+
+    public int getPreviousY(int slot) {
+        return horizontal[slot] ? fixed[slot] : previousPosition[slot];
+    }
+
+    public boolean isHorizontal(int slot) {
+        return horizontal[slot];
+    }
+
+    /**
+     * @return 1 while walking towards the max limit, -1 towards the min limit, also while dead
+     */
+    public int getDirection(int slot) {
+        return step[slot] != 0 ? step[slot] : stepBeforeDeath[slot];
+    }
+
+    public boolean isAlive(int slot) {
+        return step[slot] != 0;
+    }
+
+    public long getDeathTimeInMillis(int slot) {
+        return deathTimeInMillis[slot];
+    }
+
+    public int getMinTileX(int slot) {
+        return minTileX[slot];
+    }
+
+    public int getMaxTileX(int slot) {
+        return maxTileX[slot];
+    }
+
+    public int getMinTileY(int slot) {
+        return minTileY[slot];
+    }
+
+    public int getMaxTileY(int slot) {
+        return maxTileY[slot];
+    }
+}
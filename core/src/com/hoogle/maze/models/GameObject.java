@@ -1,25 +1,30 @@
 package com.hoogle.maze.models;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
-import com.badlogic.gdx.utils.Array;
+import com.hoogle.maze.SpriteAtlas;
 
 import java.util.Objects;
 
+import static com.hoogle.maze.MapLoader.Cell_Size;
+
 public abstract class GameObject {
 
-    private static final double CELL_SIZE = 16.0;
+    public static final long NO_SPATIAL_CELL = Long.MIN_VALUE;
     protected int initialX;
     protected int initialY;
     protected int height;
     protected int width;
+    // position before the last simulation tick, the renderer draws between it and the current position
+    protected int previousX;
+    protected int previousY;
     private Skin skin;
     protected boolean hasAnimation;
     protected Animation<TextureRegion> currentAnimation;
     protected TextureRegion textureRegion;
+    // cell of the object in its SpatialIndex, kept here so a moving object finds its cell without a lookup
+    private long spatialCell = NO_SPATIAL_CELL;
 
     //Constructors
     public GameObject(int height, int width, Skin skin) {
@@ -35,6 +40,8 @@ public GameObject(int initialX, int initialY, int height, int width, Skin skin)
         this(height, width, skin);
         this.initialX = initialX;
         this.initialY = initialY;
+        this.previousX = initialX;
+        this.previousY = initialY;
     }
 
     public GameObject(int initialX, int initialY, int height, int width, TextureRegion textureRegion, Skin skin) {
@@ -44,31 +51,50 @@ public GameObject(int initialX, int initialY, int height, int width, TextureRegi
 
 
     /**
-     * Uses a for-loop to take frames from the asset file and them into an Animation
-     * @param assetFileName file from which frames shall be taken
-     * @param numberOfFrames How many frames shall be taken from assetFile
+     * Takes the shared animation of the frames name_0, name_1, ... from the AnimationCache.
+     * The animation has to be given back with releaseAnimation when the object is removed
+     * @param regionName name of the frames in the atlas
      * @param frameRate Animation frames
-     * @param frameWidth
-     * @param frameHeight
-     * @param x Initial x-position in the PNG file
-     * @param y Initial y-position in the PNG file
      * @return object's animation
      */
-    protected static Animation<TextureRegion> loadAnimationsFromFile(String assetFileName, int numberOfFrames, float frameRate, int frameWidth, int frameHeight, int x, int y) {
-        Texture walkSheet = new Texture(Gdx.files.internal(assetFileName));
-
-        Array<TextureRegion> walkFrames = new Array<>(TextureRegion.class);
+    protected static Animation<TextureRegion> loadAnimation(String regionName, float frameRate) {
+        return SpriteAtlas.getAnimationCache().acquire(regionName, frameRate);
+    }
 
-        for (int col = 0; col < numberOfFrames; col++) {
-            walkFrames.add(new TextureRegion(walkSheet, x + col * frameWidth, y, frameWidth, frameHeight));
+    /**
+     * Gives the animation of a removed object back to the AnimationCache
+     */
+    public void releaseAnimation() {
+        if (currentAnimation != null) {
+            SpriteAtlas.getAnimationCache().release(currentAnimation);
+            currentAnimation = null;
+            hasAnimation = false;
         }
-
-        return new Animation<>(frameRate, walkFrames);
     }
 
     public void handleColision(GameObject gameObject){
     }
 
+    /**
+     * Remembers the current position as the previous one, called before every simulation tick
+     */
+    public void savePreviousPosition() {
+        previousX = initialX;
+        previousY = initialY;
+    }
+
+    /**
+     * @param alpha fraction of a tick since the last tick, from 0 to 1
+     * @return the x position between the previous and the current position to draw the object at
+     */
+    public float getInterpolatedX(float alpha) {
+        return previousX + (initialX - previousX) * alpha;
+    }
+
+    public float getInterpolatedY(float alpha) {
+        return previousY + (initialY - previousY) * alpha;
+    }
+
     //Getters & Setters
 
     public int getHeight() {
@@ -102,30 +128,46 @@ public int getInitialX() {
     }
 
     public double getCurrentFrameX() {
-        return initialX / CELL_SIZE;
+        return getInitialX() / (double) Cell_Size;
     }
 
+    /**
+     * Moves the object without interpolation, like a teleport
+     */
     public void setInitialX(int initialX) {
         this.initialX = initialX;
+        this.previousX = initialX;
     }
 
     public int getFinalX() {
-        return initialX + width;
+        return getInitialX() + width;
     }
 
     public int getInitialY() {
         return initialY;
     }
     public double getCurrentFrameY() {
-        return initialY / CELL_SIZE;
+        return getInitialY() / (double) Cell_Size;
     }
 
     public void setInitialY(int initialY) {
         this.initialY = initialY;
+        this.previousY = initialY;
     }
 
     public int getFinalY() {
-        return initialY + height;
+        return getInitialY() + height;
+    }
+
+    /**
+     * @return the key of the SpatialIndex cell the object is in, NO_SPATIAL_CELL if it is in no index
+     */
+    public long getSpatialCell() {
+        return spatialCell;
+    }
+
+    public void setSpatialCell(long spatialCell) {
+        this.spatialCell = spatialCell;
     }
 
     public void setTextureRegion(TextureRegion textureRegion) {
@@ -2,17 +2,26 @@
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.Array;
 import com.hoogle.maze.MazeRunnerGame;
+import com.hoogle.maze.MovementResolver;
+import com.hoogle.maze.SpriteAtlas;
+import com.hoogle.maze.WallQuery;
 
 public class Player extends GameObject {
     public static final int STEP = 1;
+    /**
+     * Pixels the player moves per tick on each axis (-Dmaze.playerSpeed), the walls stop it at any speed
+     */
+    public static final int SPEED = Integer.getInteger("maze.playerSpeed", STEP);
+    // a move blocked by the corner of a wall pushes the player sideways, if the free lane is this close
+    private static final int CORNER_TOLERANCE = 6;
     public static final int TOTAL_NUMBER_OF_HEARTS = 4;
-    private boolean[][] wallMap;
+    // the position and the blocked moves are printed every frame with -Dmaze.debugMovement=true
+    private static final boolean DEBUG_MOVEMENT = Boolean.getBoolean("maze.debugMovement");
     private static Animation<TextureRegion> upAnimation;
     private static Animation<TextureRegion> downAnimation;
     private static Animation<TextureRegion> leftAnimation;
@@ -25,150 +34,96 @@ public class Player extends GameObject {
     public int numberOfHearts = TOTAL_NUMBER_OF_HEARTS;
     private Array<TextureRegion> lifeFrames = new Array<>();
     private final MazeRunnerGame game;
+    // the walls for the player, created once so a move allocates nothing
+    private final WallQuery solidTiles = this::isSolid;
+    private int speed = SPEED;
 
     // Constructors
-    public Player(MazeRunnerGame game, Skin skin, int height, int width, boolean[][] wallMap) {
+    public Player(MazeRunnerGame game, Skin skin, int height, int width) {
         super(height, width, skin);
         loadStaticCharacterAnimations();
         loadStaticCharacterLifeVariants();
         this.game = game;
-        this.wallMap = wallMap;
         hasAnimation = true;
         setCurrentAnimation(downAnimation);
         setFullLife();
     }
 
-    public Player(MazeRunnerGame game, Skin skin, int initialX, int initialY, int height, int width, boolean[][] wallMap) {
-        this(game, skin, height, width, wallMap);
-        this.initialX = initialX;
-        this.initialY = initialY;
+    public Player(MazeRunnerGame game, Skin skin, int initialX, int initialY, int height, int width) {
+        this(game, skin, height, width);
+        setInitialX(initialX);
+        setInitialY(initialY);
     }
 
     // Methods
 
     /**
-     * This method deals with main character movement and changes his animation
+     * This method deals with main character movement and changes his animation.
+     * The arrow keys give the direction, two of them move diagonally. The box of the player is swept through the
+     * tile grid by the MovementResolver, so it stops at the walls and slides along them.
      */
     public void handleMovement() {
-        setCurrentAnimation(downAnimation);
-
-        int frameX = (int) getCurrentFrameX();
-        int frameY = (int) getCurrentFrameY();
-
-        System.out.println("current position: (" + frameX + ", " + frameY + ")");
-
-        if (Gdx.input.isKeyPressed(Input.Keys.UP) && !wallMap[frameX][frameY + 1] ) {
+        int dx = 0;
+        int dy = 0;
+        if (Gdx.input.isKeyPressed(Input.Keys.UP))
+            dy += speed;
+        if (Gdx.input.isKeyPressed(Input.Keys.DOWN))
+            dy -= speed;
+        if (Gdx.input.isKeyPressed(Input.Keys.LEFT))
+            dx -= speed;
+        if (Gdx.input.isKeyPressed(Input.Keys.RIGHT))
+            dx += speed;
+
+        int oldX = initialX;
+        int oldY = initialY;
+        initialX = MovementResolver.sweepX(solidTiles, initialX, initialY, width, height, dx);
+        initialY = MovementResolver.sweepY(solidTiles, initialX, initialY, width, height, dy);
+        if (initialX == oldX && dx != 0 && dy == 0)
+            initialY = slideAroundCorner(dx, 0);
+        else if (initialY == oldY && dy != 0 && dx == 0)
+            initialX = slideAroundCorner(0, dy);
+
+        if (initialY > oldY)
             setCurrentAnimation(upAnimation);
-            initialY += STEP;
-        }
-        else if (Gdx.input.isKeyPressed(Input.Keys.LEFT) && frameX >= 0 && !wallMap[frameX][frameY]) {
+        else if (initialX < oldX)
             setCurrentAnimation(leftAnimation);
-            initialX -= STEP;
-        }
-        else if (Gdx.input.isKeyPressed(Input.Keys.RIGHT) && !wallMap[frameX + 1][frameY]) {
+        else if (initialX > oldX)
             setCurrentAnimation(rightAnimation);
-            initialX += STEP;
-        }
-        else if (Gdx.input.isKeyPressed(Input.Keys.DOWN) && !wallMap[frameX][frameY - 1]) {
+        else
             setCurrentAnimation(downAnimation);
-            initialY -= STEP;
-        }  else {
-            System.out.println("COLLISION at" + initialX + initialY);
-        }
 
-    }
-
-    private boolean isWallCollision(int nextX, int nextY) {
-        for (int[] wallArray : game.getMapLoader().getWallCoordinates()) {
-            int mapX = wallArray[0];
-            int mapY = wallArray[1];
-
-            if (mapX == nextX && mapY == nextY) {
-                return true;
-            }
+        if (DEBUG_MOVEMENT) {
+            System.out.println("current position: (" + initialX + ", " + initialY + ")");
+            if ((dx != 0 || dy != 0) && initialX == oldX && initialY == oldY)
+                System.out.println("COLLISION at" + initialX + initialY);
         }
-        return false;
     }
 
-    /*public void handleMovementWithWalls() {
-
-        setCurrentAnimation(downAnimation);
-
-        int newX = initialX;
-        int newY = initialY;
-
-        if (Gdx.input.isKeyPressed(Input.Keys.UP)) {
-
-            setCurrentAnimation(upAnimation);
-
-            if (initialY + height < Gdx.graphics.getHeight()) {
-                newY += STEP;
-            }
-        }
-
-        if (Gdx.input.isKeyPressed(Input.Keys.LEFT)) {
-            setCurrentAnimation(leftAnimation);
-            if (initialX > 0) {
-                newX -= STEP;
-            }
-        }
-
-        if (Gdx.input.isKeyPressed(Input.Keys.RIGHT)) {
-            setCurrentAnimation(rightAnimation);
-
-            if (initialX + 64 < Gdx.graphics.getWidth()) {
-                newX += STEP;
-            }
-        }
-
-        if (Gdx.input.isKeyPressed(Input.Keys.DOWN)) {
-            setCurrentAnimation(downAnimation);
-
-            if (initialY > 0) {
-                newY -= STEP;
+    /**
+     * Pushes the player sideways towards a free lane next to the wall that blocked a move along one axis, when the
+     * lane is at most CORNER_TOLERANCE pixels away, so the player does not need to be aligned to the pixel to turn
+     * into a corridor
+     * @return the new y for a blocked move along x (dx != 0), or the new x for a blocked move along y
+     */
+    private int slideAroundCorner(int dx, int dy) {
+        for (int offset = 1; offset <= CORNER_TOLERANCE; offset++) {
+            for (int side = -1; side <= 1; side += 2) {
+                int shift = side * offset;
+                if (dx != 0 && MovementResolver.isFree(solidTiles, initialX + Integer.signum(dx), initialY + shift, width, height))
+                    return MovementResolver.sweepY(solidTiles, initialX, initialY, width, height, side * Math.min(offset, speed));
+                if (dy != 0 && MovementResolver.isFree(solidTiles, initialX + shift, initialY + Integer.signum(dy), width, height))
+                    return MovementResolver.sweepX(solidTiles, initialX, initialY, width, height, side * Math.min(offset, speed));
             }
         }
-
-        // Check for wall collision before updating the player's position
-        if (!isCollidingWithWall(newX, newY)) {
-            // Update the player's position if there's no wall collision
-            initialX = newX;
-            initialY = newY;
-        }
-        //else System.out.println("no collision happening");
+        return dx != 0 ? initialY : initialX;
     }
 
-    public boolean isCollidingWithWall(int newX, int newY) {
-        int playerWidth = this.width;
-        int playerHeight = this.height;
-        int tolerance = 5; // Define the tolerance value
-
-        for (int[] wallCoord : game.getMapLoader().getWallCoordinates()) {
-            int wallX = wallCoord[0];
-            int wallY = wallCoord[1];
-            int wallWidth = Cell_Size;
-            int wallHeight = Cell_Size;
-
-            // Expand player bounds by tolerance
-            int playerLeft = newX - tolerance;
-            int playerRight = newX + playerWidth + tolerance;
-            int playerTop = newY - tolerance;
-            int playerBottom = newY + playerHeight + tolerance;
-
-            // Check if expanded player bounds intersect with wall
-            boolean overlapX = playerRight > wallX && playerLeft < wallX + wallWidth;
-            boolean overlapY = playerBottom > wallY && playerTop < wallY + wallHeight;
-
-            if (overlapX && overlapY) {
-                Gdx.app.log("Collision", "Collision with wall at X: " + wallX + ", Y: " + wallY);
-                return true; // Collision detected
-            }
-        }
-        Gdx.app.log("Collision", "No collision at X: " + newX + ", Y: " + newY);
-        return false; // No collision
-    }*/
-
-
+    /**
+     * @return true if the player cannot enter the tile: walls, the entry, and the exit until the key was found
+     */
+    private boolean isSolid(int x, int y) {
+        return game.hasWallAt(x, y) && !(hasKey && game.hasExitAt(x, y));
+    }
 
     /**
      * This method calls for different actions depending on the GameObject that collided with the player
@@ -216,23 +171,23 @@ public void decrementHearts() {
      * Loads the character life variants
      */
     public static void loadStaticCharacterLifeVariants() {
-        Texture objects = new Texture(Gdx.files.internal("objects.png"));
-
-        int frameWidth = 16;
-        int frameHeight = 16;
-
-        fullHeart = new TextureRegion(objects, 4 * frameWidth, 0, frameWidth, frameHeight);
-        emptyHeart = new TextureRegion(objects, 8 * frameWidth, 0, frameWidth, frameHeight);
+        if (fullHeart != null)
+            return;
+        fullHeart = SpriteAtlas.findRegion("heart-full");
+        emptyHeart = SpriteAtlas.findRegion("heart-empty");
     }
 
     /**
-     * Calls for the loadAnimationsFromFile from the upper class and loads the character animation from the character.png file.
+     * Calls for the loadAnimation from the upper class and loads the character animations from the sprite atlas.
+     * They are shared by every Player and kept for the whole game.
      */
     private static void loadStaticCharacterAnimations() {
-        downAnimation = loadAnimationsFromFile("character.png", 4, .1f, 16, 32, 0, 0);
-        rightAnimation = loadAnimationsFromFile("character.png", 4, .1f, 16, 32, 0, 32);
-        upAnimation = loadAnimationsFromFile("character.png", 4, .1f, 16, 32, 0, 64);
-        leftAnimation = loadAnimationsFromFile("character.png", 4, .1f, 16, 32, 0, 96);
+        if (downAnimation != null)
+            return;
+        downAnimation = loadAnimation("player-down", .1f);
+        rightAnimation = loadAnimation("player-right", .1f);
+        upAnimation = loadAnimation("player-up", .1f);
+        leftAnimation = loadAnimation("player-left", .1f);
     }
 
     // Getters & Setters
@@ -268,5 +223,16 @@ public void setHasKey(boolean hasKey) {
         this.hasKey = hasKey;
     }
 
+    public int getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @param speed pixels per tick on each axis
+     */
+    public void setSpeed(int speed) {
+        this.speed = speed;
+    }
+
 }
 
@@ -2,10 +2,12 @@
 
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
-import com.badlogic.gdx.utils.TimeUtils;
+import com.hoogle.maze.SimulationClock;
 
 public class Trap extends GameObject {
     public static final long DEATH_COOLDOWN_IN_MILLIS = 4000;
+    // the inactivations and reactivations are printed with -Dmaze.debugEvents=true
+    private static final boolean DEBUG_EVENTS = Boolean.getBoolean("maze.debugEvents");
     private boolean active;
     private long inactiveTimeInMillis;
 
@@ -34,37 +36,38 @@ public void handleColision(GameObject gameObject) {
      * If time since the inactivation is greater than DEATH_COOLDOWN_IN_MILLIS, it activates the trap again
      */
     public void tryReactivate() {
-        if(active)  return;
-
-        if(TimeUtils.timeSinceMillis(this.inactiveTimeInMillis) < DEATH_COOLDOWN_IN_MILLIS)
+        if (!canReactivate())
             return;
 
-        System.out.println("reactivating...");
+        if (DEBUG_EVENTS)
+            System.out.println("reactivating...");
         this.active = true;
         this.inactiveTimeInMillis = 0;
     }
 
+    /**
+     * @return true if the trap is inactive since more than DEATH_COOLDOWN_IN_MILLIS, only reads the trap
+     */
+    public boolean canReactivate() {
+        return !active && SimulationClock.timeSinceMillis(this.inactiveTimeInMillis) >= DEATH_COOLDOWN_IN_MILLIS;
+    }
+
     /**
      * Inactivates trap and starts counting the time since the inactivation
      */
     private void inactivate() {
         this.active = false;
-        this.inactiveTimeInMillis = TimeUtils.millis();
-        System.out.println("Inactivate Moment: " + inactiveTimeInMillis);
+        this.inactiveTimeInMillis = SimulationClock.millis();
+        if (DEBUG_EVENTS)
+            System.out.println("Inactivate Moment: " + inactiveTimeInMillis);
     }
 
     /**
-     * Calls for the loadAnimationsFromFile from the upper class and loads the character animation from the objects.png file.
+     * Calls for the loadAnimation from the upper class and loads the animation of the trap from the sprite atlas.
      */
     public void loadCharacterAnimations() {
         hasAnimation = true;
-        int frameHeight = 16;
-        int frameWidth = 16;
-
-        int y = 3*frameHeight;
-        int x = 4*frameWidth;
-
-        currentAnimation = loadAnimationsFromFile("objects.png", 7, .1f, frameWidth, frameHeight, x, y);
+        currentAnimation = loadAnimation("trap", .1f);
     }
 
     //Getters & Setters
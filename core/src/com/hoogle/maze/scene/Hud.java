@@ -9,18 +9,35 @@
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import com.hoogle.maze.MazeRunnerGame;
+import com.hoogle.maze.SpriteAtlas;
+import com.hoogle.maze.map.LoadedLevel;
+import com.hoogle.maze.map.TileDiff;
+import com.hoogle.maze.map.TileSource;
 import com.hoogle.maze.screens.GameScreen;
 
 import static com.hoogle.maze.models.Player.TOTAL_NUMBER_OF_HEARTS;
 
 public class Hud {
+    /**
+     * Shows the minimap on every maze (-Dmaze.minimap=true), not only on mazes of at least Minimap.MIN_MAZE_SIZE tiles
+     */
+    public static final boolean ALWAYS_SHOW_MINIMAP = Boolean.getBoolean("maze.minimap");
+    private static final float MINIMAP_SIZE = 160;
+    private static final float MINIMAP_MARGIN = 4;
+
     private Viewport viewportHUD;
     private GameScreen gameScreen;
-    private TextureRegion bigKey;
+    private final TextureRegion bigKey;
+    // the text is drawn from the sprite atlas, like everything else in the frame
+    private final BitmapFont font;
+    private final Label keyStatus;
     private MazeRunnerGame game;
     private OrthographicCamera camerHUD;
     public int numberOfHearts = TOTAL_NUMBER_OF_HEARTS;
     private Array<TextureRegion> lifeFrames = new Array<>();
+    // minimap of the current level and the tiles it was rendered from, null if the maze is too small
+    private Minimap minimap;
+    private TileSource minimapTiles;
 
 
     public Hud(MazeRunnerGame game, GameScreen gameScreen) {
@@ -30,6 +47,12 @@ public Hud(MazeRunnerGame game, GameScreen gameScreen) {
         camerHUD.setToOrtho(false, gameScreen.getViewport().getWorldWidth(), gameScreen.getViewport().getWorldHeight());
         viewportHUD = new FitViewport(gameScreen.getViewport().getWorldWidth(), gameScreen.getViewport().getWorldHeight(), gameScreen.getViewport().getCamera());
 
+        bigKey = SpriteAtlas.findRegion("key-big");
+        font = SpriteAtlas.createFont();
+        keyStatus = new Label("YOU HAVE NO KEY!", new Label.LabelStyle(font, Color.WHITE));
+        keyStatus.setPosition(120, 4);
+        loadMinimap();
+
         //https://www.youtube.com/watch?v=7idwNW5a8Qs
 
     }
@@ -41,6 +64,7 @@ public void render() {
 
         drawLifeFrames();
         drawKey();
+        drawMinimap();
 
 
     }
@@ -60,22 +84,63 @@ private void drawLifeFrames() {
 
     private void drawKey() {
         if(!game.getPlayer().hasKey()) {
-            BitmapFont font = new BitmapFont(); // Create a BitmapFont instance
-            Label.LabelStyle labelStyle = new Label.LabelStyle(font, Color.WHITE);
-
-            Label keyStatus = new Label("YOU HAVE NO KEY!", labelStyle);
-            keyStatus.setPosition(120, 4);
-
             keyStatus.draw(game.getSpriteBatch(), 1); // Draw the label
-
         }
 
         else {
-            bigKey = new TextureRegion(GameScreen.bigKey, 0, 0, 32, 32); // define the Textureregion for WALLS
             game.getSpriteBatch().draw(bigKey,120,4);
         }
     }
 
+    /**
+     * Renders the minimap again when the level changed, the tiles are compared by reference so this costs nothing
+     * on the frames of the same level
+     */
+    private void loadMinimap() {
+        LoadedLevel level = game.getCurrentLevel();
+        TileSource tiles = level == null ? null : level.getTiles();
+        if (tiles == minimapTiles)
+            return;
+
+        if (minimap != null) {
+            minimap.dispose();
+            minimap = null;
+        }
+        minimapTiles = tiles;
+        if (tiles != null && level.getMinimapWalls() != null)
+            minimap = new Minimap(tiles, level.getMinimapWalls());
+    }
+
+    private void drawMinimap() {
+        loadMinimap();
+        if (minimap == null)
+            return;
+
+        minimap.update(game.getPlayer(), game.getEnemyIndex(), game.getKey(), game.getExit());
+        float scale = MINIMAP_SIZE / Math.max(minimap.getWidth(), minimap.getHeight());
+        float x = camerHUD.viewportWidth - MINIMAP_MARGIN - minimap.getWidth() * scale;
+        float y = camerHUD.viewportHeight - MINIMAP_MARGIN - minimap.getHeight() * scale;
+        minimap.draw(game.getSpriteBatch(), x, y, MINIMAP_SIZE);
+    }
+
+    /**
+     * Renders the tiles changed by a hot reload of the maze file into the minimap, keeping the explored area
+     */
+    public void changeTiles(TileSource tiles, TileDiff diff) {
+        if (minimap != null && minimapTiles != null) {
+            minimap.changeTiles(tiles, diff);
+            minimapTiles = tiles;
+        }
+    }
+
+    public void dispose() {
+        if (minimap != null) {
+            minimap.dispose();
+            minimap = null;
+        }
+        minimapTiles = null;
+    }
+
     public void deleteKey(){
 
     }
@@ -109,7 +174,12 @@ public void resize() {
     camerHUD.setToOrtho(false);
 }
 
+    //Getters
 
+    /**
+     * @return the minimap of the current level, or null if it has none
+     */
+    public Minimap getMinimap() {
+        return minimap;
+    }
 }
-
-
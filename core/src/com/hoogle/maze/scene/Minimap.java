@@ -0,0 +1,412 @@
+package com.hoogle.maze.scene;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
+import com.hoogle.maze.SpatialIndex;
+import com.hoogle.maze.map.TileDiff;
+import com.hoogle.maze.map.TileSource;
+import com.hoogle.maze.map.TileType;
+import com.hoogle.maze.models.Enemy;
+import com.hoogle.maze.models.GameObject;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Minimap of the maze in the HUD: walls, the explored area, the key, the exit, the enemies and the player.
+ * The walls are downsampled by the level loader on its thread and rendered into a Pixmap once when the level starts,
+ * paged levels have no minimap: downsampling them would read the whole file. Every frame only the pixels that changed
+ * (markers that moved, newly explored tiles) are written into the Pixmap and uploaded as small sub-rectangles
+ * of the texture, the rest of the texture is never touched again.
+ * Mazes wider or higher than MAX_SIZE tiles are downsampled: one pixel stands for a square of tilesPerPixel x
+ * tilesPerPixel tiles, and is a wall when at least half of them are walls.
+ * Only the enemies within ENEMY_MARKER_RADIUS tiles of the player are shown, they are looked up in the spatial index
+ * so a frame does not go through every enemy of the level.
+ */
+public class Minimap implements Disposable {
+
+    /**
+     * Largest side of the minimap texture in pixels
+     */
+    public static final int MAX_SIZE = 256;
+    /**
+     * Mazes with a side of at least this many tiles get a minimap
+     */
+    public static final int MIN_MAZE_SIZE = 64;
+    /**
+     * Tiles around the player that count as explored
+     */
+    public static final int EXPLORE_RADIUS = 6;
+    /**
+     * Tiles around the player in which the enemies are shown, in both directions
+     */
+    public static final int ENEMY_MARKER_RADIUS = 48;
+
+    // more dirty rectangles than this in one frame are uploaded as the whole texture
+    private static final int MAX_DIRTY_RECTS = 64;
+
+    private static final int UNEXPLORED = Color.rgba8888(0, 0, 0, 0.5f);
+    private static final int UNEXPLORED_WALL = Color.rgba8888(0.3f, 0.3f, 0.3f, 0.8f);
+    private static final int EXPLORED = Color.rgba8888(0.1f, 0.1f, 0.25f, 0.8f);
+    private static final int EXPLORED_WALL = Color.rgba8888(0.75f, 0.75f, 0.75f, 1);
+    private static final int PLAYER = Color.rgba8888(Color.RED);
+    private static final int ENEMY = Color.rgba8888(Color.MAGENTA);
+    private static final int KEY = Color.rgba8888(Color.GOLD);
+    private static final int EXIT = Color.rgba8888(Color.GREEN);
+
+    private final int mazeWidth;
+    private final int mazeHeight;
+    private final int tilesPerPixel;
+    private final int width;
+    private final int height;
+    private final Pixmap pixmap;
+    private final Texture texture;
+    private final boolean[] walls;
+    private final boolean[] explored;
+    // pixels covered by markers in the last frame and this frame, with the color they were painted in
+    private IntArray markerPixels = new IntArray();
+    private IntArray nextMarkerPixels = new IntArray();
+    private final IntArray dirtyRects = new IntArray();
+    private final Array<Enemy> nearbyEnemies = new Array<>(false, 64);
+    private final ByteBuffer uploadBuffer;
+    private int lastExploredX = Integer.MIN_VALUE;
+    private int lastExploredY = Integer.MIN_VALUE;
+    private int uploadedPixels;
+
+    /**
+     * Renders the walls of the maze into the minimap, must be called on the render thread
+     * @param walls the walls downsampled by downsampleWalls(TileSource) on the loader thread, they are copied
+     */
+    public Minimap(TileSource tiles, boolean[] walls) {
+        mazeWidth = tiles.getWidth();
+        mazeHeight = tiles.getHeight();
+        tilesPerPixel = tilesPerPixelFor(mazeWidth, mazeHeight);
+        width = sideFor(mazeWidth, tilesPerPixel);
+        height = sideFor(mazeHeight, tilesPerPixel);
+
+        this.walls = walls.clone();
+        explored = new boolean[width * height];
+
+        pixmap = new Pixmap(width, height, Pixmap.Format.RGBA8888);
+        pixmap.setBlending(Pixmap.Blending.None);
+        for (int pixel = 0; pixel < walls.length; pixel++) {
+            pixmap.drawPixel(pixel % width, pixel / width, baseColor(pixel));
+        }
+        texture = new Texture(pixmap);
+        uploadBuffer = BufferUtils.newByteBuffer(width * height * 4);
+    }
+
+    /**
+     * @return true if the maze is big enough to need a minimap
+     */
+    public static boolean isUseful(TileSource tiles) {
+        return Math.max(tiles.getWidth(), tiles.getHeight()) >= MIN_MAZE_SIZE;
+    }
+
+    /**
+     * @return the number of tiles along the side of the square one pixel stands for, 1 if the maze fits into MAX_SIZE
+     */
+    public static int tilesPerPixelFor(int mazeWidth, int mazeHeight) {
+        int side = Math.max(mazeWidth, mazeHeight);
+        return Math.max(1, (side + MAX_SIZE - 1) / MAX_SIZE);
+    }
+
+    private static int sideFor(int mazeSide, int tilesPerPixel) {
+        return Math.max(1, (mazeSide + tilesPerPixel - 1) / tilesPerPixel);
+    }
+
+    /**
+     * Downsamples the walls of a whole maze for its minimap, reads every tile so it runs on the loader thread
+     * @return for each pixel of the minimap, row 0 at the top, if at least half of its tiles are walls
+     */
+    public static boolean[] downsampleWalls(TileSource tiles) {
+        int tilesPerPixel = tilesPerPixelFor(tiles.getWidth(), tiles.getHeight());
+        return downsampleWalls(tiles, tilesPerPixel, sideFor(tiles.getWidth(), tilesPerPixel),
+                sideFor(tiles.getHeight(), tilesPerPixel));
+    }
+
+    /**
+     * @return for each pixel of a width x height minimap, row 0 at the top, if at least half of its tiles are walls
+     */
+    public static boolean[] downsampleWalls(TileSource tiles, int tilesPerPixel, int width, int height) {
+        int[] wallCounts = new int[width * height];
+        for (int tileY = 0; tileY < tiles.getHeight(); tileY++) {
+            int rowStart = (height - 1 - tileY / tilesPerPixel) * width;
+            for (int tileX = 0; tileX < tiles.getWidth(); tileX++) {
+                if (tiles.get(tileX, tileY) == TileType.WALL)
+                    wallCounts[rowStart + tileX / tilesPerPixel]++;
+            }
+        }
+
+        boolean[] walls = new boolean[width * height];
+        int half = (tilesPerPixel * tilesPerPixel + 1) / 2;
+        for (int pixel = 0; pixel < walls.length; pixel++) {
+            walls[pixel] = wallCounts[pixel] >= half;
+        }
+        return walls;
+    }
+
+    /**
+     * Explores the tiles around the player and moves the markers, then uploads the changed pixels
+     * @param player the player, explores the tiles around it
+     * @param enemyIndex enemies by tile, only the living ones close to the player are shown
+     * @param key the key, null once it was collected
+     * @param exit the exit, or null
+     */
+    public void update(GameObject player, SpatialIndex<Enemy> enemyIndex, GameObject key, GameObject exit) {
+        int playerTileX = (int) player.getCurrentFrameX();
+        int playerTileY = (int) player.getCurrentFrameY();
+        if (playerTileX != lastExploredX || playerTileY != lastExploredY) {
+            exploreAround(playerTileX, playerTileY, EXPLORE_RADIUS);
+            lastExploredX = playerTileX;
+            lastExploredY = playerTileY;
+        }
+
+        nextMarkerPixels.clear();
+        if (exit != null)
+            addMarker(exit, EXIT);
+        if (key != null)
+            addMarker(key, KEY);
+        nearbyEnemies.clear();
+        enemyIndex.query(playerTileX, playerTileY, ENEMY_MARKER_RADIUS, nearbyEnemies);
+        for (int i = 0; i < nearbyEnemies.size; i++) {
+            Enemy enemy = nearbyEnemies.get(i);
+            if (enemy.isAlive())
+                addMarker(enemy, ENEMY);
+        }
+        nearbyEnemies.clear();
+        addMarker(player, PLAYER);
+        moveMarkers();
+
+        upload();
+    }
+
+    /**
+     * Marks the tiles in a circle around (tileX, tileY) as explored
+     */
+    public void exploreAround(int tileX, int tileY, int radius) {
+        int minX = -1;
+        int minY = -1;
+        int maxX = -1;
+        int maxY = -1;
+        for (int y = Math.max(0, tileY - radius); y <= Math.min(mazeHeight - 1, tileY + radius); y++) {
+            for (int x = Math.max(0, tileX - radius); x <= Math.min(mazeWidth - 1, tileX + radius); x++) {
+                int dx = x - tileX;
+                int dy = y - tileY;
+                if (dx * dx + dy * dy > radius * radius)
+                    continue;
+
+                int pixelX = x / tilesPerPixel;
+                int pixelY = height - 1 - y / tilesPerPixel;
+                int pixel = pixelY * width + pixelX;
+                if (explored[pixel])
+                    continue;
+                explored[pixel] = true;
+                pixmap.drawPixel(pixelX, pixelY, baseColor(pixel));
+                if (minX < 0) {
+                    minX = maxX = pixelX;
+                    minY = maxY = pixelY;
+                } else {
+                    minX = Math.min(minX, pixelX);
+                    maxX = Math.max(maxX, pixelX);
+                    minY = Math.min(minY, pixelY);
+                    maxY = Math.max(maxY, pixelY);
+                }
+            }
+        }
+        if (minX >= 0)
+            addDirtyRect(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+
+    /**
+     * Downsamples only the pixels of the changed tiles again, for an edited maze of the same size
+     * @param walls the walls downsampled by downsampleWalls(TileSource) before the edit, they are copied
+     * @return the walls of the edited maze
+     */
+    public static boolean[] changeWalls(boolean[] walls, TileSource tiles, TileDiff diff) {
+        int tilesPerPixel = tilesPerPixelFor(tiles.getWidth(), tiles.getHeight());
+        int width = sideFor(tiles.getWidth(), tilesPerPixel);
+        int height = sideFor(tiles.getHeight(), tilesPerPixel);
+        boolean[] changedWalls = walls.clone();
+        for (int change = 0; change < diff.size(); change++) {
+            if (changesWall(diff, change)) {
+                int pixelX = diff.getX(change) / tilesPerPixel;
+                int pixelY = height - 1 - diff.getY(change) / tilesPerPixel;
+                changedWalls[pixelY * width + pixelX] = isWallPixel(tiles, tilesPerPixel, height, pixelX, pixelY);
+            }
+        }
+        return changedWalls;
+    }
+
+    /**
+     * Renders the changed tiles of an edited maze of the same size again
+     */
+    public void changeTiles(TileSource tiles, TileDiff diff) {
+        for (int change = 0; change < diff.size(); change++) {
+            if (!changesWall(diff, change))
+                continue;
+
+            // the pixel of a downsampled block is counted again
+            int pixelX = diff.getX(change) / tilesPerPixel;
+            int pixelY = height - 1 - diff.getY(change) / tilesPerPixel;
+            int pixel = pixelY * width + pixelX;
+            walls[pixel] = isWallPixel(tiles, tilesPerPixel, height, pixelX, pixelY);
+            pixmap.drawPixel(pixelX, pixelY, baseColor(pixel));
+            addDirtyRect(pixelX, pixelY, 1, 1);
+        }
+    }
+
+    private static boolean changesWall(TileDiff diff, int change) {
+        return (diff.getOldType(change) == TileType.WALL) != (diff.getNewType(change) == TileType.WALL);
+    }
+
+    // counts the walls of the tiles of a pixel, row 0 of the pixels is at the top
+    private static boolean isWallPixel(TileSource tiles, int tilesPerPixel, int height, int pixelX, int pixelY) {
+        int wallCount = 0;
+        for (int y = 0; y < tilesPerPixel; y++) {
+            for (int x = 0; x < tilesPerPixel; x++) {
+                if (tiles.get(pixelX * tilesPerPixel + x, (height - 1 - pixelY) * tilesPerPixel + y) == TileType.WALL)
+                    wallCount++;
+            }
+        }
+        return wallCount >= (tilesPerPixel * tilesPerPixel + 1) / 2;
+    }
+
+    /**
+     * Draws the minimap with its longer side displaySize pixels long
+     */
+    public void draw(SpriteBatch batch, float x, float y, float displaySize) {
+        float scale = displaySize / Math.max(width, height);
+        batch.draw(texture, x, y, width * scale, height * scale);
+    }
+
+    private void addMarker(GameObject gameObject, int color) {
+        int tileX = (int) gameObject.getCurrentFrameX();
+        int tileY = (int) gameObject.getCurrentFrameY();
+        if (tileX < 0 || tileY < 0 || tileX >= mazeWidth || tileY >= mazeHeight)
+            return;
+        int pixel = (height - 1 - tileY / tilesPerPixel) * width + tileX / tilesPerPixel;
+        nextMarkerPixels.add(pixel);
+        nextMarkerPixels.add(color);
+    }
+
+    /**
+     * Restores the pixels markers left and paints the markers at their new pixels. Markers that stayed on the same
+     * pixel with the same color are not uploaded again
+     */
+    private void moveMarkers() {
+        for (int i = 0; i < markerPixels.size; i += 2) {
+            if (i < nextMarkerPixels.size && markerPixels.get(i) == nextMarkerPixels.get(i)
+                    && markerPixels.get(i + 1) == nextMarkerPixels.get(i + 1))
+                continue;
+            int pixel = markerPixels.get(i);
+            pixmap.drawPixel(pixel % width, pixel / width, baseColor(pixel));
+            addDirtyRect(pixel % width, pixel / width, 1, 1);
+        }
+        // every marker is painted again, one may sit on a pixel another one just left
+        for (int i = 0; i < nextMarkerPixels.size; i += 2) {
+            int pixel = nextMarkerPixels.get(i);
+            pixmap.drawPixel(pixel % width, pixel / width, nextMarkerPixels.get(i + 1));
+            boolean moved = i >= markerPixels.size || markerPixels.get(i) != pixel
+                    || markerPixels.get(i + 1) != nextMarkerPixels.get(i + 1);
+            if (moved)
+                addDirtyRect(pixel % width, pixel / width, 1, 1);
+        }
+
+        IntArray swap = markerPixels;
+        markerPixels = nextMarkerPixels;
+        nextMarkerPixels = swap;
+    }
+
+    private void addDirtyRect(int x, int y, int rectWidth, int rectHeight) {
+        dirtyRects.add(x, y, rectWidth, rectHeight);
+    }
+
+    /**
+     * Uploads the dirty rectangles of the Pixmap with glTexSubImage2D, or the whole Pixmap if there are too many
+     */
+    private void upload() {
+        uploadedPixels = 0;
+        if (dirtyRects.size == 0)
+            return;
+
+        if (dirtyRects.size / 4 > MAX_DIRTY_RECTS) {
+            texture.draw(pixmap, 0, 0);
+            uploadedPixels = width * height;
+            dirtyRects.clear();
+            return;
+        }
+
+        texture.bind();
+        Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+        ByteBuffer pixels = pixmap.getPixels();
+        for (int i = 0; i < dirtyRects.size; i += 4) {
+            int x = dirtyRects.get(i);
+            int y = dirtyRects.get(i + 1);
+            int rectWidth = dirtyRects.get(i + 2);
+            int rectHeight = dirtyRects.get(i + 3);
+
+            // the rows of the rectangle are copied next to each other, GL ES 2 cannot skip the rest of a row
+            uploadBuffer.clear();
+            for (int row = 0; row < rectHeight; row++) {
+                uploadBuffer.put(row * rectWidth * 4, pixels, ((y + row) * width + x) * 4, rectWidth * 4);
+            }
+            uploadBuffer.limit(rectWidth * rectHeight * 4);
+            Gdx.gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, x, y, rectWidth, rectHeight,
+                    GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE, uploadBuffer);
+            uploadedPixels += rectWidth * rectHeight;
+        }
+        dirtyRects.clear();
+    }
+
+    private int baseColor(int pixel) {
+        if (explored[pixel])
+            return walls[pixel] ? EXPLORED_WALL : EXPLORED;
+        return walls[pixel] ? UNEXPLORED_WALL : UNEXPLORED;
+    }
+
+    @Override
+    public void dispose() {
+        texture.dispose();
+        pixmap.dispose();
+    }
+
+    //Getters
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getTilesPerPixel() {
+        return tilesPerPixel;
+    }
+
+    /**
+     * @return the number of pixels uploaded in the last update
+     */
+    public int getUploadedPixels() {
+        return uploadedPixels;
+    }
+
+    /**
+     * @return true if the tile was explored
+     */
+    public boolean isExplored(int tileX, int tileY) {
+        return explored[(height - 1 - tileY / tilesPerPixel) * width + tileX / tilesPerPixel];
+    }
+
+    public Pixmap getPixmap() {
+        return pixmap;
+    }
+}
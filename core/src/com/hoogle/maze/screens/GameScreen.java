@@ -4,32 +4,47 @@
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.ScreenUtils;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
+import com.hoogle.maze.FieldOfView;
 import com.hoogle.maze.GameState;
 import com.hoogle.maze.MapLoader;
 import com.hoogle.maze.MazeRunnerGame;
+import com.hoogle.maze.RenderStats;
+import com.hoogle.maze.SimulationClock;
+import com.hoogle.maze.SpatialIndex;
+import com.hoogle.maze.map.TileDiff;
+import com.hoogle.maze.map.TileSource;
 import com.hoogle.maze.models.*;
 import com.hoogle.maze.scene.Hud;
 
+import java.util.List;
+
+import static com.hoogle.maze.MapLoader.Cell_Size;
+
 /**
  * The GameScreen class is responsible for rendering the gameplay screen.
  * It handles the game logic and rendering of the game elements.
  */
 public class GameScreen implements Screen {
-    // Load the tiles using Gdx.files
-    public final static Texture tileSheet = new Texture(Gdx.files.internal("basictiles.png"));
-    // Load the objects using Gdx.files
-    public final static Texture objectSheet = new Texture(Gdx.files.internal("objects.png"));
-    public final static Texture keySheet = new Texture(Gdx.files.internal("key_small1.png"));
-    // Load the mobs using Gdx.files
-    public final static Texture mobsSheet = new Texture(Gdx.files.internal("mobs.png"));
-    public final static Texture bigKey = new Texture(Gdx.files.internal("key_big.png"));
+    /**
+     * Number of simulation ticks per second, the enemies and the player move one pixel per tick
+     */
+    public static final int TICKS_PER_SECOND = 60;
+    public static final float TICK_TIME = 1f / TICKS_PER_SECOND;
+    /**
+     * Factor of the game speed, to run the simulation faster for testing (-Dmaze.simulationSpeed=4)
+     */
+    public static final float SIMULATION_SPEED = Float.parseFloat(System.getProperty("maze.simulationSpeed", "1"));
+    private static final int MAX_TICKS_PER_FRAME = Math.max(5, (int) Math.ceil(5 * SIMULATION_SPEED));
+    // the collisions, the key and the exit are printed with -Dmaze.debugEvents=true
+    private static final boolean DEBUG_EVENTS = Boolean.getBoolean("maze.debugEvents");
 
     private boolean isMapLoaded = false;
     private boolean isWallLoaded = false;
@@ -41,13 +56,26 @@ public class GameScreen implements Screen {
     private Hud hud;
     private final BitmapFont font;
     private float sinusInput = 0f;
-    private Texture spriteSheet;
+    // time that has passed but was not simulated yet, less than one TICK_TIME after the ticks of a frame
+    private float accumulator;
     private Player player;
     private MapLoader mapLoader;
+    // part of the world the camera shows this frame, in pixels
+    private final Rectangle viewBounds = new Rectangle();
+    // part of the view the walls are drawn in, the explored part with fog of war
+    private final Rectangle wallBounds = new Rectangle();
+    // tiles the player sees, null without fog of war
+    private final FieldOfView fieldOfView;
+    private final RenderStats renderStats = new RenderStats();
+    private float renderStatsTimer;
+    // scratch collections of the collision checks, cleared every frame instead of allocated
+    private final Array<Enemy> enemiesWithCollision = new Array<>();
+    private final Array<Trap> trapsWithCollision = new Array<>();
+    private final Array<Enemy> enemiesNearPlayer = new Array<>();
+    private final Array<Trap> trapsNearPlayer = new Array<>();
+    private final Array<GameObject> objectsInView = new Array<>();
     private Exit exit;
-    int Cell_Size = 16;
     final float tolerance = 5.0f;
-    final float toleranceWall = 2.0f;
 
 
     /**
@@ -67,12 +95,13 @@ public GameScreen(MazeRunnerGame game, Player player) {
         viewport = new FitViewport(1000,600,camera);
 
         hud = new Hud(game, this);
+        fieldOfView = FieldOfView.ENABLED ? new FieldOfView(game::hasWallAt, FieldOfView.DEFAULT_RADIUS) : null;
 
         // Get the font from the game's skin
         font = game.getPlayer().getSkin().getFont("font");
         System.out.println("Height: " + Gdx.graphics.getHeight() + ", Width: " + Gdx.graphics.getWidth());
 
-        mapLoader = new MapLoader(game, this);
+        mapLoader = game.getMapLoader();
 
     }
 
@@ -88,106 +117,260 @@ public void render(float delta) {
                     game.setGameState(GameState.PAUSED);
                 }
 
+                // the game advances in fixed ticks, whatever the frame rate is
+                runTicks(delta);
+                // how far the simulation is between the last tick and the next one, positions are drawn in between
+                float alpha = accumulator / TICK_TIME;
+                if (fieldOfView != null)
+                    fieldOfView.update(getTileX(player), getTileY(player));
+
                 ScreenUtils.clear(0, 0, 0, 1); // Clear the screen
 
+                camera.position.set(player.getInterpolatedX(alpha) + (float) player.getWidth() / 2, player.getInterpolatedY(alpha) + (float) player.getHeight() / 2, 0); // fix camera on player
                 camera.update(); // Update the camera
+                updateViewBounds();
+                renderStats.reset();
                 //cameraHUD.update();
                 // Move text in a circular path to have an example of a moving object
                 sinusInput += delta;
                 float textX = (float) (camera.position.x + Math.sin(sinusInput) * 100);
                 float textY = (float) (camera.position.y + Math.cos(sinusInput) * 100);
 
+                // the walls are drawn from cached chunks before the sprite batch starts
+                if (updateWallBounds())
+                    mapLoader.drawWalls(camera, wallBounds, renderStats);
+
                 // Set up and begin drawing with the sprite batch
                 game.getSpriteBatch().setProjectionMatrix(camera.combined);
 
                 game.getSpriteBatch().begin(); // Important to call this before drawing anything
 
-                camera.position.set(player.getInitialX() + (float) player.getWidth() / 2, player.getInitialY() + (float) player.getHeight() / 2, 0); // fix camera on player
-
-
-                //calls the mapLoader only once to assure take objects are not duplicated
+                //the level is fully loaded before this screen is shown, only the music starts on the first frame
                 if (!isMapLoaded) {
-                    mapLoader.populateMap();
-                    mapLoader.loadWalls();
                     isMapLoaded = true;
-                    System.out.println("map loaded!");
                     game.getBackgroundMusic().setLooping(true);
                     game.getBackgroundMusic().play();
                 }
 
-                mapLoader.drawWalls();
 
+                mapLoader.drawOriginMarker(viewBounds);
 
-                //draws GameObjects (enemies are only drawn if they are alive
-                game.getGameObjects().forEach((gameObject -> {
-                    if (gameObject instanceof Enemy enemy) {
-                        if (enemy.isAlive()) {
-                            enemy.handleMovement();
-                            drawGameObject(enemy);
-                        }
-                    } else {
-                        drawGameObject(gameObject);
-                    }
-                }));
+                //draws GameObjects in the view (enemies are only drawn if they are alive)
+                queryObjectsInView();
+                for (int i = 0; i < objectsInView.size; i++) {
+                    GameObject gameObject = objectsInView.get(i);
+                    if (!(gameObject instanceof Enemy enemy) || enemy.isAlive())
+                        drawIfVisible(gameObject, alpha);
+                }
 
-                drawGameObject(game.getPlayer());
+                drawGameObject(game.getPlayer(), alpha);
                 hud.render();
 
+                game.getSpriteBatch().end(); // Important to call this after drawing everything
+                renderStats.addBatchRenderCalls(game.getSpriteBatch().renderCalls);
+                logRenderStats(delta);
+            }
 
-                //Deals with player movement
-                handlePlayerMovementTroughMap();
-                //Check if enemies can be drawn again
-                respawnEnemiesAfterCooldown();
-                //Check if traps can be activated again
-                reactivateTrapsAfterCooldown();
+            case LOST -> game.loseGame();
 
-                for (int[] coordinates : mapLoader.getExitCoordinates()) {
-                    int exitX = coordinates[0];
-                    int exitY = coordinates[1];
-                    float deltaX = Math.abs(player.getInitialX() - exitX);
-                    float deltaY = Math.abs(player.getInitialY() - exitY);
+            case WON -> game.winGame();
 
-                    if (deltaX <= tolerance && deltaY <= tolerance && player.hasKey()) {
-                        game.setGameState(GameState.WON);
+            case PAUSED -> game.goToIngameScreen();
 
-                    }
-                }
+        }
+    }
 
-                if (!player.isAlive()) {
-                    game.setGameState(GameState.LOST);
 
-                }
-                game.getSpriteBatch().end(); // Important to call this after drawing everything
+    /**
+     * Adds the time of the frame to the accumulator and runs a tick for every TICK_TIME in it.
+     * After a long frame at most MAX_TICKS_PER_FRAME ticks run and the rest of the time is dropped, so a slow
+     * simulation cannot fall further and further behind.
+     */
+    private void runTicks(float delta) {
+        accumulator += delta * SIMULATION_SPEED;
+        int ticks = 0;
+        while (accumulator >= TICK_TIME && game.getGameState() == GameState.RUNNING) {
+            if (ticks == MAX_TICKS_PER_FRAME) {
+                accumulator = 0;
+                break;
             }
+            tick();
+            accumulator -= TICK_TIME;
+            ticks++;
+        }
+    }
 
-            case LOST -> game.loseGame();
+    /**
+     * Advances the game by one TICK_TIME: moves the enemies and the player, handles collisions, cooldowns,
+     * the exit and the death of the player
+     */
+    public void tick() {
+        SimulationClock.advance(TICK_TIME);
+        player.savePreviousPosition();
+        EnemySystem enemySystem = game.getEnemySystem();
+        enemySystem.savePreviousPositions();
+
+        // pages the chunks around the player in and out on very large levels
+        if (game.getChunkedWorld() != null)
+            game.getChunkedWorld().update((int) player.getCurrentFrameX(), (int) player.getCurrentFrameY(), mapLoader);
+
+        // enemies move everywhere, also outside of the view, only the ones that entered another tile can change their cell
+        game.getParallelUpdater().moveEnemies(enemySystem);
+        IntArray crossedTiles = enemySystem.findCrossedTiles();
+        for (int i = 0; i < crossedTiles.size; i++) {
+            game.getEnemyIndex().update(enemySystem.getEnemy(crossedTiles.get(i)));
+        }
 
-            case WON -> game.winGame();
+        //Deals with player movement
+        handlePlayerMovementTroughMap();
+        //Check if enemies can be drawn again
+        respawnEnemiesAfterCooldown();
+        //Check if traps can be activated again
+        reactivateTrapsAfterCooldown();
 
-            case PAUSED -> game.goToIngameScreen();
+        List<int[]> exitCoordinates = mapLoader.getExitCoordinates();
+        for (int i = 0; i < exitCoordinates.size(); i++) {
+            int[] coordinates = exitCoordinates.get(i);
+            int exitX = coordinates[0];
+            int exitY = coordinates[1];
+            float deltaX = Math.abs(player.getInitialX() - exitX);
+            float deltaY = Math.abs(player.getInitialY() - exitY);
+
+            if (deltaX <= tolerance && deltaY <= tolerance && player.hasKey()) {
+                game.setGameState(GameState.WON);
+
+            }
+        }
+
+        if (!player.isAlive()) {
+            game.setGameState(GameState.LOST);
+
+        }
+    }
+
+    /**
+     * Sets viewBounds to the part of the world the camera shows
+     */
+    private void updateViewBounds() {
+        float width = camera.viewportWidth * camera.zoom;
+        float height = camera.viewportHeight * camera.zoom;
+        viewBounds.set(camera.position.x - width / 2, camera.position.y - height / 2, width, height);
+    }
+
+    /**
+     * Sets wallBounds to the view, or with fog of war to the part of the view around the explored tiles
+     * @return false if no explored tile is in view
+     */
+    private boolean updateWallBounds() {
+        if (fieldOfView == null) {
+            wallBounds.set(viewBounds);
+            return true;
+        }
+        if (fieldOfView.getExploredMinX() > fieldOfView.getExploredMaxX())
+            return false;
+
+        float minX = Math.max(viewBounds.x, fieldOfView.getExploredMinX() * Cell_Size);
+        float minY = Math.max(viewBounds.y, fieldOfView.getExploredMinY() * Cell_Size);
+        float maxX = Math.min(viewBounds.x + viewBounds.width, (fieldOfView.getExploredMaxX() + 1) * Cell_Size);
+        float maxY = Math.min(viewBounds.y + viewBounds.height, (fieldOfView.getExploredMaxY() + 1) * Cell_Size);
+        wallBounds.set(minX, minY, maxX - minX, maxY - minY);
+        return minX < maxX && minY < maxY;
+    }
+
+    /**
+     * Collects the objects of the spatial index cells that overlap the view, the objects in the rest of the level are
+     * not looked at. The view is widened by a tile because an enemy is indexed by its tile while it is drawn between
+     * its last two positions. Enemies come last, so they are drawn over the traps.
+     */
+    private void queryObjectsInView() {
+        int minTileX = Math.floorDiv((int) Math.floor(viewBounds.x), Cell_Size) - 1;
+        int minTileY = Math.floorDiv((int) Math.floor(viewBounds.y), Cell_Size) - 1;
+        int maxTileX = Math.floorDiv((int) Math.ceil(viewBounds.x + viewBounds.width), Cell_Size) + 1;
+        int maxTileY = Math.floorDiv((int) Math.ceil(viewBounds.y + viewBounds.height), Cell_Size) + 1;
+
+        objectsInView.clear();
+        game.getStaticObjectIndex().query(minTileX, minTileY, maxTileX, maxTileY, objectsInView);
+        game.getTrapIndex().query(minTileX, minTileY, maxTileX, maxTileY, objectsInView);
+        game.getEnemyIndex().query(minTileX, minTileY, maxTileX, maxTileY, objectsInView);
+    }
 
+    /**
+     * Draws a gameObject only if it overlaps the view of the camera, and counts it as drawn or culled.
+     * With fog of war, enemies are only drawn in the field of view and the other objects on explored tiles
+     */
+    private void drawIfVisible(GameObject gameObject, float alpha) {
+        boolean visible = gameObject.getInitialX() < viewBounds.x + viewBounds.width
+                && gameObject.getInitialX() + gameObject.getWidth() > viewBounds.x
+                && gameObject.getInitialY() < viewBounds.y + viewBounds.height
+                && gameObject.getInitialY() + gameObject.getHeight() > viewBounds.y;
+        if (visible && fieldOfView != null) {
+            int tileX = getTileX(gameObject);
+            int tileY = getTileY(gameObject);
+            visible = gameObject instanceof Enemy ? fieldOfView.isVisible(tileX, tileY) : fieldOfView.isExplored(tileX, tileY);
         }
+        if (visible)
+            drawGameObject(gameObject, alpha);
+        renderStats.addObject(visible);
     }
 
+    /**
+     * @return the tile under the center of a gameObject
+     */
+    private int getTileX(GameObject gameObject) {
+        return Math.floorDiv(gameObject.getInitialX() + gameObject.getWidth() / 2, Cell_Size);
+    }
+
+    private int getTileY(GameObject gameObject) {
+        return Math.floorDiv(gameObject.getInitialY() + gameObject.getHeight() / 2, Cell_Size);
+    }
+
+    /**
+     * Forgets the explored tiles of the previous level
+     */
+    public void resetFieldOfView() {
+        if (fieldOfView != null)
+            fieldOfView.clear();
+    }
+
+    /**
+     * Called when the maze file of the level was edited: renders the changed tiles into the minimap and computes
+     * the field of view again, as walls may have moved in or out of it
+     */
+    public void changeTiles(TileSource tiles, TileDiff diff) {
+        hud.changeTiles(tiles, diff);
+        if (fieldOfView != null)
+            fieldOfView.compute(getTileX(player), getTileY(player));
+    }
+
+    private void logRenderStats(float delta) {
+        if (!RenderStats.LOGGING_ENABLED)
+            return;
+        renderStatsTimer += delta;
+        if (renderStatsTimer >= 1) {
+            renderStatsTimer = 0;
+            System.out.println(renderStats);
+        }
+    }
 
     /**
      * Draws gameObjects on the Game Screen in the given position and, if present, with given animation
      * @param gameObject
+     * @param alpha fraction of a tick since the last tick, the object is drawn between its previous and current position
      */
-    private void drawGameObject(GameObject gameObject) {
+    private void drawGameObject(GameObject gameObject, float alpha) {
         if(gameObject.hasAnimation()) {
             game.getSpriteBatch().draw(
                     gameObject.getCurrentAnimation().getKeyFrame(sinusInput, true),
-                    gameObject.getInitialX(),
-                    gameObject.getInitialY(),
+                    gameObject.getInterpolatedX(alpha),
+                    gameObject.getInterpolatedY(alpha),
                     gameObject.getWidth(),
                     gameObject.getHeight()
             );
         } else {
             game.getSpriteBatch().draw(
                     gameObject.getTextureRegion(),
-                    gameObject.getInitialX(),
-                    gameObject.getInitialY(),
+                    gameObject.getInterpolatedX(alpha),
+                    gameObject.getInterpolatedY(alpha),
                     gameObject.getWidth(),
                     gameObject.getHeight()
             );
@@ -220,7 +403,6 @@ public void handlePlayerMovementTroughMap() {
         handlePlayerMovementTroughEnemies();
         handlePlayerMovementTroughTraps();
 
-        //handlePlayerWallCollision();
         if(game.hasAvailableKey()) handlePlayerSearchForAKey();
         else handlePlayerSearchForAnExit();
 
@@ -232,11 +414,14 @@ public void handlePlayerMovementTroughMap() {
      * Checks if player is by the exit and has key
      */
     public void handlePlayerSearchForAnExit(){
+        if (game.getExit() == null) return; // the exit can be removed while the maze file is edited
+
         boolean playerHasFoundExit = checkCollision(game.getPlayer(), game.getExit());
         boolean playerHasFoundExitWithKey = playerHasFoundExit && game.getPlayer().hasKey();
 
         if(playerHasFoundExitWithKey) {
-            System.out.println("you won");
+            if (DEBUG_EVENTS)
+                System.out.println("you won");
             game.getPlayer().handleColision(game.getExit());
         }
     }
@@ -248,7 +433,8 @@ public void handlePlayerSearchForAKey() {
         boolean playerHasFoundKey = checkCollision(game.getPlayer(), game.getKey());
 
         if(playerHasFoundKey) {
-            System.out.println("key founded!");
+            if (DEBUG_EVENTS)
+                System.out.println("key founded!");
             player.handleColision(game.getKey());
             game.collectKey();
             game.getKeySound().play();
@@ -256,12 +442,15 @@ public void handlePlayerSearchForAKey() {
     }
 
     /**
-     * Goes through the Array of enemies and checks if any of them collided with the player
+     * Checks if any of the enemies on the tiles around the player collided with the player
      */
     public void handlePlayerMovementTroughEnemies(){
-        Array<Enemy> enemiesWithCollision = new Array<>();
+        enemiesWithCollision.clear();
+        enemiesNearPlayer.clear();
+        game.getEnemyIndex().query(SpatialIndex.tileX(player), SpatialIndex.tileY(player), 1, enemiesNearPlayer);
 
-        for (Enemy enemy : game.getEnemies()) {
+        for (int i = 0; i < enemiesNearPlayer.size; i++) {
+            Enemy enemy = enemiesNearPlayer.get(i);
             if (checkCollision(game.getPlayer(), enemy) && enemy.isAlive())
                 enemiesWithCollision.add(enemy);
         }
@@ -269,24 +458,28 @@ public void handlePlayerMovementTroughEnemies(){
         boolean hasCollisionWithAnyEnemy = enemiesWithCollision.size > 0;
 
         if(hasCollisionWithAnyEnemy) {
-            System.out.println("=> there are some enemy collision at x: " + game.getPlayer().getInitialX() + ", y: " + game.getPlayer().getInitialY() );
-            enemiesWithCollision.forEach(System.out::println);
-
-            enemiesWithCollision.forEach((enemy) -> {
-                    game.getHitSound().play();
-                    game.getPlayer().handleColision(enemy);
-                    enemy.handleColision(game.getPlayer());
-            });
+            if (DEBUG_EVENTS)
+                System.out.println("=> there are some enemy collision at x: " + game.getPlayer().getInitialX() + ", y: " + game.getPlayer().getInitialY() );
+            for (Enemy enemy : enemiesWithCollision) {
+                if (DEBUG_EVENTS)
+                    System.out.println(enemy);
+                game.getHitSound().play();
+                game.getPlayer().handleColision(enemy);
+                enemy.handleColision(game.getPlayer());
+            }
         }
     }
 
     /**
-     * Goes through the Array of traps and checks if any of them collided with the player
+     * Checks if any of the traps on the tiles around the player collided with the player
      */
     public void handlePlayerMovementTroughTraps() {
-        Array<Trap> trapsWithCollision = new Array<>();
+        trapsWithCollision.clear();
+        trapsNearPlayer.clear();
+        game.getTrapIndex().query(SpatialIndex.tileX(player), SpatialIndex.tileY(player), 1, trapsNearPlayer);
 
-        for (Trap trap : game.getTraps()) {
+        for (int i = 0; i < trapsNearPlayer.size; i++) {
+            Trap trap = trapsNearPlayer.get(i);
             if (checkCollision(game.getPlayer(), trap) && trap.isActive())
                 trapsWithCollision.add(trap);
         }
@@ -294,28 +487,13 @@ public void handlePlayerMovementTroughTraps() {
         boolean hasCollisionWithAnyTrap = trapsWithCollision.size > 0;
 
         if(hasCollisionWithAnyTrap) {
-            System.out.println("=> there are some trap collision at x: " + game.getPlayer().getInitialX() + ", y: " + game.getPlayer().getInitialY() );
+            if (DEBUG_EVENTS)
+                System.out.println("=> there are some trap collision at x: " + game.getPlayer().getInitialX() + ", y: " + game.getPlayer().getInitialY() );
 
-            trapsWithCollision.forEach((trap) -> {
-                    game.getHitSound().play();
-                    game.getPlayer().handleColision(trap);
-                    trap.handleColision(game.getPlayer());
-            });
-        }
-    }
-
-
-    public void handlePlayerWallCollision() {
-        for (int[] coordinates : mapLoader.getWallCoordinates()) {
-            int wallX = coordinates[0];
-            int wallY = coordinates[1];
-
-
-            if (player.getInitialX() + player.getWidth() - toleranceWall >= wallX &&
-                    wallX + Cell_Size - toleranceWall >= player.getInitialX() &&
-                    player.getInitialY() + player.getHeight() - toleranceWall >= wallY &&
-                    wallY + Cell_Size - toleranceWall >= player.getInitialY()) {
-                return;
+            for (Trap trap : trapsWithCollision) {
+                game.getHitSound().play();
+                game.getPlayer().handleColision(trap);
+                trap.handleColision(game.getPlayer());
             }
         }
     }
@@ -325,18 +503,14 @@ public void handlePlayerWallCollision() {
      * Checks if enemies can be drawn again
      */
     private void respawnEnemiesAfterCooldown() {
-        for(Enemy enemy : game.getEnemies()) {
-            enemy.tryRespawn();
-        }
+        game.getParallelUpdater().respawnEnemies(game.getEnemySystem());
     }
 
     /**
      * Checks if traps can be activated again
      */
     private void reactivateTrapsAfterCooldown() {
-        for(Trap trap : game.getTraps()) {
-            trap.tryReactivate();
-        }
+        game.getParallelUpdater().reactivateTraps(game.getTraps());
     }
 
     public void setMapLoaded(boolean mapLoaded) {
@@ -347,6 +521,13 @@ public Viewport getViewport() {
         return viewport;
     }
 
+    /**
+     * @return what the last frame drew and culled
+     */
+    public RenderStats getRenderStats() {
+        return renderStats;
+    }
+
     @Override
     public void resize(int width, int height) {
 
@@ -376,6 +557,18 @@ public void hide() {
 
     @Override
     public void dispose() {
+        hud.dispose();
+    }
+
+    public Hud getHud() {
+        return hud;
+    }
+
+    /**
+     * @return the tiles the player sees, or null without fog of war
+     */
+    public FieldOfView getFieldOfView() {
+        return fieldOfView;
     }
 
 }
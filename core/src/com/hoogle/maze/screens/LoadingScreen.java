@@ -0,0 +1,99 @@
+package com.hoogle.maze.screens;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.ProgressBar;
+import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.utils.viewport.ScreenViewport;
+import com.badlogic.gdx.utils.viewport.Viewport;
+import com.hoogle.maze.LevelLoader;
+import com.hoogle.maze.MazeRunnerGame;
+
+/**
+ * The LoadingScreen class is shown while a maze is loaded in the background.
+ * It displays what the LevelLoader is doing and how far it got.
+ */
+public class LoadingScreen implements Screen {
+
+    private final Stage stage;
+    private final LevelLoader levelLoader;
+    private final Label statusLabel;
+    private final ProgressBar progressBar;
+    private String shownStatus = "";
+
+    /**
+     * Constructor for LoadingScreen. Sets up the camera, viewport, stage, and UI elements.
+     *
+     * @param game The main game class, used to access global resources and methods.
+     * @param levelLoader The loader whose progress is displayed.
+     */
+    public LoadingScreen(MazeRunnerGame game, LevelLoader levelLoader) {
+        this.levelLoader = levelLoader;
+
+        var camera = new OrthographicCamera();
+        camera.zoom = 1.5f; // Set camera zoom for a closer view
+
+        Viewport viewport = new ScreenViewport(camera); // Create a viewport with the camera
+        stage = new Stage(viewport, game.getSpriteBatch()); // Create a stage for UI elements
+
+        Table table = new Table(); // Create a table for layout
+        table.setFillParent(true); // Make the table fill the stage
+        stage.addActor(table); // Add the table to the stage
+
+        table.add(new Label("Loading maze...", game.getSkin(), "title")).padBottom(80).row();
+
+        progressBar = new ProgressBar(0, 1, 0.01f, false, game.getSkin());
+        table.add(progressBar).width(600).padBottom(20).row();
+
+        statusLabel = new Label("", game.getSkin());
+        table.add(statusLabel).row();
+    }
+
+    @Override
+    public void render(float delta) {
+        progressBar.setValue(levelLoader.getProgress());
+
+        // the label only changes when the loader moves on to the next stage
+        String status = levelLoader.getStatus();
+        if (!status.equals(shownStatus)) {
+            shownStatus = status;
+            statusLabel.setText(status);
+        }
+
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT); // Clear the screen
+        stage.act(Math.min(Gdx.graphics.getDeltaTime(), 1 / 30f)); // Update the stage
+        stage.draw(); // Draw the stage
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        stage.getViewport().update(width, height, true); // Update the stage viewport on resize
+    }
+
+    @Override
+    public void dispose() {
+        // Dispose of the stage when screen is disposed
+        stage.dispose();
+    }
+
+    // The following methods are part of the Screen interface but are not used in this screen.
+    @Override
+    public void show() {
+    }
+
+    @Override
+    public void pause() {
+    }
+
+    @Override
+    public void resume() {
+    }
+
+    @Override
+    public void hide() {
+    }
+}
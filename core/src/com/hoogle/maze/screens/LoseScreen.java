@@ -46,6 +46,17 @@ public LoseScreen(MazeRunnerGame game) {
         TextButton returnToMainMenuButton = new TextButton("Return To The Main Menu", game.getSkin());
 
         table.add(returnToMainMenuButton).width(600).row();
+
+        // Create and add a button to play the same level again
+        TextButton retryButton = new TextButton("Retry", game.getSkin());
+        table.add(retryButton).width(600).padTop(20).row();
+        retryButton.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeEvent event, Actor actor) {
+                game.retryLevel(); // Restart the level from its cached snapshot
+            }
+        });
+
         returnToMainMenuButton.addListener(new ChangeListener() {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
@@ -47,6 +47,16 @@ public WinScreen(MazeRunnerGame game) {
 
         table.add(returnToMainMenuButton).width(600).row();                                                // add Textbutton the the row
 
+        // Create and add a button to play the same level again
+        TextButton retryButton = new TextButton("Retry", game.getSkin());
+        table.add(retryButton).width(600).padTop(20).row();
+        retryButton.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeEvent event, Actor actor) {
+                game.retryLevel(); // Restart the level from its cached snapshot
+            }
+        });
+
         returnToMainMenuButton.addListener(new ChangeListener() {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
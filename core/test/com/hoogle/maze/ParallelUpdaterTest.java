@@ -0,0 +1,162 @@
+package com.hoogle.maze;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.hoogle.maze.models.Enemy;
+import com.hoogle.maze.models.EnemySystem;
+import com.hoogle.maze.models.Trap;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static com.hoogle.maze.MapLoader.Cell_Size;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that ParallelUpdater gives the same result on several threads as on the calling thread alone: the same
+ * positions after the moves, and the respawns and reactivations in the order of the sequential loops. The slices are
+ * small, so every phase is split over many slices and threads.
+ */
+public class ParallelUpdaterTest {
+
+    private static final int ENEMIES = 200;
+    private static final int TRAPS = 150;
+    private static final int SLICE_SIZE = 8;
+    private static final int THREADS = 4;
+    private static final int TICKS = 400;
+    private static final float TICK_TIME = 1 / 60f;
+
+    /**
+     * An enemy without the sprites of the atlas, records when it respawns
+     */
+    private static class TestEnemy extends Enemy {
+        private final int index;
+        private final IntArray respawns;
+
+        TestEnemy(int x, int y, int index, IntArray respawns) {
+            super(x, y, Cell_Size, Cell_Size, null, null);
+            this.index = index;
+            this.respawns = respawns;
+        }
+
+        @Override
+        protected void loadCharacterAnimations() {
+        }
+
+        @Override
+        public void tryRespawn() {
+            boolean wasAlive = isAlive();
+            super.tryRespawn();
+            if (!wasAlive && isAlive())
+                respawns.add(index);
+        }
+    }
+
+    /**
+     * A trap without the sprites of the atlas, due for reactivation on a fixed pattern of ticks, records when it
+     * is reactivated
+     */
+    private static class TestTrap extends Trap {
+        private final int index;
+        private final IntArray reactivations;
+        private int tick;
+
+        TestTrap(int index, IntArray reactivations) {
+            super(index * Cell_Size, 0, Cell_Size, Cell_Size, null, null);
+            this.index = index;
+            this.reactivations = reactivations;
+        }
+
+        @Override
+        public void loadCharacterAnimations() {
+        }
+
+        @Override
+        public boolean canReactivate() {
+            return (index * 7 + tick) % 5 == 0;
+        }
+
+        @Override
+        public void tryReactivate() {
+            if (canReactivate())
+                reactivations.add(index);
+        }
+    }
+
+    /**
+     * The enemies, traps and logs of one updater
+     */
+    private static class Level {
+        final EnemySystem enemySystem = new EnemySystem();
+        final Array<Trap> traps = new Array<>();
+        final IntArray respawns = new IntArray();
+        final IntArray reactivations = new IntArray();
+
+        Level() {
+            Random random = new Random(42);
+            for (int i = 0; i < ENEMIES; i++) {
+                int length = 1 + random.nextInt(6);
+                int start = random.nextInt(30);
+                int other = random.nextInt(30);
+                Enemy enemy = new TestEnemy((start + random.nextInt(length)) * Cell_Size, other * Cell_Size, i, respawns);
+                enemy.setMinHorizontal(start);
+                enemy.setMaxHorizontal(start + length - 1);
+                enemySystem.add(enemy);
+            }
+            for (int i = 0; i < TRAPS; i++) {
+                traps.add(new TestTrap(i, reactivations));
+            }
+        }
+
+        void tick(ParallelUpdater updater, int tick) {
+            updater.moveEnemies(enemySystem);
+            // kills a few enemies every 10 ticks, spread over the slices, each one long enough before it is hit again
+            // for its cooldown to end
+            if (tick % 10 == 0) {
+                for (int slot = tick / 10 % 37; slot < enemySystem.size(); slot += 37) {
+                    enemySystem.getEnemy(slot).kill();
+                }
+            }
+            updater.respawnEnemies(enemySystem);
+            for (Trap trap : traps) {
+                ((TestTrap) trap).tick = tick;
+            }
+            updater.reactivateTraps(traps);
+        }
+    }
+
+    @Test
+    public void parallelUpdatesMatchTheSequentialLoops() {
+        ParallelUpdater sequentialUpdater = new ParallelUpdater(1, SLICE_SIZE);
+        ParallelUpdater parallelUpdater = new ParallelUpdater(THREADS, SLICE_SIZE);
+        assertEquals(1, sequentialUpdater.getParallelism());
+        assertEquals(THREADS, parallelUpdater.getParallelism());
+        Level sequential = new Level();
+        Level parallel = new Level();
+
+        try {
+            for (int tick = 0; tick < TICKS; tick++) {
+                SimulationClock.advance(TICK_TIME);
+                sequential.tick(sequentialUpdater, tick);
+                parallel.tick(parallelUpdater, tick);
+
+                EnemySystem expected = sequential.enemySystem;
+                EnemySystem actual = parallel.enemySystem;
+                assertEquals(expected.getDeadCount(), actual.getDeadCount());
+                for (int slot = 0; slot < expected.size(); slot++) {
+                    assertEquals("x of slot " + slot, expected.getX(slot), actual.getX(slot));
+                    assertEquals("direction of slot " + slot, expected.getDirection(slot), actual.getDirection(slot));
+                    assertEquals("alive of slot " + slot, expected.isAlive(slot), actual.isAlive(slot));
+                }
+                assertArrayEquals(sequential.respawns.toArray(), parallel.respawns.toArray());
+                assertArrayEquals(sequential.reactivations.toArray(), parallel.reactivations.toArray());
+            }
+        } finally {
+            sequentialUpdater.dispose();
+            parallelUpdater.dispose();
+        }
+
+        assertTrue(sequential.respawns.size > 0);
+        assertTrue(sequential.reactivations.size > 0);
+    }
+}
@@ -0,0 +1,115 @@
+package com.hoogle.maze;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.hoogle.maze.map.TileGrid;
+import com.hoogle.maze.map.TileType;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static com.hoogle.maze.MapLoader.Cell_Size;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the quad, the window and the index building of ShaderWallRenderer, which need no GL
+ */
+public class ShaderWallRendererTest {
+
+    @Test
+    public void quadIsClippedToTheMaze() {
+        float[] vertices = new float[8];
+        assertTrue(ShaderWallRenderer.buildQuad(new Rectangle(-100, 50, 400, 1000), 10, 20, Cell_Size, vertices));
+        assertArrayEquals(new float[]{0, 50, 160, 50, 160, 320, 0, 320}, vertices, 0);
+    }
+
+    @Test
+    public void noQuadOutsideOfTheMaze() {
+        float[] vertices = new float[8];
+        assertFalse(ShaderWallRenderer.buildQuad(new Rectangle(200, 0, 100, 100), 10, 10, Cell_Size, vertices));
+        assertFalse(ShaderWallRenderer.buildQuad(new Rectangle(-300, -300, 100, 100), 10, 10, Cell_Size, vertices));
+    }
+
+    @Test
+    public void windowSizeIsAPowerOfTwoWithinTheLimits() {
+        assertEquals(ShaderWallRenderer.MIN_WINDOW_SIZE, ShaderWallRenderer.windowSizeFor(1));
+        assertEquals(256, ShaderWallRenderer.windowSizeFor(100));
+        assertEquals(ShaderWallRenderer.MAX_WINDOW_SIZE, ShaderWallRenderer.windowSizeFor(1_000_000));
+    }
+
+    @Test
+    public void viewsThatFitIntoTheWindowAreCoveredWhole() {
+        int[] bounds = {-10, 5, 90, 60};
+        ShaderWallRenderer.clampToWindow(bounds, ShaderWallRenderer.windowSizeFor(100));
+        assertArrayEquals(new int[]{-10, 5, 90, 60}, bounds);
+    }
+
+    @Test
+    public void viewsWiderThanTheLargestWindowKeepTheirMiddle() {
+        int size = ShaderWallRenderer.MAX_WINDOW_SIZE;
+        int[] bounds = {0, 100, 10_000, 200};
+        ShaderWallRenderer.clampToWindow(bounds, size);
+
+        int covered = size - 2 * (size / 8);
+        assertEquals(covered, bounds[2] - bounds[0]);
+        assertEquals(10_000, bounds[0] + bounds[2]);
+        assertEquals(100, bounds[1]);
+        assertEquals(200, bounds[3]);
+    }
+
+    @Test
+    public void indicesMarkTheWallsOfTheWindow() {
+        TileGrid tiles = new TileGrid(4, 3);
+        tiles.set(0, 0, TileType.WALL);
+        tiles.set(3, 2, TileType.WALL);
+        tiles.set(1, 1, TileType.TRAP);
+
+        int size = 8;
+        ByteBuffer indices = ByteBuffer.allocate(size * size);
+        int[] wallSums = new int[(size + 1) * (size + 1)];
+        // the maze starts at (2, 1) of the window
+        assertEquals(2, ShaderWallRenderer.fillIndices(tiles, -2, -1, size, indices, wallSums));
+
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                boolean wall = (x == 2 && y == 1) || (x == 5 && y == 3);
+                assertEquals("tile " + x + ", " + y, wall ? ShaderWallRenderer.WALL_INDEX : 0, indices.get(y * size + x));
+            }
+        }
+    }
+
+    @Test
+    public void wallsOfARectangleAreCountedFromTheSums() {
+        Random random = new Random(42);
+        TileGrid tiles = new TileGrid(40, 30);
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 40; x++) {
+                if (random.nextInt(3) == 0)
+                    tiles.set(x, y, TileType.WALL);
+            }
+        }
+
+        int size = 32;
+        int windowX = 5;
+        int windowY = -3;
+        ByteBuffer indices = ByteBuffer.allocate(size * size);
+        int[] wallSums = new int[(size + 1) * (size + 1)];
+        ShaderWallRenderer.fillIndices(tiles, windowX, windowY, size, indices, wallSums);
+
+        for (int i = 0; i < 200; i++) {
+            int fromX = random.nextInt(size + 20) - 10;
+            int fromY = random.nextInt(size + 20) - 10;
+            int toX = fromX + random.nextInt(size);
+            int toY = fromY + random.nextInt(size);
+
+            int expected = 0;
+            for (int y = Math.max(fromY, 0); y < Math.min(toY, size); y++) {
+                for (int x = Math.max(fromX, 0); x < Math.min(toX, size); x++) {
+                    if (indices.get(y * size + x) == ShaderWallRenderer.WALL_INDEX)
+                        expected++;
+                }
+            }
+            assertEquals(expected, ShaderWallRenderer.countWalls(wallSums, size, fromX, fromY, toX, toY));
+        }
+    }
+}
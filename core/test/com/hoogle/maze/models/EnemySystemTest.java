@@ -0,0 +1,147 @@
+package com.hoogle.maze.models;
+
+import com.hoogle.maze.SimulationClock;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static com.hoogle.maze.MapLoader.Cell_Size;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the branch-free EnemySystem.update moves the enemies like move does one at a time, also while enemies
+ * die, respawn and are removed
+ */
+public class EnemySystemTest {
+
+    private static final int ENEMIES = 40;
+    private static final int MAX_CORRIDOR = 5;
+    private static final int TICKS = 600;
+    private static final float TICK_TIME = 1 / 60f;
+
+    /**
+     * An enemy without the sprites of the atlas
+     */
+    private static class TestEnemy extends Enemy {
+        TestEnemy(int x, int y) {
+            super(x, y, Cell_Size, Cell_Size, null, null);
+        }
+
+        @Override
+        protected void loadCharacterAnimations() {
+        }
+    }
+
+    @Test
+    public void updateMovesLikeTheSequentialLoop() {
+        EnemySystem updated = createEnemies();
+        EnemySystem moved = createEnemies();
+        Random random = new Random(7);
+        int turnarounds = 0;
+        int respawns = 0;
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            SimulationClock.advance(TICK_TIME);
+            // the same events in both systems, the removal moves the last slot into the removed one
+            if (tick % 25 == 0) {
+                int slot = random.nextInt(updated.size());
+                updated.getEnemy(slot).kill();
+                moved.getEnemy(slot).kill();
+            }
+            if (tick == 300) {
+                updated.remove(updated.getEnemy(3));
+                moved.remove(moved.getEnemy(3));
+            }
+            int deadBefore = updated.getDeadCount();
+            updated.respawn();
+            moved.respawn();
+            respawns += deadBefore - updated.getDeadCount();
+
+            int[] directions = directions(moved);
+            // random ranges, like the slices of the ParallelUpdater
+            for (int from = 0; from < updated.size(); ) {
+                int to = Math.min(updated.size(), from + 1 + random.nextInt(8));
+                updated.update(from, to);
+                from = to;
+            }
+            for (int slot = 0; slot < moved.size(); slot++) {
+                moved.move(slot);
+            }
+
+            assertSameEnemies(moved, updated);
+            for (int slot = 0; slot < moved.size(); slot++) {
+                if (moved.getDirection(slot) != directions[slot])
+                    turnarounds++;
+            }
+        }
+
+        assertEquals(ENEMIES - 1, updated.size());
+        assertTrue(turnarounds > 0);
+        assertTrue(respawns > 0);
+    }
+
+    @Test
+    public void removingAnEnemyMovesTheLastSlotIntoItsPlace() {
+        EnemySystem system = createEnemies();
+        Enemy removed = system.getEnemy(5);
+        Enemy last = system.getEnemy(ENEMIES - 1);
+        int lastX = last.getInitialX();
+        int lastY = last.getInitialY();
+        int removedX = removed.getInitialX();
+
+        system.remove(removed);
+
+        assertEquals(ENEMIES - 1, system.size());
+        assertTrue(system.getEnemy(5) == last);
+        assertEquals(lastX, system.getX(5));
+        assertEquals(lastY, system.getY(5));
+        // the removed enemy keeps its state without the system
+        assertEquals(removedX, removed.getInitialX());
+        assertTrue(removed.getSystem() == null);
+    }
+
+    /**
+     * @return enemies in corridors of 1 to MAX_CORRIDOR tiles, the same for every call
+     */
+    private static EnemySystem createEnemies() {
+        EnemySystem system = new EnemySystem();
+        Random random = new Random(42);
+        for (int i = 0; i < ENEMIES; i++) {
+            int length = 1 + random.nextInt(MAX_CORRIDOR);
+            int start = random.nextInt(20);
+            int other = random.nextInt(20);
+            int tile = start + random.nextInt(length);
+            Enemy enemy;
+            if (random.nextBoolean()) {
+                enemy = new TestEnemy(tile * Cell_Size, other * Cell_Size);
+                enemy.setMinHorizontal(start);
+                enemy.setMaxHorizontal(start + length - 1);
+            } else {
+                enemy = new TestEnemy(other * Cell_Size, tile * Cell_Size);
+                enemy.setMinVertical(start);
+                enemy.setMaxVertical(start + length - 1);
+            }
+            system.add(enemy);
+        }
+        return system;
+    }
+
+    private static int[] directions(EnemySystem system) {
+        int[] directions = new int[system.size()];
+        for (int slot = 0; slot < directions.length; slot++) {
+            directions[slot] = system.getDirection(slot);
+        }
+        return directions;
+    }
+
+    private static void assertSameEnemies(EnemySystem expected, EnemySystem actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.getDeadCount(), actual.getDeadCount());
+        for (int slot = 0; slot < expected.size(); slot++) {
+            assertEquals("x of slot " + slot, expected.getX(slot), actual.getX(slot));
+            assertEquals("y of slot " + slot, expected.getY(slot), actual.getY(slot));
+            assertEquals("direction of slot " + slot, expected.getDirection(slot), actual.getDirection(slot));
+            assertEquals("alive of slot " + slot, expected.isAlive(slot), actual.isAlive(slot));
+        }
+    }
+}
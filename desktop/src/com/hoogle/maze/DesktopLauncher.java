@@ -27,8 +27,10 @@ public static void main(String[] arg) {
 				Math.round(0.5f * displayMode.width), // FIXME: change to 0.8f before send
 				Math.round(0.5f * displayMode.height) // FIXME: change to 0.8f before send
 		);
-		config.useVsync(true); // Enable vertical sync
-		config.setForegroundFPS(60); // Set the foreground frames per second
+		// The simulation runs at a fixed tick rate, so the frame rate can be changed (-Dmaze.fps, 0 for uncapped without vsync)
+		int fps = Integer.getInteger("maze.fps", 60);
+		config.useVsync(fps > 0); // Enable vertical sync
+		config.setForegroundFPS(fps); // Set the foreground frames per second
 		// Launch the game
 		new Lwjgl3Application(new MazeRunnerGame(new DesktopFileChooser()), config);
 
@@ -0,0 +1,135 @@
+package com.hoogle.maze.benchmark;
+
+import com.hoogle.maze.map.CorridorIndex;
+import com.hoogle.maze.map.TileGrid;
+import com.hoogle.maze.map.TileType;
+import com.hoogle.maze.map.WallGrid;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Measures building the CorridorIndex of a maze, and finding the patrol limits of enemies on both axes by walking
+ * tile by tile to the walls, like MapLoader did, against looking them up in the index.
+ * Without a maze file, a generated 2000 x 2000 maze of long horizontal corridors is used: every other row is a wall
+ * with a door every 100 tiles or so. The enemies stand on random open tiles.
+ * Usage: CorridorIndexBenchmark [mazeFile] [enemies]
+ */
+public class CorridorIndexBenchmark {
+
+    private static final int GENERATED_SIZE = 2000;
+    private static final int DOOR_PERCENT = 1;
+    private static final int WARMUP_ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        TileGrid tiles = args.length > 0 ? TileGrid.load(Path.of(args[0])) : generateMaze(GENERATED_SIZE);
+        int enemies = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        WallGrid wallGrid = WallGrid.fromTiles(tiles);
+        int[] positions = placeEnemies(wallGrid, enemies);
+
+        CorridorIndex index = null;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            index = CorridorIndex.build(wallGrid);
+            walk(wallGrid, positions);
+            lookUp(index, positions);
+        }
+
+        long start = System.nanoTime();
+        index = CorridorIndex.build(wallGrid);
+        long built = System.nanoTime();
+        long walked = walk(wallGrid, positions);
+        long walkEnd = System.nanoTime();
+        long lookedUp = lookUp(index, positions);
+        long lookUpEnd = System.nanoTime();
+
+        System.out.printf("%d x %d tiles, %,d horizontal and %,d vertical runs, %.1f MB%n", tiles.getWidth(),
+                tiles.getHeight(), index.getRowRunCount(), index.getColumnRunCount(), index.getSizeInBytes() / 1e6);
+        System.out.printf("build %8.2f ms%n", (built - start) / 1e6);
+        System.out.printf("%,d enemies: walking %8.2f ms, index %8.2f ms (%.0fx)%n", enemies, (walkEnd - built) / 1e6,
+                (lookUpEnd - walkEnd) / 1e6, (double) (walkEnd - built) / (lookUpEnd - walkEnd));
+        if (walked != lookedUp) {
+            System.out.println("FAILED: the index gives other limits than walking");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return the sum of the limits found by walking to the walls
+     */
+    private static long walk(WallGrid wallGrid, int[] positions) {
+        long sum = 0;
+        for (int i = 0; i < positions.length; i += 2) {
+            int x = positions[i];
+            int y = positions[i + 1];
+            int minX = x;
+            int maxX = x;
+            int minY = y;
+            int maxY = y;
+            while (!wallGrid.isWall(minX - 1, y)) {
+                minX--;
+            }
+            while (!wallGrid.isWall(maxX + 1, y)) {
+                maxX++;
+            }
+            while (!wallGrid.isWall(x, minY - 1)) {
+                minY--;
+            }
+            while (!wallGrid.isWall(x, maxY + 1)) {
+                maxY++;
+            }
+            sum += minX + maxX + minY + maxY;
+        }
+        return sum;
+    }
+
+    /**
+     * @return the sum of the limits found in the index
+     */
+    private static long lookUp(CorridorIndex index, int[] positions) {
+        long sum = 0;
+        for (int i = 0; i < positions.length; i += 2) {
+            int rowRun = index.getRowRun(positions[i], positions[i + 1]);
+            int columnRun = index.getColumnRun(positions[i], positions[i + 1]);
+            sum += index.getRowRunStart(rowRun) + index.getRowRunEnd(rowRun)
+                    + index.getColumnRunStart(columnRun) + index.getColumnRunEnd(columnRun);
+        }
+        return sum;
+    }
+
+    /**
+     * @return x, y of count random open tiles
+     */
+    private static int[] placeEnemies(WallGrid wallGrid, int count) {
+        Random random = new Random(42);
+        int[] positions = new int[2 * count];
+        for (int i = 0; i < count; i++) {
+            int x;
+            int y;
+            do {
+                x = random.nextInt(wallGrid.getWidth());
+                y = random.nextInt(wallGrid.getHeight());
+            } while (wallGrid.isWall(x, y));
+            positions[2 * i] = x;
+            positions[2 * i + 1] = y;
+        }
+        return positions;
+    }
+
+    /**
+     * Generates a size x size maze with walls on the border and every other row, with a few doors in the walls
+     */
+    private static TileGrid generateMaze(int size) {
+        TileGrid tiles = new TileGrid(size, size);
+        Random random = new Random(42);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                boolean border = x == 0 || y == 0 || x == size - 1 || y == size - 1;
+                boolean wallRow = y % 2 == 0 && random.nextInt(100) >= DOOR_PERCENT;
+                if (border || wallRow)
+                    tiles.set(x, y, TileType.WALL);
+            }
+        }
+        return tiles;
+    }
+}
@@ -0,0 +1,162 @@
+package com.hoogle.maze.benchmark;
+
+import com.hoogle.maze.models.EnemySystem;
+
+import java.util.Random;
+
+import static com.hoogle.maze.MapLoader.Cell_Size;
+
+/**
+ * Measures EnemySystem.update for 10k, 100k and 1M patrolling enemies, against the same enemies as one object each
+ * moved like Enemy.handleMovement was before the EnemySystem: the axis chosen again from the double limits on every
+ * step and the limits compared in tiles.
+ * The enemies are spread over a 1000 x 1000 tile maze and patrol corridors of 1 to 32 tiles, half of them
+ * horizontal. Prints the microseconds per tick of update, and apart from it of savePreviousPositions and
+ * findCrossedTiles, which GameScreen calls around it. FAILED if update takes 1 ms or more per tick for 1M enemies.
+ * Usage: EnemySystemBenchmark [ticks]
+ */
+public class EnemySystemBenchmark {
+
+    private static final int[] ENEMY_COUNTS = {10_000, 100_000, 1_000_000};
+    private static final int MAZE_SIZE = 1000;
+    private static final int MAX_CORRIDOR = 32;
+    private static final int WARMUP_TICKS = 500;
+    private static final double BUDGET_MICROS = 1000;
+
+    /**
+     * An enemy as an object, moving like Enemy.handleMovement before the EnemySystem
+     */
+    private static class ObjectEnemy {
+        private int x;
+        private int y;
+        private boolean alive = true;
+        private boolean startToEnd = true;
+        private final double minHorizontal;
+        private final double maxHorizontal;
+        private final double minVertical;
+        private final double maxVertical;
+
+        ObjectEnemy(int x, int y, int minTileX, int maxTileX, int minTileY, int maxTileY) {
+            this.x = x;
+            this.y = y;
+            this.minHorizontal = minTileX;
+            this.maxHorizontal = maxTileX;
+            this.minVertical = minTileY;
+            this.maxVertical = maxTileY;
+        }
+
+        void move() {
+            boolean horizontal = maxHorizontal - minHorizontal + 1 > maxVertical - minVertical + 1;
+            boolean turnAround;
+            if (startToEnd && horizontal) {
+                x++;
+                turnAround = x / 16.0 >= maxHorizontal;
+            } else if (startToEnd) {
+                y++;
+                turnAround = y / 16.0 >= maxVertical;
+            } else if (horizontal) {
+                x--;
+                turnAround = x / 16.0 < minHorizontal;
+            } else {
+                y--;
+                turnAround = y / 16.0 < minVertical;
+            }
+            if (turnAround)
+                startToEnd = !startToEnd;
+        }
+    }
+
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+        boolean passed = true;
+        for (int count : ENEMY_COUNTS) {
+            double objects = measureObjects(count, ticks);
+            double[] measured = measureSystem(count, ticks);
+            double system = measured[0];
+            System.out.printf("%,10d enemies: objects %9.1f us/tick, EnemySystem %9.1f us/tick (%5.1fx), %.2f ns/enemy; "
+                            + "previous positions and crossed tiles %9.1f us/tick%n",
+                    count, objects, system, objects / system, system * 1000 / count, measured[1]);
+            if (count == 1_000_000 && system >= BUDGET_MICROS)
+                passed = false;
+        }
+        System.out.println(passed ? "PASSED" : "FAILED: 1M enemies take " + BUDGET_MICROS + " us or more per tick");
+        if (!passed)
+            System.exit(1);
+    }
+
+    /**
+     * @return the microseconds per tick of moving count enemies with EnemySystem.update, and of the bookkeeping around it
+     */
+    private static double[] measureSystem(int count, int ticks) {
+        EnemySystem system = new EnemySystem();
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            int[] corridor = corridor(random);
+            system.add(corridor[0], corridor[1], corridor[2], corridor[3], corridor[4], corridor[5]);
+        }
+
+        long nanos = 0;
+        long bookkeepingNanos = 0;
+        long crossed = 0;
+        for (int tick = 0; tick < WARMUP_TICKS + ticks; tick++) {
+            if (tick == WARMUP_TICKS) {
+                nanos = 0;
+                bookkeepingNanos = 0;
+            }
+            long start = System.nanoTime();
+            system.savePreviousPositions();
+            long saved = System.nanoTime();
+            system.update();
+            long moved = System.nanoTime();
+            crossed += system.findCrossedTiles().size;
+            long found = System.nanoTime();
+            nanos += moved - saved;
+            bookkeepingNanos += (saved - start) + (found - moved);
+        }
+        // the positions are read so the moves cannot be optimized away
+        if (system.getX(count - 1) == Integer.MIN_VALUE || crossed < 0)
+            System.out.println(system.getY(count - 1));
+        return new double[]{nanos / 1000.0 / ticks, bookkeepingNanos / 1000.0 / ticks};
+    }
+
+    /**
+     * @return the microseconds per tick of moving count enemies one object at a time
+     */
+    private static double measureObjects(int count, int ticks) {
+        ObjectEnemy[] enemies = new ObjectEnemy[count];
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            int[] corridor = corridor(random);
+            enemies[i] = new ObjectEnemy(corridor[0], corridor[1], corridor[2], corridor[3], corridor[4], corridor[5]);
+        }
+
+        long nanos = 0;
+        for (int tick = 0; tick < WARMUP_TICKS + ticks; tick++) {
+            if (tick == WARMUP_TICKS)
+                nanos = 0;
+            long start = System.nanoTime();
+            for (ObjectEnemy enemy : enemies) {
+                if (enemy.alive)
+                    enemy.move();
+            }
+            nanos += System.nanoTime() - start;
+        }
+        if (enemies[count - 1].x == Integer.MIN_VALUE)
+            System.out.println(enemies[count - 1].y);
+        return nanos / 1000.0 / ticks;
+    }
+
+    /**
+     * @return the start x and y in pixels and the limits min x, max x, min y, max y in tiles of a random corridor
+     */
+    private static int[] corridor(Random random) {
+        int length = 1 + random.nextInt(MAX_CORRIDOR);
+        int start = random.nextInt(MAZE_SIZE - length);
+        int other = random.nextInt(MAZE_SIZE);
+        int tile = start + random.nextInt(length);
+        if (random.nextBoolean())
+            return new int[]{tile * Cell_Size, other * Cell_Size, start, start + length - 1, other, other};
+        return new int[]{other * Cell_Size, tile * Cell_Size, other, other, start, start + length - 1};
+    }
+}
@@ -0,0 +1,102 @@
+package com.hoogle.maze.benchmark;
+
+import com.hoogle.maze.FieldOfView;
+import com.hoogle.maze.map.TileGrid;
+import com.hoogle.maze.map.TileType;
+import com.hoogle.maze.map.WallGrid;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Measures the cost of computing the field of view once per move of the player, at the radii 8, 16 and 32.
+ * The player walks a random path of single tile steps over the open tiles, the same path for every radius.
+ * Without a maze file, a generated 1000 x 1000 maze with 15% walls is used.
+ * Usage: FieldOfViewBenchmark [mazeFile] [moves]
+ */
+public class FieldOfViewBenchmark {
+
+    private static final int[] RADII = {8, 16, 32};
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int GENERATED_SIZE = 1000;
+    private static final int[] STEP_X = {1, 0, -1, 0};
+    private static final int[] STEP_Y = {0, 1, 0, -1};
+
+    public static void main(String[] args) throws IOException {
+        TileGrid tiles = args.length > 0 ? TileGrid.load(Path.of(args[0])) : generateMaze(GENERATED_SIZE);
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        WallGrid wallGrid = WallGrid.fromTiles(tiles);
+        int[] path = walk(wallGrid, moves);
+        System.out.println(tiles.getWidth() + " x " + tiles.getHeight() + " tiles, " + moves + " moves");
+
+        for (int radius : RADII) {
+            FieldOfView fieldOfView = new FieldOfView(wallGrid::isWall, radius);
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                run(fieldOfView, path);
+            }
+
+            fieldOfView.clear();
+            long visible = 0;
+            long start = System.nanoTime();
+            for (int move = 0; move < path.length; move += 2) {
+                fieldOfView.update(path[move], path[move + 1]);
+                visible += fieldOfView.getVisibleCount();
+            }
+            double microsPerMove = (System.nanoTime() - start) / 1000.0 / moves;
+            System.out.printf("radius %2d %8.2f us/move, %6.1f visible tiles, %d tiles explored%n",
+                    radius, microsPerMove, (double) visible / moves, fieldOfView.getExploredCount());
+        }
+    }
+
+    private static void run(FieldOfView fieldOfView, int[] path) {
+        fieldOfView.clear();
+        for (int move = 0; move < path.length; move += 2) {
+            fieldOfView.update(path[move], path[move + 1]);
+        }
+    }
+
+    /**
+     * @return x, y of the tiles of a random walk over the open tiles, starting on the open tile nearest to the middle
+     */
+    private static int[] walk(WallGrid wallGrid, int moves) {
+        Random random = new Random(42);
+        int x = wallGrid.getWidth() / 2;
+        int y = wallGrid.getHeight() / 2;
+        while (wallGrid.isWall(x, y) && x < wallGrid.getWidth()) {
+            x++;
+        }
+
+        int[] path = new int[2 * moves];
+        for (int move = 0; move < moves; move++) {
+            // a step into a wall is tried again in another direction, a closed in tile stays in place
+            for (int attempt = 0; attempt < 8; attempt++) {
+                int direction = random.nextInt(STEP_X.length);
+                if (!wallGrid.isWall(x + STEP_X[direction], y + STEP_Y[direction])) {
+                    x += STEP_X[direction];
+                    y += STEP_Y[direction];
+                    break;
+                }
+            }
+            path[2 * move] = x;
+            path[2 * move + 1] = y;
+        }
+        return path;
+    }
+
+    /**
+     * Generates a size x size maze with walls on the border and random walls inside
+     */
+    private static TileGrid generateMaze(int size) {
+        TileGrid tiles = new TileGrid(size, size);
+        Random random = new Random(42);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                boolean border = x == 0 || y == 0 || x == size - 1 || y == size - 1;
+                if (border || random.nextInt(100) < 15)
+                    tiles.set(x, y, TileType.WALL);
+            }
+        }
+        return tiles;
+    }
+}
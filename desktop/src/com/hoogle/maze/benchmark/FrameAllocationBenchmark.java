@@ -0,0 +1,109 @@
+package com.hoogle.maze.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.hoogle.maze.GameState;
+import com.hoogle.maze.LevelLoader;
+import com.hoogle.maze.MazeRunnerGame;
+import com.hoogle.maze.headless.NoOpGL20;
+import com.hoogle.maze.headless.ScriptedInput;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+
+/**
+ * Checks that a running frame of the game screen allocates nothing. Runs the game headless with a GL that does
+ * nothing, loads a level, walks the player around with scripted input and measures the bytes each frame allocates on
+ * the render thread with ThreadMXBean.getCurrentThreadAllocatedBytes.
+ * Every measured frame counts, also the ones with a collision, the key or an enemy respawning: these only print with
+ * -Dmaze.debugEvents=true. The check fails with exit code 1 when any frame goes over the budget
+ * (-Dmaze.frameAllocationBudget, in bytes).
+ * The check runs with -XX:TieredStopAtLevel=1: without escape analysis every allocation of the code shows up, and
+ * there are no C2 deoptimizations, which put scalar-replaced objects on the heap in random frames.
+ * Run by the frameAllocationCheck task of the desktop project, for every level, as part of gradle check.
+ * Usage: FrameAllocationBenchmark [mazeFile] [frames]
+ */
+public class FrameAllocationBenchmark {
+
+    private static final long BUDGET_BYTES = Long.getLong("maze.frameAllocationBudget", 64);
+    private static final int WARMUP_FRAMES = 3000;
+    private static final float FRAME_TIME = 1 / 60f;
+    // looked up once, ManagementFactory.getThreadMXBean allocates on every call
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        Path mazeFile = Path.of(args.length > 0 ? args[0] : "../maps/level-1.properties");
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+
+        new HeadlessApplication(new ApplicationAdapter() {
+            @Override
+            public void create() {
+                int exitCode;
+                try {
+                    exitCode = run(mazeFile, frames);
+                } catch (IOException e) {
+                    System.err.println("Cannot load " + mazeFile + ": " + e.getMessage());
+                    exitCode = 2;
+                }
+                System.exit(exitCode);
+            }
+        }, new HeadlessApplicationConfiguration());
+    }
+
+    private static int run(Path mazeFile, int frames) throws IOException {
+        Gdx.gl = Gdx.gl20 = new NoOpGL20();
+        ScriptedInput input = new ScriptedInput(ScriptedInput.DEFAULT_SCRIPT);
+        Gdx.input = input;
+
+        MazeRunnerGame game = new MazeRunnerGame(null);
+        game.create();
+        game.onLevelLoaded(new LevelLoader().read(mazeFile));
+
+        for (int frame = 0; frame < WARMUP_FRAMES; frame++) {
+            renderFrame(game, input, frame);
+        }
+
+        long overhead = allocatedBytes();
+        overhead = allocatedBytes() - overhead;
+
+        long total = 0;
+        long max = 0;
+        int framesOverBudget = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            long before = allocatedBytes();
+            renderFrame(game, input, WARMUP_FRAMES + frame);
+            long allocated = allocatedBytes() - before - overhead;
+
+            total += allocated;
+            max = Math.max(max, allocated);
+            if (allocated > BUDGET_BYTES)
+                framesOverBudget++;
+        }
+
+        System.out.printf("%d frames of %s: %.1f bytes/frame, max %d bytes, %d frames over the budget of %d bytes%n",
+                frames, mazeFile.getFileName(), (double) total / frames, max, framesOverBudget, BUDGET_BYTES);
+        boolean passed = framesOverBudget == 0;
+        System.out.println(passed ? "PASSED" : "FAILED");
+        return passed ? 0 : 1;
+    }
+
+    /**
+     * Renders one frame of the game screen. The player cannot die, win or lose the key, so every frame is a
+     * running frame
+     */
+    private static void renderFrame(MazeRunnerGame game, ScriptedInput input, int frame) {
+        input.setTick(frame);
+        game.getPlayer().setFullLife();
+        game.getPlayer().setAlive(true);
+        game.setGameState(GameState.RUNNING);
+        game.getScreen().render(FRAME_TIME);
+    }
+
+    private static long allocatedBytes() {
+        return THREAD_BEAN.getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,62 @@
+package com.hoogle.maze.benchmark;
+
+import com.hoogle.maze.map.MazeAnalysis;
+import com.hoogle.maze.map.TileGrid;
+import com.hoogle.maze.map.TileType;
+import com.hoogle.maze.map.WallGrid;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Measures the load-time MazeAnalysis, which has to stay under 50 ms on a 1M tile maze.
+ * Without a maze file, a generated 1000 x 1000 maze with 15% walls is used.
+ * Usage: MazeAnalysisBenchmark [mazeFile] [iterations]
+ */
+public class MazeAnalysisBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int GENERATED_SIZE = 1000;
+
+    public static void main(String[] args) throws IOException {
+        TileGrid tiles = args.length > 0 ? TileGrid.load(Path.of(args[0])) : generateMaze(GENERATED_SIZE);
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        WallGrid wallGrid = WallGrid.fromTiles(tiles);
+
+        MazeAnalysis analysis = null;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            analysis = MazeAnalysis.analyze(tiles, wallGrid);
+        }
+        System.out.println(tiles.getWidth() + " x " + tiles.getHeight() + " tiles: " + analysis.describe()
+                + ", " + analysis.getComponentCount() + " open areas");
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            MazeAnalysis.analyze(tiles, wallGrid);
+        }
+        System.out.printf("MazeAnalysis %10.2f ms/op%n", (System.nanoTime() - start) / 1_000_000.0 / iterations);
+    }
+
+    /**
+     * Generates a size x size maze with walls on the border, random walls inside, the entry and exit on opposite
+     * sides and the key in the middle
+     */
+    private static TileGrid generateMaze(int size) {
+        TileGrid tiles = new TileGrid(size, size);
+        Random random = new Random(42);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                boolean border = x == 0 || y == 0 || x == size - 1 || y == size - 1;
+                if (border || random.nextInt(100) < 15)
+                    tiles.set(x, y, TileType.WALL);
+            }
+        }
+        tiles.set(0, 1, TileType.ENTRY);
+        tiles.set(1, 1, TileType.EMPTY);
+        tiles.set(size / 2, size / 2, TileType.KEY);
+        tiles.set(size - 1, size - 2, TileType.EXIT);
+        tiles.set(size - 2, size - 2, TileType.EMPTY);
+        return tiles;
+    }
+}
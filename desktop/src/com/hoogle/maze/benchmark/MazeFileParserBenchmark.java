@@ -0,0 +1,87 @@
+package com.hoogle.maze.benchmark;
+
+import com.hoogle.maze.map.MazeFileParser;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares the old readString/split based map parsing with the memory-mapped MazeFileParser.
+ * Usage: MazeFileParserBenchmark [mazeFile] [iterations]
+ */
+public class MazeFileParserBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 50;
+
+    public static void main(String[] args) throws IOException {
+        Path mazeFile = Path.of(args.length > 0 ? args[0] : "../maps/level-4.properties");
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        System.out.println("Benchmarking " + mazeFile + " (" + Files.size(mazeFile) + " bytes, " + iterations + " iterations)");
+
+        run("split", mazeFile, iterations, MazeFileParserBenchmark::parseWithSplit);
+        run("MazeFileParser", mazeFile, iterations, MazeFileParserBenchmark::parseWithMazeFileParser);
+    }
+
+    private static void run(String name, Path mazeFile, int iterations, Parser parser) throws IOException {
+        long checksum = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            checksum += parser.parse(mazeFile);
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            checksum += parser.parse(mazeFile);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        System.out.printf("%-16s %10.3f ms/op %12d bytes/op (checksum %d)%n",
+                name, elapsed / 1_000_000.0 / iterations, allocated / iterations, checksum);
+    }
+
+    /**
+     * The parsing previously done in MazeRunnerGame.showFileChooser
+     */
+    private static long parseWithSplit(Path mazeFile) throws IOException {
+        Map<int[], Integer> coordinatesMap = new HashMap<>();
+        String fileContent = Files.readString(mazeFile, StandardCharsets.UTF_8);
+
+        for (String splitContent : fileContent.split("\n")) {
+            splitContent = splitContent.trim();
+            String[] pairs = splitContent.split("=");
+            String[] coordinates = pairs[0].split(",");
+            try {
+                int x = Integer.parseInt(coordinates[0]);
+                int y = Integer.parseInt(coordinates[1]);
+                int objectType = Integer.parseInt(pairs[1]);
+                coordinatesMap.put(new int[]{x, y}, objectType);
+            } catch (NumberFormatException e) {
+                System.out.println("Error parsing data: " + e.getMessage());
+            }
+        }
+        return coordinatesMap.size();
+    }
+
+    private static long parseWithMazeFileParser(Path mazeFile) throws IOException {
+        long[] sum = new long[1];
+        MazeFileParser.parse(mazeFile, (x, y, type) -> sum[0] += 1, MazeFileParser.PRINT_ERRORS);
+        return sum[0];
+    }
+
+    private static long allocatedBytes() {
+        var threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadBean.getCurrentThreadAllocatedBytes();
+    }
+
+    @FunctionalInterface
+    private interface Parser {
+        long parse(Path mazeFile) throws IOException;
+    }
+}
@@ -0,0 +1,87 @@
+package com.hoogle.maze.benchmark;
+
+import com.hoogle.maze.map.MazeFileParser;
+import com.hoogle.maze.map.ParallelMazeFileParser;
+import com.hoogle.maze.map.TileDiff;
+import com.hoogle.maze.map.TileGrid;
+import com.hoogle.maze.map.TileType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how ParallelMazeFileParser scales with 1, 2, 4 and 8 threads, and checks that every thread count builds
+ * the same grid as the sequential parser. Without a maze file, a generated maze with some tiles written twice is used.
+ * Usage: ParallelParseBenchmark [mazeFile] [iterations]
+ */
+public class ParallelParseBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int GENERATED_SIZE = 2000;
+
+    public static void main(String[] args) throws IOException {
+        Path mazeFile = args.length > 0 ? Path.of(args[0]) : generateMaze(GENERATED_SIZE);
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        System.out.println("Benchmarking " + mazeFile + " (" + Files.size(mazeFile) + " bytes, " + iterations + " iterations, "
+                + Runtime.getRuntime().availableProcessors() + " cores)");
+
+        TileGrid.Builder builder = new TileGrid.Builder();
+        MazeFileParser.parse(mazeFile, builder, MazeFileParser.PRINT_ERRORS);
+        TileGrid expected = builder.build();
+
+        double singleThreadMillis = 0;
+        for (int threads : THREAD_COUNTS) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                TileGrid grid = null;
+                for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                    grid = ParallelMazeFileParser.parse(mazeFile, pool, 0, MazeFileParser.PRINT_ERRORS, null);
+                }
+                TileDiff diff = TileDiff.compute(expected, grid);
+                if (diff == null || !diff.isEmpty())
+                    throw new IllegalStateException(threads + " threads built a different grid than the sequential parser");
+
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    ParallelMazeFileParser.parse(mazeFile, pool, 0, MazeFileParser.PRINT_ERRORS, null);
+                }
+                double millis = (System.nanoTime() - start) / 1_000_000.0 / iterations;
+                if (threads == 1)
+                    singleThreadMillis = millis;
+
+                System.out.printf("%d threads %10.2f ms/op %6.2fx%n", threads, millis, singleThreadMillis / millis);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Writes a size x size maze with walls on the border and random tiles inside, followed by a second pass
+     * over every 7th tile so the last-write-wins order of the merge is checked too
+     */
+    private static Path generateMaze(int size) throws IOException {
+        Path mazeFile = Files.createTempFile("maze-benchmark", ".properties");
+        mazeFile.toFile().deleteOnExit();
+
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(mazeFile)) {
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    boolean border = x == 0 || y == 0 || x == size - 1 || y == size - 1;
+                    writer.write(x + "," + y + "=" + (border ? TileType.WALL : random.nextInt(TileType.COUNT)) + "\n");
+                }
+            }
+            for (int tile = 0; tile < size * size; tile += 7) {
+                writer.write(tile % size + "," + tile / size + "=" + random.nextInt(TileType.COUNT) + "\n");
+            }
+        }
+        return mazeFile;
+    }
+}
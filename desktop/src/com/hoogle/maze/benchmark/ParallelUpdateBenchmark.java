@@ -0,0 +1,100 @@
+package com.hoogle.maze.benchmark;
+
+import com.hoogle.maze.ParallelUpdater;
+import com.hoogle.maze.models.EnemySystem;
+
+import java.util.Random;
+
+import static com.hoogle.maze.MapLoader.Cell_Size;
+
+/**
+ * Measures how the enemy moves of ParallelUpdater scale with the number of threads, for 100k, 1M and 4M enemies on
+ * 1, 2, 4 and 8 threads, and checks that every thread count ends with the same positions and directions as the
+ * sequential loop. The enemies patrol random corridors of 1 to 32 tiles like in EnemySystemBenchmark.
+ * The speedup is bounded by the cores of the machine and by the memory bandwidth, the moves are a few instructions
+ * per enemy. Exits with code 1 if a thread count gives other positions.
+ * Usage: ParallelUpdateBenchmark [ticks] [sliceSize]
+ */
+public class ParallelUpdateBenchmark {
+
+    private static final int[] ENEMY_COUNTS = {100_000, 1_000_000, 4_000_000};
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+    private static final int MAZE_SIZE = 1000;
+    private static final int MAX_CORRIDOR = 32;
+    private static final int WARMUP_TICKS = 200;
+
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int sliceSize = args.length > 1 ? Integer.parseInt(args[1]) : ParallelUpdater.SLICE_SIZE;
+        System.out.println(Runtime.getRuntime().availableProcessors() + " cores, slices of " + sliceSize + " enemies");
+
+        boolean identical = true;
+        for (int count : ENEMY_COUNTS) {
+            double sequential = 0;
+            long sequentialChecksum = 0;
+            for (int threads : THREAD_COUNTS) {
+                EnemySystem system = createEnemies(count);
+                ParallelUpdater updater = new ParallelUpdater(threads, sliceSize);
+                double micros = measure(updater, system, ticks);
+                long checksum = checksum(system);
+                updater.dispose();
+
+                if (threads == 1) {
+                    sequential = micros;
+                    sequentialChecksum = checksum;
+                }
+                boolean same = checksum == sequentialChecksum;
+                identical &= same;
+                System.out.printf("%,10d enemies, %d threads: %9.1f us/tick (%4.2fx), %s%n", count, threads, micros,
+                        sequential / micros, same ? "identical to sequential" : "DIFFERENT from sequential");
+            }
+        }
+        if (!identical)
+            System.exit(1);
+    }
+
+    /**
+     * @return the microseconds per tick of moving the enemies
+     */
+    private static double measure(ParallelUpdater updater, EnemySystem system, int ticks) {
+        long nanos = 0;
+        for (int tick = 0; tick < WARMUP_TICKS + ticks; tick++) {
+            if (tick == WARMUP_TICKS)
+                nanos = 0;
+            long start = System.nanoTime();
+            updater.moveEnemies(system);
+            nanos += System.nanoTime() - start;
+        }
+        return nanos / 1000.0 / ticks;
+    }
+
+    private static EnemySystem createEnemies(int count) {
+        EnemySystem system = new EnemySystem();
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            int length = 1 + random.nextInt(MAX_CORRIDOR);
+            int start = random.nextInt(MAZE_SIZE - length);
+            int other = random.nextInt(MAZE_SIZE);
+            int tile = start + random.nextInt(length);
+            if (random.nextBoolean()) {
+                system.add(tile * Cell_Size, other * Cell_Size, start, start + length - 1, other, other);
+            } else {
+                system.add(other * Cell_Size, tile * Cell_Size, other, other, start, start + length - 1);
+            }
+        }
+        return system;
+    }
+
+    /**
+     * @return a hash of the position and direction of every enemy, in slot order
+     */
+    private static long checksum(EnemySystem system) {
+        long checksum = 17;
+        for (int i = 0; i < system.size(); i++) {
+            checksum = checksum * 31 + system.getX(i);
+            checksum = checksum * 31 + system.getY(i);
+            checksum = checksum * 31 + system.getDirection(i);
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,122 @@
+package com.hoogle.maze.benchmark;
+
+import com.badlogic.gdx.utils.Array;
+import com.hoogle.maze.SpatialIndex;
+import com.hoogle.maze.models.GameObject;
+
+import java.util.Random;
+
+import static com.hoogle.maze.MapLoader.Cell_Size;
+
+/**
+ * Compares the collision checks of the player against every entity with the checks against the entities the
+ * SpatialIndex returns for the tiles around the player, for 10, 1k and 100k entities.
+ * The entities are spread over a 1000 x 1000 tile maze and move one pixel per tick, like the enemies. Every tick
+ * moves them all, and with the index puts the ones that crossed a tile into their new cell; this cost is reported
+ * apart from the collision checks, as the moves themselves are O(entities) either way.
+ * Usage: SpatialIndexBenchmark [ticks]
+ */
+public class SpatialIndexBenchmark {
+
+    private static final int[] ENTITY_COUNTS = {10, 1_000, 100_000};
+    private static final int MAZE_SIZE = 1000;
+    private static final int WARMUP_TICKS = 200;
+
+    /**
+     * An entity that walks back and forth along a row, one pixel per tick
+     */
+    private static class Walker extends GameObject {
+        private int step;
+
+        Walker(int initialX, int initialY, int step) {
+            super(initialX, initialY, Cell_Size, Cell_Size, null);
+            this.step = step;
+        }
+
+        void move() {
+            initialX += step;
+            if (initialX <= 0 || initialX >= (MAZE_SIZE - 1) * Cell_Size)
+                step = -step;
+        }
+    }
+
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+        for (int count : ENTITY_COUNTS) {
+            double[] linear = measure(count, ticks, false);
+            double[] indexed = measure(count, ticks, true);
+            System.out.printf("%,8d entities: collisions linear %9.3f us/tick, indexed %7.3f us/tick (%7.1fx); "
+                            + "moves %9.3f us/tick, with re-bucketing %9.3f us/tick%n",
+                    count, linear[1], indexed[1], linear[1] / indexed[1], linear[0], indexed[0]);
+        }
+    }
+
+    /**
+     * @return the microseconds per tick of moving the entities and of checking the collisions of the player
+     */
+    private static double[] measure(int count, int ticks, boolean indexed) {
+        Random random = new Random(42);
+        Array<Walker> walkers = new Array<>(count);
+        SpatialIndex<Walker> index = new SpatialIndex<>();
+        for (int i = 0; i < count; i++) {
+            Walker walker = new Walker(random.nextInt(MAZE_SIZE) * Cell_Size, random.nextInt(MAZE_SIZE) * Cell_Size,
+                    random.nextBoolean() ? 1 : -1);
+            walkers.add(walker);
+            if (indexed)
+                index.insert(walker);
+        }
+        Walker player = new Walker(MAZE_SIZE / 2 * Cell_Size, MAZE_SIZE / 2 * Cell_Size, 1);
+        Array<Walker> nearPlayer = new Array<>();
+
+        long collisions = 0;
+        long moveNanos = 0;
+        long collisionNanos = 0;
+        for (int tick = 0; tick < WARMUP_TICKS + ticks; tick++) {
+            if (tick == WARMUP_TICKS) {
+                moveNanos = 0;
+                collisionNanos = 0;
+            }
+
+            long start = System.nanoTime();
+            player.move();
+            for (int i = 0; i < walkers.size; i++) {
+                Walker walker = walkers.get(i);
+                walker.move();
+                if (indexed)
+                    index.update(walker);
+            }
+            long moved = System.nanoTime();
+
+            if (indexed) {
+                nearPlayer.clear();
+                index.query(SpatialIndex.tileX(player), SpatialIndex.tileY(player), 1, nearPlayer);
+                for (int i = 0; i < nearPlayer.size; i++) {
+                    if (collides(player, nearPlayer.get(i)))
+                        collisions++;
+                }
+            } else {
+                for (int i = 0; i < walkers.size; i++) {
+                    if (collides(player, walkers.get(i)))
+                        collisions++;
+                }
+            }
+            long checked = System.nanoTime();
+            moveNanos += moved - start;
+            collisionNanos += checked - moved;
+        }
+        // the collisions are counted so the checks cannot be optimized away
+        if (collisions < 0)
+            System.out.println(collisions);
+        return new double[]{moveNanos / 1000.0 / ticks, collisionNanos / 1000.0 / ticks};
+    }
+
+    /**
+     * The check of GameScreen.checkCollision
+     */
+    private static boolean collides(GameObject obj1, GameObject obj2) {
+        double xDifference = Math.abs(obj1.getCurrentFrameX() - obj2.getCurrentFrameX());
+        double yDifference = Math.abs(obj1.getCurrentFrameY() - obj2.getCurrentFrameY());
+        return xDifference <= 0.6 && yDifference <= 0.6;
+    }
+}
@@ -0,0 +1,118 @@
+package com.hoogle.maze.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.hoogle.maze.GameState;
+import com.hoogle.maze.LevelLoader;
+import com.hoogle.maze.MazeRunnerGame;
+import com.hoogle.maze.map.LoadedLevel;
+import com.hoogle.maze.screens.GameScreen;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Runs the game without a window or a GPU, to measure the throughput of the simulation and to soak test it on
+ * build servers. The game runs on the headless backend with a GL that does nothing, loads each level, and calls
+ * GameScreen.tick() for a number of ticks with scripted input. Nothing is rendered.
+ * When the player dies or wins, the game goes through its lose or win screen and starts the level again, like a
+ * retry; the deaths and wins are counted.
+ * The game logs every collision, its output is dropped while the ticks run unless -Dmaze.headless.log=true.
+ * The input script is -Dmaze.headless.script, see ScriptedInput. Exits with code 1 if a level cannot be loaded or
+ * the simulation throws.
+ * Usage: HeadlessRunner [ticks] [mazeFile...], by default 100000 ticks on every maps/*.properties
+ */
+public class HeadlessRunner {
+
+    private static final boolean LOG = Boolean.getBoolean("maze.headless.log");
+    private static final String SCRIPT = System.getProperty("maze.headless.script", ScriptedInput.DEFAULT_SCRIPT);
+    private static final Path MAPS_DIRECTORY = Path.of("../maps");
+
+    public static void main(String[] args) {
+        long ticks = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        List<Path> mazeFiles;
+        try {
+            mazeFiles = args.length > 1 ? Stream.of(args).skip(1).map(Path::of).toList() : listMaps();
+        } catch (IOException e) {
+            System.err.println("Cannot list " + MAPS_DIRECTORY + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        new HeadlessApplication(new ApplicationAdapter() {
+            @Override
+            public void create() {
+                int exitCode = 0;
+                try {
+                    run(mazeFiles, ticks);
+                } catch (IOException e) {
+                    System.err.println("Cannot load maze file: " + e.getMessage());
+                    exitCode = 1;
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    exitCode = 1;
+                }
+                System.exit(exitCode);
+            }
+        }, new HeadlessApplicationConfiguration());
+    }
+
+    private static List<Path> listMaps() throws IOException {
+        try (Stream<Path> files = Files.list(MAPS_DIRECTORY)) {
+            return files.filter(file -> file.toString().endsWith(".properties")).sorted().toList();
+        }
+    }
+
+    private static void run(List<Path> mazeFiles, long ticks) throws IOException {
+        Gdx.gl = Gdx.gl20 = new NoOpGL20();
+        ScriptedInput input = new ScriptedInput(SCRIPT);
+        Gdx.input = input;
+
+        MazeRunnerGame game = new MazeRunnerGame(null);
+        game.create();
+        LevelLoader levelLoader = new LevelLoader();
+
+        PrintStream out = System.out;
+        PrintStream quiet = LOG ? out : new PrintStream(OutputStream.nullOutputStream());
+        for (Path mazeFile : mazeFiles) {
+            LoadedLevel level = levelLoader.read(mazeFile);
+            System.setOut(quiet);
+            try {
+                // from the menu, like a level picked by the player, so the game screen of the last level is disposed
+                game.goToMenu();
+                game.onLevelLoaded(level);
+                long deaths = 0;
+                long wins = 0;
+                long start = System.nanoTime();
+                for (long tick = 0; tick < ticks; tick++) {
+                    input.setTick(tick);
+                    ((GameScreen) game.getScreen()).tick();
+
+                    GameState state = game.getGameState();
+                    if (state != GameState.RUNNING) {
+                        if (state == GameState.LOST)
+                            deaths++;
+                        else
+                            wins++;
+                        // the game screen switches to the lose or win screen, then the level starts again
+                        game.getScreen().render(0);
+                        game.onLevelLoaded(level);
+                    }
+                }
+                long nanos = System.nanoTime() - start;
+
+                out.printf("%-20s %d ticks in %8.1f ms: %,12.0f ticks/s, %d deaths, %d wins%n", mazeFile.getFileName(),
+                        ticks, nanos / 1_000_000.0, ticks * 1_000_000_000.0 / nanos, deaths, wins);
+            } finally {
+                System.setOut(out);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.hoogle.maze.headless;
+
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.backends.headless.mock.input.MockInput;
+
+/**
+ * Input of the headless runs: holds one key of a script at a time. The script is a list of keys, each held for a
+ * number of ticks, and starts over at its end.
+ */
+public class ScriptedInput extends MockInput {
+
+    /**
+     * Walks right, up, left and down, 45 ticks each
+     */
+    public static final String DEFAULT_SCRIPT = "Right*45,Up*45,Left*45,Down*45";
+
+    private final int[] keys;
+    private final int[] durations;
+    private final int length;
+    private int pressedKey = -1;
+
+    /**
+     * @param script comma separated keys with the number of ticks they are held, e.g. "Right*45,Up*10"
+     *               (names of Input.Keys.toString; without a count a key is held for one tick)
+     * @throws IllegalArgumentException if a key is unknown or a count is not positive
+     */
+    public ScriptedInput(String script) {
+        String[] steps = script.split(",");
+        keys = new int[steps.length];
+        durations = new int[steps.length];
+        int total = 0;
+        for (int i = 0; i < steps.length; i++) {
+            String[] parts = steps[i].trim().split("\\*");
+            keys[i] = Input.Keys.valueOf(parts[0].trim());
+            durations[i] = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            if (keys[i] == -1 || durations[i] <= 0)
+                throw new IllegalArgumentException("Invalid step in input script: " + steps[i]);
+            total += durations[i];
+        }
+        length = total;
+    }
+
+    /**
+     * Presses the key the script holds at a tick
+     */
+    public void setTick(long tick) {
+        int position = (int) (tick % length);
+        for (int i = 0; i < keys.length; i++) {
+            if (position < durations[i]) {
+                pressedKey = keys[i];
+                return;
+            }
+            position -= durations[i];
+        }
+    }
+
+    @Override
+    public boolean isKeyPressed(int key) {
+        return key == pressedKey;
+    }
+}
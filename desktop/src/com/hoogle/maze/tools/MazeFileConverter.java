@@ -0,0 +1,42 @@
+package com.hoogle.maze.tools;
+
+import com.hoogle.maze.map.MazeBinaryFormat;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts .properties maze files into the binary .mzb format, writing each result next to its source.
+ * Usage: MazeFileConverter [file or directory ...] (defaults to ../maps)
+ */
+public class MazeFileConverter {
+
+    public static void main(String[] args) throws IOException {
+        List<Path> sources = new ArrayList<>();
+        for (String arg : args.length > 0 ? args : new String[]{"../maps"}) {
+            Path path = Path.of(arg);
+            if (Files.isDirectory(path)) {
+                try (DirectoryStream<Path> directory = Files.newDirectoryStream(path, "*.properties")) {
+                    directory.forEach(sources::add);
+                }
+            } else {
+                sources.add(path);
+            }
+        }
+
+        for (Path source : sources) {
+            String fileName = source.getFileName().toString();
+            String baseName = fileName.endsWith(".properties") ? fileName.substring(0, fileName.length() - ".properties".length()) : fileName;
+            Path destination = source.resolveSibling(baseName + MazeBinaryFormat.EXTENSION);
+
+            long start = System.nanoTime();
+            MazeBinaryFormat.convert(source, destination);
+            System.out.printf("%s -> %s (%d bytes, %.1f ms)%n",
+                    source, destination, Files.size(destination), (System.nanoTime() - start) / 1_000_000.0);
+        }
+    }
+}
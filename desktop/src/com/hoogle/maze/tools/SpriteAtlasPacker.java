@@ -0,0 +1,91 @@
+package com.hoogle.maze.tools;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.PixmapPackerIO;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.hoogle.maze.SpriteAtlas;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Packs every sprite the game draws from the separate sprite sheets into one texture atlas, so the whole frame can be
+ * drawn without switching textures. This class is the only place that knows where the sprites are in the sheets,
+ * the game looks them up by name. Frames of an animation are packed as name_0, name_1, ... and loaded with
+ * TextureAtlas.findRegions(name).
+ * Usage: SpriteAtlasPacker [assets directory] (defaults to the working directory)
+ */
+public class SpriteAtlasPacker {
+
+    private static final int PAGE_SIZE = 512;
+    private static final int PADDING = 2;
+
+    /**
+     * A row of frameCount frames in a sheet, starting at (x, y)
+     */
+    private record Sprite(String name, String sheet, int x, int y, int width, int height, int frameCount) {
+    }
+
+    private static final Sprite[] SPRITES = {
+            new Sprite("wall", "basictiles.png", 0, 0, 16, 16, 1),
+            new Sprite("entry", "basictiles.png", 32, 96, 16, 16, 1),
+            new Sprite("exit", "basictiles.png", 0, 96, 16, 16, 1),
+            new Sprite("trap", "objects.png", 64, 48, 16, 16, 7),
+            new Sprite("heart-full", "objects.png", 64, 0, 16, 16, 1),
+            new Sprite("heart-empty", "objects.png", 128, 0, 16, 16, 1),
+            new Sprite("enemy", "mobs.png", 128, 64, 16, 16, 1),
+            new Sprite("enemy-walk", "mobs.png", 96, 80, 16, 16, 3),
+            new Sprite("key", "key_small1.png", 0, 0, 16, 16, 1),
+            new Sprite("key-big", "key_big.png", 0, 0, 32, 32, 1),
+            new Sprite("player-down", "character.png", 0, 0, 16, 32, 4),
+            new Sprite("player-right", "character.png", 0, 32, 16, 32, 4),
+            new Sprite("player-up", "character.png", 0, 64, 16, 32, 4),
+            new Sprite("player-left", "character.png", 0, 96, 16, 32, 4),
+    };
+
+    public static void main(String[] args) throws IOException {
+        GdxNativesLoader.load();
+        File assets = new File(args.length > 0 ? args[0] : ".");
+
+        PixmapPacker packer = new PixmapPacker(PAGE_SIZE, PAGE_SIZE, Pixmap.Format.RGBA8888, PADDING, true);
+        Map<String, Pixmap> sheets = new HashMap<>();
+        for (Sprite sprite : SPRITES) {
+            Pixmap sheet = sheets.computeIfAbsent(sprite.sheet(), name -> new Pixmap(new FileHandle(new File(assets, name))));
+            for (int frame = 0; frame < sprite.frameCount(); frame++) {
+                Pixmap image = new Pixmap(sprite.width(), sprite.height(), Pixmap.Format.RGBA8888);
+                image.setBlending(Pixmap.Blending.None);
+                image.drawPixmap(sheet, 0, 0, sprite.x() + frame * sprite.width(), sprite.y(), sprite.width(), sprite.height());
+                String name = sprite.frameCount() > 1 ? sprite.name() + "_" + frame : sprite.name();
+                packer.pack(name, image);
+                image.dispose();
+            }
+        }
+
+        // the font of the HUD, so its text is drawn from the same texture
+        try (InputStream font = SpriteAtlasPacker.class.getClassLoader().getResourceAsStream(SpriteAtlas.FONT_IMAGE)) {
+            if (font == null)
+                throw new IOException(SpriteAtlas.FONT_IMAGE + " not found on the classpath");
+            byte[] bytes = font.readAllBytes();
+            Pixmap fontPixmap = new Pixmap(bytes, 0, bytes.length);
+            packer.pack(SpriteAtlas.FONT_REGION, fontPixmap);
+            fontPixmap.dispose();
+        }
+
+        if (packer.getPages().size > 1)
+            throw new IllegalStateException("The sprites do not fit on one " + PAGE_SIZE + "x" + PAGE_SIZE + " page");
+
+        PixmapPackerIO.SaveParameters parameters = new PixmapPackerIO.SaveParameters();
+        parameters.useIndexes = true;
+        FileHandle atlasFile = new FileHandle(new File(assets, SpriteAtlas.ATLAS_FILE));
+        new PixmapPackerIO().save(atlasFile, packer, parameters);
+        System.out.println("Packed " + SPRITES.length + " sprites into " + atlasFile.path());
+
+        sheets.values().forEach(Pixmap::dispose);
+        packer.dispose();
+    }
+}